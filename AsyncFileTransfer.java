@@ -0,0 +1,230 @@
+// AsyncFileTransfer.java
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+/**
+ * Non-blocking whole-file reads and atomic whole-file writes
+ * using asynchronous file channels.
+ * <p>
+ * Transfers are driven by completion handlers,
+ * so no thread waits while the data is read or written.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+final class AsyncFileTransfer {
+
+    /** Suffix of the files in which writes are prepared. */
+    static final String TEMP_SUFFIX = ".tmp";
+
+    /** Prevents instantiation of utility class. */
+    private AsyncFileTransfer() {
+    }
+
+    /**
+     * Writes bytes to a new temporary file next to the target,
+     * forces them to storage, and renames the temporary file
+     * over the target.
+     * Readers of the target therefore see either the previous
+     * contents or the complete new contents,
+     * and concurrent writes of one target each rename their own file.
+     * The replacement has the permissions of the target it replaces,
+     * or the default permissions of new files if there is no target.
+     * @param target the file to replace
+     * @param bytes the new contents of the file
+     * @return a future completed when the target has been replaced,
+     *         or completed exceptionally with the I/O error
+     */
+    static CompletableFuture<Void> writeAtomically(final Path target,
+                                                   final byte[] bytes) {
+        final CompletableFuture<Void> result = new CompletableFuture<Void>();
+        final Path directory = target.toAbsolutePath().getParent();
+        Path created = null;
+        AsynchronousFileChannel opened = null;
+        try {
+            while (opened == null) {
+                created = directory.resolve(target.getFileName() + "."
+                        + Long.toUnsignedString(
+                                ThreadLocalRandom.current().nextLong())
+                        + TEMP_SUFFIX);
+                try {
+                    opened = AsynchronousFileChannel.open(created,
+                            StandardOpenOption.WRITE,
+                            StandardOpenOption.CREATE_NEW);
+                } catch (FileAlreadyExistsException ex) {
+                    // Another write chose the same name; choose again.
+                    continue;
+                }
+            }
+        } catch (IOException ex) {
+            result.completeExceptionally(ex);
+            return result;
+        }
+        final Path temp = created;
+        final AsynchronousFileChannel channel = opened;
+        try {
+            copyPermissions(target, temp);
+        } catch (IOException ex) {
+            closeQuietly(channel);
+            deleteQuietly(temp);
+            result.completeExceptionally(ex);
+            return result;
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        channel.write(buffer, 0, null,
+                      new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(final Integer count, final Void unused) {
+                if (buffer.hasRemaining()) {
+                    channel.write(buffer, buffer.position(), null, this);
+                    return;
+                }
+                try {
+                    try {
+                        channel.force(false);
+                    } finally {
+                        channel.close();
+                    }
+                    try {
+                        Files.move(temp, target,
+                                   StandardCopyOption.ATOMIC_MOVE,
+                                   StandardCopyOption.REPLACE_EXISTING);
+                    } catch (AtomicMoveNotSupportedException ex) {
+                        Files.move(temp, target,
+                                   StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    result.complete(null);
+                } catch (IOException ex) {
+                    deleteQuietly(temp);
+                    result.completeExceptionally(ex);
+                }
+            }
+
+            @Override
+            public void failed(final Throwable ex, final Void unused) {
+                closeQuietly(channel);
+                deleteQuietly(temp);
+                result.completeExceptionally(ex);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Reads the entire contents of a file.
+     * @param source the file to read
+     * @return a future completed with the contents of the file,
+     *         or with <code>null</code> if the file does not exist,
+     *         or completed exceptionally with any other I/O error
+     */
+    static CompletableFuture<byte[]> readFully(final Path source) {
+        final CompletableFuture<byte[]> result
+                = new CompletableFuture<byte[]>();
+        final AsynchronousFileChannel channel;
+        final ByteBuffer buffer;
+        try {
+            channel = AsynchronousFileChannel.open(source,
+                                                   StandardOpenOption.READ);
+        } catch (NoSuchFileException ex) {
+            result.complete(null);
+            return result;
+        } catch (IOException ex) {
+            result.completeExceptionally(ex);
+            return result;
+        }
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large: " + source);
+            }
+            buffer = ByteBuffer.allocate((int) size);
+        } catch (IOException ex) {
+            closeQuietly(channel);
+            result.completeExceptionally(ex);
+            return result;
+        }
+        channel.read(buffer, 0, null,
+                     new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(final Integer count, final Void unused) {
+                if (count >= 0 && buffer.hasRemaining()) {
+                    channel.read(buffer, buffer.position(), null, this);
+                    return;
+                }
+                closeQuietly(channel);
+                if (buffer.hasRemaining()) {
+                    result.completeExceptionally(
+                            new IOException("File truncated: " + source));
+                } else {
+                    result.complete(buffer.array());
+                }
+            }
+
+            @Override
+            public void failed(final Throwable ex, final Void unused) {
+                closeQuietly(channel);
+                result.completeExceptionally(ex);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Gives a temporary file the POSIX permissions of the target
+     * it is to replace.
+     * The temporary file keeps the default permissions of new files
+     * if the target does not exist or the file system is not POSIX.
+     * @param target the file to be replaced
+     * @param temp the file to replace it
+     * @throws IOException if the permissions cannot be copied
+     */
+    private static void copyPermissions(final Path target, final Path temp)
+        throws IOException {
+        try {
+            Files.setPosixFilePermissions(temp,
+                    Files.getPosixFilePermissions(target));
+        } catch (NoSuchFileException ex) {
+            // No target; the default permissions apply.
+            return;
+        } catch (UnsupportedOperationException ex) {
+            // Not a POSIX file system; the default permissions apply.
+            return;
+        }
+    }
+
+    /**
+     * Deletes a temporary file, ignoring any error.
+     * @param temp the file to delete
+     */
+    private static void deleteQuietly(final Path temp) {
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException ex) {
+            // Already reporting the original failure.
+            return;
+        }
+    }
+
+    /**
+     * Closes a channel, ignoring any error.
+     * @param channel the channel to close
+     */
+    private static void closeQuietly(final AsynchronousFileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            // Already reporting the original failure.
+            return;
+        }
+    }
+}
@@ -0,0 +1,524 @@
+// CompactTreeFormat.java
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+/**
+ * Compact binary file format for NumericBinaryTree.
+ * <p>
+ * After a header holding the number of nodes,
+ * nodes are written in preorder as a single bit stream.
+ * Each node contributes two structure bits,
+ * indicating the presence of its left and right children,
+ * so the whole shape of the tree occupies 2n bits.
+ * Values are encoded according to their type:
+ * integral values as zigzag variable-length deltas from the previous
+ * integral value, and floating-point values as the XOR of their bits
+ * with the previous floating-point value of the same type,
+ * storing only the meaningful bits (Gorilla encoding).
+ * </p>
+ * <p>
+ * Nodes are grouped into blocks of {@link #BLOCK_SIZE}.
+ * Each block begins with the run-length encoded type tags of its values,
+ * and the delta and XOR state is reset at each block,
+ * so a reader needs only a bounded amount of state.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+final class CompactTreeFormat {
+
+    /** File identification ("NBTC"). */
+    static final int MAGIC = 0x4E425443;
+
+    /** Format version. */
+    static final int VERSION = 1;
+
+    /** Number of nodes per block. */
+    static final int BLOCK_SIZE = 4096;
+
+    /** Number of bits in a type tag. */
+    private static final int TAG_BITS = 4;
+
+    /** Number of bits per variable-length integer group. */
+    private static final int VARINT_GROUP_BITS = 7;
+
+    /** Mask selecting one variable-length integer group. */
+    private static final long VARINT_GROUP_MASK = 0x7F;
+
+    /** Number of bits recording the leading zeros of an XOR. */
+    private static final int LEADING_BITS = 5;
+
+    /** Largest recordable count of leading zeros. */
+    private static final int MAX_LEADING = 31;
+
+    /** Number of bits recording the meaningful length of an XOR. */
+    private static final int LENGTH_BITS = 6;
+
+    /** Number of bits in a half of a long. */
+    private static final int HALF_LONG_BITS = 32;
+
+    /** Mask selecting the low bits of a byte. */
+    private static final int BYTE_MASK = 0xFF;
+
+    /** Prevents instantiation of utility class. */
+    private CompactTreeFormat() {
+    }
+
+    /**
+     * Writes a tree in compact format.
+     * @param out the destination
+     * @param tree the tree to write; may be empty
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(final OutputStream out, final NumericBinaryTree tree)
+        throws IOException {
+        int count = tree.numberOfNodes();
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeInt(count);
+        BitOutput bits = new BitOutput(out);
+        ValueState state = new ValueState();
+        NumericBinaryTree[] block
+                = new NumericBinaryTree[Math.min(count, BLOCK_SIZE)];
+        int filled = 0;
+        ArrayDeque<NumericBinaryTree> pending
+                = new ArrayDeque<NumericBinaryTree>();
+        if (!tree.isEmpty()) {
+            pending.push(tree);
+        }
+        while (!pending.isEmpty()) {
+            NumericBinaryTree node = pending.pop();
+            if (node.getRightChild() != null) {
+                pending.push(node.getRightChild());
+            }
+            if (node.getLeftChild() != null) {
+                pending.push(node.getLeftChild());
+            }
+            block[filled++] = node;
+            if (filled == block.length) {
+                writeBlock(bits, block, filled, state);
+                filled = 0;
+            }
+        }
+        if (filled > 0) {
+            writeBlock(bits, block, filled, state);
+        }
+        bits.flush();
+    }
+
+    /**
+     * Writes one block of nodes.
+     * @param bits the destination
+     * @param block the nodes in preorder
+     * @param length the number of nodes in the block
+     * @param state the value encoding state
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeBlock(final BitOutput bits,
+                                   final NumericBinaryTree[] block,
+                                   final int length, final ValueState state)
+        throws IOException {
+        state.reset();
+        int start = 0;
+        while (start < length) {
+            int tag = NumberCodec.tagOf(block[start].getValue());
+            int end = start + 1;
+            while (end < length
+                   && NumberCodec.tagOf(block[end].getValue()) == tag) {
+                end++;
+            }
+            bits.write(tag, TAG_BITS);
+            writeVarint(bits, end - start);
+            start = end;
+        }
+        for (int i = 0; i < length; i++) {
+            NumericBinaryTree node = block[i];
+            bits.writeBit(node.getLeftChild() != null);
+            bits.writeBit(node.getRightChild() != null);
+            Number value = node.getValue();
+            writeValue(bits, NumberCodec.tagOf(value), value, state);
+        }
+    }
+
+    /**
+     * Reads the type tags of a block.
+     * @param bits the source
+     * @param tags destination for the tags of the block
+     * @param length the number of nodes in the block
+     * @throws IOException if an I/O error occurs or the data is invalid
+     */
+    static void readTags(final BitInput bits, final int[] tags,
+                         final int length) throws IOException {
+        int filled = 0;
+        while (filled < length) {
+            int tag = (int) bits.read(TAG_BITS);
+            long run = readVarint(bits);
+            if (run < 1 || run > length - filled) {
+                throw new java.io.InvalidObjectException("Invalid tag run");
+            }
+            for (long i = 0; i < run; i++) {
+                tags[filled++] = tag;
+            }
+        }
+    }
+
+    /**
+     * Writes a value according to its type tag.
+     * @param bits the destination
+     * @param tag the type tag of the value
+     * @param value the value to write
+     * @param state the value encoding state
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeValue(final BitOutput bits, final int tag,
+                                   final Number value,
+                                   final ValueState state)
+        throws IOException {
+        switch (tag) {
+            case NumberCodec.BYTE:
+            case NumberCodec.SHORT:
+            case NumberCodec.INTEGER:
+            case NumberCodec.LONG:
+                long integral = value.longValue();
+                long delta = integral - state.previousIntegral;
+                writeVarint(bits, (delta << 1) ^ (delta >> (Long.SIZE - 1)));
+                state.previousIntegral = integral;
+                break;
+            case NumberCodec.FLOAT:
+                long floatBits = Float.floatToRawIntBits(value.floatValue());
+                writeXor(bits, floatBits << HALF_LONG_BITS, state.floats);
+                break;
+            case NumberCodec.DOUBLE:
+                writeXor(bits, Double.doubleToRawLongBits(value.doubleValue()),
+                         state.doubles);
+                break;
+            default:
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                NumberCodec.writeUntagged(new DataOutputStream(buffer),
+                                          tag, value);
+                byte[] bytes = buffer.toByteArray();
+                writeVarint(bits, bytes.length);
+                for (byte b : bytes) {
+                    bits.write(b, Byte.SIZE);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Reads a value according to its type tag.
+     * @param bits the source
+     * @param tag the type tag of the value
+     * @param state the value decoding state
+     * @return the value read
+     * @throws IOException if an I/O error occurs or the data is invalid
+     */
+    static Number readValue(final BitInput bits, final int tag,
+                            final ValueState state) throws IOException {
+        switch (tag) {
+            case NumberCodec.BYTE:
+            case NumberCodec.SHORT:
+            case NumberCodec.INTEGER:
+            case NumberCodec.LONG:
+                long zigzag = readVarint(bits);
+                long integral = state.previousIntegral
+                        + ((zigzag >>> 1) ^ -(zigzag & 1));
+                state.previousIntegral = integral;
+                if (tag == NumberCodec.LONG) {
+                    return Long.valueOf(integral);
+                } else if (tag == NumberCodec.INTEGER) {
+                    return Integer.valueOf((int) integral);
+                } else if (tag == NumberCodec.SHORT) {
+                    return Short.valueOf((short) integral);
+                }
+                return Byte.valueOf((byte) integral);
+            case NumberCodec.FLOAT:
+                long floatBits = readXor(bits, state.floats);
+                return Float.valueOf(Float.intBitsToFloat(
+                        (int) (floatBits >>> HALF_LONG_BITS)));
+            case NumberCodec.DOUBLE:
+                return Double.valueOf(
+                        Double.longBitsToDouble(readXor(bits, state.doubles)));
+            default:
+                long length = readVarint(bits);
+                if (length < 0 || length > Integer.MAX_VALUE) {
+                    throw new java.io.InvalidObjectException("Invalid length");
+                }
+                byte[] bytes = new byte[(int) length];
+                for (int i = 0; i < bytes.length; i++) {
+                    bytes[i] = (byte) bits.read(Byte.SIZE);
+                }
+                return NumberCodec.readUntagged(new DataInputStream(
+                        new ByteArrayInputStream(bytes)), tag);
+        }
+    }
+
+    /**
+     * Writes the XOR of bits with the previous bits of the same type.
+     * @param bits the destination
+     * @param value the bits of the value
+     * @param state the XOR encoding state of the value type
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeXor(final BitOutput bits, final long value,
+                                 final XorState state) throws IOException {
+        long xor = value ^ state.previous;
+        state.previous = value;
+        if (xor == 0) {
+            bits.writeBit(false);
+            return;
+        }
+        bits.writeBit(true);
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), MAX_LEADING);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (state.leading >= 0 && leading >= state.leading
+            && trailing >= state.trailing) {
+            bits.writeBit(false);
+            bits.write(xor >>> state.trailing,
+                       Long.SIZE - state.leading - state.trailing);
+            return;
+        }
+        int meaningful = Long.SIZE - leading - trailing;
+        bits.writeBit(true);
+        bits.write(leading, LEADING_BITS);
+        bits.write(meaningful - 1, LENGTH_BITS);
+        bits.write(xor >>> trailing, meaningful);
+        state.leading = leading;
+        state.trailing = trailing;
+    }
+
+    /**
+     * Reads bits written by writeXor.
+     * @param bits the source
+     * @param state the XOR decoding state of the value type
+     * @return the bits of the value
+     * @throws IOException if an I/O error occurs or the data is invalid
+     */
+    private static long readXor(final BitInput bits, final XorState state)
+        throws IOException {
+        if (!bits.readBit()) {
+            return state.previous;
+        }
+        if (bits.readBit()) {
+            state.leading = (int) bits.read(LEADING_BITS);
+            int meaningful = (int) bits.read(LENGTH_BITS) + 1;
+            state.trailing = Long.SIZE - state.leading - meaningful;
+            if (state.trailing < 0) {
+                throw new java.io.InvalidObjectException("Invalid XOR length");
+            }
+        } else if (state.leading < 0) {
+            throw new java.io.InvalidObjectException("Missing XOR window");
+        }
+        long xor = bits.read(Long.SIZE - state.leading - state.trailing);
+        state.previous ^= xor << state.trailing;
+        return state.previous;
+    }
+
+    /**
+     * Writes an unsigned variable-length integer in 7-bit groups,
+     * each preceded by a continuation bit.
+     * @param bits the destination
+     * @param value the value to write, treated as unsigned
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeVarint(final BitOutput bits, final long value)
+        throws IOException {
+        long remaining = value;
+        do {
+            long group = remaining & VARINT_GROUP_MASK;
+            remaining >>>= VARINT_GROUP_BITS;
+            bits.writeBit(remaining != 0);
+            bits.write(group, VARINT_GROUP_BITS);
+        } while (remaining != 0);
+    }
+
+    /**
+     * Reads an unsigned variable-length integer.
+     * @param bits the source
+     * @return the value read
+     * @throws IOException if an I/O error occurs or the data is invalid
+     */
+    private static long readVarint(final BitInput bits) throws IOException {
+        long value = 0;
+        int shift = 0;
+        boolean more;
+        do {
+            if (shift >= Long.SIZE) {
+                throw new java.io.InvalidObjectException("Invalid varint");
+            }
+            more = bits.readBit();
+            value |= bits.read(VARINT_GROUP_BITS) << shift;
+            shift += VARINT_GROUP_BITS;
+        } while (more);
+        return value;
+    }
+
+    /**
+     * Encoding state reset at the start of each block.
+     */
+    static final class ValueState {
+        /** Previous integral value. */
+        private long previousIntegral;
+        /** XOR state of Float values. */
+        private final XorState floats = new XorState();
+        /** XOR state of Double values. */
+        private final XorState doubles = new XorState();
+
+        /**
+         * Resets the state for a new block.
+         */
+        void reset() {
+            this.previousIntegral = 0;
+            this.floats.reset();
+            this.doubles.reset();
+        }
+    }
+
+    /**
+     * XOR encoding state for one floating-point type.
+     */
+    private static final class XorState {
+        /** Bits of the previous value. */
+        private long previous;
+        /** Leading zeros of the current window; -1 if no window. */
+        private int leading = -1;
+        /** Trailing zeros of the current window. */
+        private int trailing;
+
+        /**
+         * Resets the state for a new block.
+         */
+        void reset() {
+            this.previous = 0;
+            this.leading = -1;
+            this.trailing = 0;
+        }
+    }
+
+    /**
+     * Writes a sequence of bits to a byte stream, most significant first.
+     */
+    static final class BitOutput {
+        /** The destination. */
+        private final OutputStream out;
+        /** Bits not yet written. */
+        private long pending;
+        /** Number of bits not yet written; always less than a byte. */
+        private int pendingCount;
+
+        /**
+         * Constructs a bit stream.
+         * @param destination the byte stream to write
+         */
+        BitOutput(final OutputStream destination) {
+            this.out = destination;
+        }
+
+        /**
+         * Writes a single bit.
+         * @param bit the bit to write
+         * @throws IOException if an I/O error occurs
+         */
+        void writeBit(final boolean bit) throws IOException {
+            if (bit) {
+                write(1, 1);
+            } else {
+                write(0, 1);
+            }
+        }
+
+        /**
+         * Writes the low bits of a value.
+         * @param value the value whose low bits are written
+         * @param count the number of bits to write, at most 64
+         * @throws IOException if an I/O error occurs
+         */
+        void write(final long value, final int count) throws IOException {
+            if (count > HALF_LONG_BITS) {
+                write(value >>> HALF_LONG_BITS, count - HALF_LONG_BITS);
+                write(value, HALF_LONG_BITS);
+                return;
+            }
+            this.pending = (this.pending << count)
+                    | (value & ((1L << count) - 1));
+            this.pendingCount += count;
+            while (this.pendingCount >= Byte.SIZE) {
+                this.pendingCount -= Byte.SIZE;
+                this.out.write((int) (this.pending >>> this.pendingCount));
+            }
+        }
+
+        /**
+         * Writes any partial byte, padded with zero bits,
+         * and flushes the destination.
+         * @throws IOException if an I/O error occurs
+         */
+        void flush() throws IOException {
+            if (this.pendingCount > 0) {
+                write(0, Byte.SIZE - this.pendingCount);
+            }
+            this.out.flush();
+        }
+    }
+
+    /**
+     * Reads a sequence of bits from a byte stream, most significant first.
+     */
+    static final class BitInput {
+        /** The source. */
+        private final InputStream in;
+        /** Bits read but not yet consumed, in the low bits. */
+        private long available;
+        /** Number of bits read but not yet consumed. */
+        private int availableCount;
+
+        /**
+         * Constructs a bit stream.
+         * @param source the byte stream to read
+         */
+        BitInput(final InputStream source) {
+            this.in = source;
+        }
+
+        /**
+         * Reads a single bit.
+         * @return true if the bit is set
+         * @throws IOException if an I/O error occurs
+         */
+        boolean readBit() throws IOException {
+            return read(1) != 0;
+        }
+
+        /**
+         * Reads bits as the low bits of a value.
+         * @param count the number of bits to read, at most 64
+         * @return the bits read
+         * @throws IOException if an I/O error occurs or the stream ends
+         */
+        long read(final int count) throws IOException {
+            if (count > HALF_LONG_BITS) {
+                long high = read(count - HALF_LONG_BITS);
+                return (high << HALF_LONG_BITS) | read(HALF_LONG_BITS);
+            }
+            while (this.availableCount < count) {
+                int next = this.in.read();
+                if (next < 0) {
+                    throw new EOFException();
+                }
+                this.available = (this.available << Byte.SIZE)
+                        | (next & BYTE_MASK);
+                this.availableCount += Byte.SIZE;
+            }
+            this.availableCount -= count;
+            return (this.available >>> this.availableCount)
+                    & ((1L << count) - 1);
+        }
+    }
+}
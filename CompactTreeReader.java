@@ -0,0 +1,274 @@
+// CompactTreeReader.java
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.util.Arrays;
+/**
+ * Streaming reader for trees saved by
+ * {@link NumericBinaryTree#saveCompact(String)}.
+ * <p>
+ * Nodes are delivered one at a time in preorder,
+ * each with its value and the presence of its children,
+ * so a saved tree can be scanned without building it in memory.
+ * The whole remaining tree can instead be built
+ * using {@link #readTree()}.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public final class CompactTreeReader implements java.io.Closeable {
+
+    /** Number of bytes examined to recognize the format. */
+    private static final int MAGIC_LENGTH = Integer.SIZE / Byte.SIZE;
+
+    /** Flag for an awaited left child. */
+    private static final int LEFT = 1;
+
+    /** Flag for an awaited right child. */
+    private static final int RIGHT = 2;
+
+    /** Initial capacity of the stack used to build a tree. */
+    private static final int INITIAL_DEPTH = 16;
+
+    /** The underlying stream. */
+    private final InputStream in;
+
+    /** Bit stream over the node data. */
+    private final CompactTreeFormat.BitInput bits;
+
+    /** Value decoding state. */
+    private final CompactTreeFormat.ValueState state
+            = new CompactTreeFormat.ValueState();
+
+    /** Total number of nodes in the stream. */
+    private final int size;
+
+    /** Type tags of the current block. */
+    private final int[] tags;
+
+    /** Number of nodes read so far. */
+    private int nodesRead;
+
+    /** Value of the current node. */
+    private Number value;
+
+    /** Whether the current node has a left child. */
+    private boolean leftChild;
+
+    /** Whether the current node has a right child. */
+    private boolean rightChild;
+
+    /**
+     * Constructs a reader over a stream positioned at the start
+     * of a compact tree.
+     * @param source the stream to read
+     * @throws java.io.IOException if an I/O error occurs or
+     *         the stream does not hold a compact tree
+     */
+    public CompactTreeReader(final InputStream source) throws IOException {
+        this.in = source;
+        DataInputStream header = new DataInputStream(source);
+        if (header.readInt() != CompactTreeFormat.MAGIC) {
+            throw new InvalidObjectException("Not a compact tree");
+        }
+        int version = header.readUnsignedByte();
+        if (version != CompactTreeFormat.VERSION) {
+            throw new InvalidObjectException("Unsupported version " + version);
+        }
+        this.size = header.readInt();
+        if (this.size < 0) {
+            throw new InvalidObjectException("Invalid size " + this.size);
+        }
+        this.bits = new CompactTreeFormat.BitInput(source);
+        this.tags = new int[Math.min(this.size, CompactTreeFormat.BLOCK_SIZE)];
+    }
+
+    /**
+     * Opens a reader over a file.
+     * @param filename the name of the file to read
+     * @return a reader positioned before the first node
+     * @throws java.io.IOException if an I/O error occurs or
+     *         the file does not hold a compact tree
+     */
+    public static CompactTreeReader open(final String filename)
+        throws IOException {
+        InputStream file = new BufferedInputStream(
+                new FileInputStream(filename));
+        try {
+            return new CompactTreeReader(file);
+        } catch (IOException ex) {
+            file.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Determines whether a stream holds a compact tree
+     * without consuming any of it.
+     * @param source a stream supporting mark and reset
+     * @return true if the stream begins with a compact tree header
+     * @throws java.io.IOException if an I/O error occurs
+     */
+    static boolean isCompact(final InputStream source) throws IOException {
+        source.mark(MAGIC_LENGTH);
+        int magic = 0;
+        for (int i = 0; i < MAGIC_LENGTH; i++) {
+            int next = source.read();
+            if (next < 0) {
+                source.reset();
+                return false;
+            }
+            magic = (magic << Byte.SIZE) | next;
+        }
+        source.reset();
+        return magic == CompactTreeFormat.MAGIC;
+    }
+
+    /**
+     * Returns the total number of nodes in the stream.
+     * @return the number of nodes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Advances to the next node in preorder.
+     * @return true if there was another node;
+     *         false if all nodes have been read
+     * @throws java.io.IOException if an I/O error occurs
+     *         or the data is invalid
+     */
+    public boolean next() throws IOException {
+        if (this.nodesRead == this.size) {
+            return false;
+        }
+        int index = this.nodesRead % CompactTreeFormat.BLOCK_SIZE;
+        if (index == 0) {
+            this.state.reset();
+            CompactTreeFormat.readTags(this.bits, this.tags,
+                    Math.min(this.tags.length, this.size - this.nodesRead));
+        }
+        this.leftChild = this.bits.readBit();
+        this.rightChild = this.bits.readBit();
+        this.value = CompactTreeFormat.readValue(this.bits, this.tags[index],
+                                                 this.state);
+        this.nodesRead++;
+        return true;
+    }
+
+    /**
+     * Returns the value of the current node.
+     * @return the value of the node most recently read by next()
+     * @throws IllegalStateException if no node has been read
+     */
+    public Number getValue() throws IllegalStateException {
+        if (this.nodesRead == 0) {
+            throw new IllegalStateException();
+        }
+        return this.value;
+    }
+
+    /**
+     * Indicates whether the current node has a left child,
+     * which is then the next node in preorder.
+     * @return true if the current node has a left child
+     */
+    public boolean hasLeftChild() {
+        return this.leftChild;
+    }
+
+    /**
+     * Indicates whether the current node has a right child,
+     * which follows the left subtree in preorder.
+     * @return true if the current node has a right child
+     */
+    public boolean hasRightChild() {
+        return this.rightChild;
+    }
+
+    /**
+     * Builds a tree from all nodes of the stream.
+     * @return the tree; the empty tree if the stream holds no nodes
+     * @throws IllegalStateException if any node has already been read
+     * @throws java.io.IOException if an I/O error occurs
+     *         or the data is invalid
+     */
+    public NumericBinaryTree readTree()
+        throws IllegalStateException, IOException {
+        if (this.nodesRead != 0) {
+            throw new IllegalStateException();
+        }
+        if (!next()) {
+            return new NumericBinaryTree();
+        }
+        NumericBinaryTree root = new NumericBinaryTree(this.value);
+        // Nodes still awaiting children, with the children they await.
+        NumericBinaryTree[] parents = new NumericBinaryTree[INITIAL_DEPTH];
+        int[] awaiting = new int[INITIAL_DEPTH];
+        int depth = 0;
+        NumericBinaryTree node = root;
+        while (true) {
+            int children = childFlags();
+            if (children != 0) {
+                if (depth == parents.length) {
+                    parents = Arrays.copyOf(parents, depth * 2);
+                    awaiting = Arrays.copyOf(awaiting, depth * 2);
+                }
+                parents[depth] = node;
+                awaiting[depth] = children;
+                depth++;
+            }
+            if (!next()) {
+                break;
+            }
+            if (depth == 0) {
+                throw new InvalidObjectException("Unattached node");
+            }
+            node = new NumericBinaryTree(this.value);
+            NumericBinaryTree parent = parents[depth - 1];
+            if ((awaiting[depth - 1] & LEFT) != 0) {
+                parent.setLeftChild(node);
+                awaiting[depth - 1] &= ~LEFT;
+            } else {
+                parent.setRightChild(node);
+                awaiting[depth - 1] = 0;
+            }
+            if (awaiting[depth - 1] == 0) {
+                parents[depth - 1] = null;
+                depth--;
+            }
+        }
+        if (depth != 0) {
+            throw new InvalidObjectException("Missing nodes");
+        }
+        return root;
+    }
+
+    /**
+     * Encodes the children of the current node as flags.
+     * @return LEFT and RIGHT flags for the children present
+     */
+    private int childFlags() {
+        int children = 0;
+        if (this.leftChild) {
+            children |= LEFT;
+        }
+        if (this.rightChild) {
+            children |= RIGHT;
+        }
+        return children;
+    }
+
+    /**
+     * Closes the underlying stream.
+     * @throws java.io.IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+}
@@ -0,0 +1,202 @@
+// CompactTreeReaderTest.java
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Tests for the compact tree format and CompactTreeReader.
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public class CompactTreeReaderTest {
+    /** Compact filename used for testing. */
+    public static final String COMPACT_FILENAME = "compactTest.ser";
+    /** Serialization filename used for size comparison. */
+    public static final String SERIAL_FILENAME = "compactCompareTest.ser";
+    /** Number of nodes in generated large trees; spans several blocks. */
+    private static final int LARGE_SIZE = 10000;
+    /** Minimum ratio of serialized size to compact size. */
+    private static final int MIN_COMPRESSION = 10;
+
+    /**
+     * Generates a balanced tree of sequential values.
+     * @param first the first value, placed in inorder
+     * @param count the number of nodes
+     * @return testing tree; null if count is zero
+     */
+    private NumericBinaryTree generateBalancedTree(final long first,
+                                                   final int count) {
+        if (count == 0) {
+            return null;
+        }
+        int leftCount = count / 2;
+        return new NumericBinaryTree(first + leftCount,
+                generateBalancedTree(first, leftCount),
+                generateBalancedTree(first + leftCount + 1,
+                                     count - leftCount - 1));
+    }
+
+    /**
+     * Generates a tree holding values of every supported type.
+     * @return testing tree
+     */
+    private NumericBinaryTree generateMixedTree() {
+        return new NumericBinaryTree(Long.MIN_VALUE,
+                new NumericBinaryTree((byte) -7,
+                        new NumericBinaryTree((short) 300),
+                        new NumericBinaryTree(Integer.MAX_VALUE,
+                                new NumericBinaryTree(Long.MAX_VALUE),
+                                new NumericBinaryTree(Float.NaN))),
+                new NumericBinaryTree(-0.0,
+                        new NumericBinaryTree(new BigInteger("123456789"
+                                + "012345678901234567890")),
+                        new NumericBinaryTree(new BigDecimal("-3.14159"),
+                                new NumericBinaryTree(Short.MIN_VALUE),
+                                new NumericBinaryTree(
+                                        Double.NEGATIVE_INFINITY,
+                                        new NumericBinaryTree(1.5f),
+                                        new NumericBinaryTree(0.1)))));
+    }
+
+    /**
+     * Verifies that a restored tree matches the original,
+     *   including value types.
+     * @param nbt the tree to save and restore
+     * @throws IOException if an I/O error occurs
+     */
+    private void assertRoundTrip(final NumericBinaryTree nbt)
+        throws IOException {
+        assertTrue(nbt.saveCompact(COMPACT_FILENAME));
+        NumericBinaryTree restored = new NumericBinaryTree(0);
+        assertTrue(restored.restore(COMPACT_FILENAME));
+        assertEquals(nbt.toString(), restored.toString());
+        List<Number> expected = nbt.preorderValues();
+        List<Number> actual = restored.preorderValues();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getClass(),
+                         actual.get(i).getClass());
+        }
+    }
+
+    /**
+     * Verifies round trip of the empty tree.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void emptyTreeTest() throws IOException {
+        NumericBinaryTree mt = new NumericBinaryTree();
+        assertTrue(mt.saveCompact(COMPACT_FILENAME));
+        NumericBinaryTree restored = new NumericBinaryTree(0);
+        assertTrue(restored.restore(COMPACT_FILENAME));
+        assertTrue(restored.isEmpty());
+    }
+
+    /**
+     * Verifies round trip of every supported value type.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void mixedTypesTest() throws IOException {
+        NumericBinaryTree nbt = generateMixedTree();
+        assertRoundTrip(nbt);
+        NumericBinaryTree restored = new NumericBinaryTree();
+        restored.restore(COMPACT_FILENAME);
+        assertEquals(Long.valueOf(Long.MIN_VALUE), restored.getValue());
+        assertEquals(Double.valueOf(-0.0),
+                     restored.getRightChild().getValue());
+    }
+
+    /**
+     * Verifies asynchronous restore of a compact file.
+     * @throws Exception if the save or restore fails unexpectedly
+     */
+    @Test
+    public void asyncRestoreTest() throws Exception {
+        NumericBinaryTree nbt = generateMixedTree();
+        assertTrue(nbt.saveCompact(COMPACT_FILENAME));
+        NumericBinaryTree restored = new NumericBinaryTree(0);
+        assertTrue(restored.restoreAsync(COMPACT_FILENAME).get());
+        assertEquals(nbt.toString(), restored.toString());
+        assertEquals(nbt.preorderValues(), restored.preorderValues());
+    }
+
+    /**
+     * Verifies round trip of a tree spanning several blocks.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void largeTreeTest() throws IOException {
+        NumericBinaryTree nbt = generateBalancedTree(0, LARGE_SIZE);
+        assertRoundTrip(nbt);
+        NumericBinaryTree restored = new NumericBinaryTree();
+        restored.restore(COMPACT_FILENAME);
+        assertEquals(nbt, restored);
+        for (NumericBinaryTree node : nbt) {
+            node.setValue(node.getValue().longValue() / 2.0);
+        }
+        assertRoundTrip(nbt);
+    }
+
+    /**
+     * Verifies that the compact format is much smaller than
+     *   the serialized format.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void compressionTest() throws IOException {
+        NumericBinaryTree nbt = generateBalancedTree(0, LARGE_SIZE);
+        assertTrue(nbt.save(SERIAL_FILENAME));
+        assertTrue(nbt.saveCompact(COMPACT_FILENAME));
+        long serialSize = new File(SERIAL_FILENAME).length();
+        long compactSize = new File(COMPACT_FILENAME).length();
+        assertTrue(compactSize * MIN_COMPRESSION < serialSize);
+    }
+
+    /**
+     * Verifies streaming delivery of nodes in preorder.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void streamingTest() throws IOException {
+        NumericBinaryTree nbt = generateBalancedTree(0, LARGE_SIZE);
+        assertTrue(nbt.saveCompact(COMPACT_FILENAME));
+        CompactTreeReader reader = CompactTreeReader.open(COMPACT_FILENAME);
+        try {
+            assertEquals(LARGE_SIZE, reader.size());
+            int index = 0;
+            for (NumericBinaryTree node : nbt.preorderSubtrees()) {
+                assertTrue(reader.next());
+                assertEquals(node.getValue(), reader.getValue());
+                assertEquals(node.getLeftChild() != null,
+                             reader.hasLeftChild());
+                assertEquals(node.getRightChild() != null,
+                             reader.hasRightChild());
+                index++;
+            }
+            assertEquals(LARGE_SIZE, index);
+            assertFalse(reader.next());
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Verifies that files written by save are still restored.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void serializedFormatTest() throws IOException {
+        NumericBinaryTree nbt = generateMixedTree();
+        assertTrue(nbt.save(SERIAL_FILENAME));
+        NumericBinaryTree restored = new NumericBinaryTree();
+        assertTrue(restored.restore(SERIAL_FILENAME));
+        assertEquals(nbt.toString(), restored.toString());
+    }
+}
@@ -0,0 +1,483 @@
+// LazyTreeFile.java
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+/**
+ * Tree file whose nodes are read from storage only when visited.
+ * <p>
+ * {@link #write(NumericBinaryTree, String)} stores each node as
+ * a record holding its value and the file offsets of its children;
+ * children precede their parents, so the offsets are known when
+ * each record is written.
+ * {@link #open(String, int)} reads only the header and trailer;
+ * each node is then read by its offset when first visited,
+ * so following a few paths through a huge tree reads only the records
+ * on those paths rather than restoring every node.
+ * </p>
+ * <p>
+ * Visited nodes are kept in a cache of bounded size that discards the
+ * least recently used node when full.
+ * A {@link Node} holds the offsets of its children rather than the
+ * children themselves, so holding the root does not keep the rest of
+ * the tree in memory.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public final class LazyTreeFile implements java.io.Closeable {
+
+    /** File signature. */
+    private static final int MAGIC = 0x4E42544C;
+
+    /** Format version. */
+    private static final int VERSION = 1;
+
+    /** Number of bytes before the first record. */
+    private static final int HEADER_LENGTH = 5;
+
+    /** Number of bytes after the last record: node count and root. */
+    private static final int TRAILER_LENGTH = 12;
+
+    /** Least length of a record: two child offsets and a value tag. */
+    private static final int MIN_RECORD_LENGTH = 2 * Long.BYTES + 1;
+
+    /** Number of bytes read at once when loading a record. */
+    private static final int READ_AHEAD = 64;
+
+    /** Initial capacity of the cache. */
+    private static final int INITIAL_CACHE_CAPACITY = 16;
+
+    /** Load factor of the cache. */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /** Offset indicating a missing child. */
+    private static final long NONE = -1;
+
+    /** The file. */
+    private final FileChannel channel;
+
+    /** Number of nodes in the tree. */
+    private final int size;
+
+    /** Offset of the root record; NONE if the tree is empty. */
+    private final long rootOffset;
+
+    /** End of the records. */
+    private final long recordsEnd;
+
+    /** Greatest number of nodes cached. */
+    private final int cacheCapacity;
+
+    /** Visited nodes by offset, in least recent use order. */
+    private final Map<Long, Node> cache;
+
+    /** Number of records read from the file. */
+    private long loads;
+
+    /**
+     * Constructs a reader over an open file.
+     * @param channel the file
+     * @param cacheCapacity the greatest number of nodes cached
+     * @throws IOException if an I/O error occurs or
+     *         the file is not a lazy tree file
+     */
+    private LazyTreeFile(final FileChannel channel, final int cacheCapacity)
+        throws IOException {
+        this.channel = channel;
+        this.cacheCapacity = cacheCapacity;
+        long length = channel.size();
+        if (length < HEADER_LENGTH + TRAILER_LENGTH) {
+            throw new InvalidObjectException("Not a lazy tree file");
+        }
+        ByteBuffer header = read(0, HEADER_LENGTH);
+        if (header.getInt() != MAGIC) {
+            throw new InvalidObjectException("Not a lazy tree file");
+        }
+        int version = header.get();
+        if (version != VERSION) {
+            throw new InvalidObjectException("Unsupported version " + version);
+        }
+        this.recordsEnd = length - TRAILER_LENGTH;
+        ByteBuffer trailer = read(this.recordsEnd, TRAILER_LENGTH);
+        this.size = trailer.getInt();
+        this.rootOffset = trailer.getLong();
+        if (this.size < 0 || (this.size == 0) != (this.rootOffset == NONE)) {
+            throw new InvalidObjectException("Invalid trailer");
+        }
+        this.cache = new LinkedHashMap<Long, Node>(INITIAL_CACHE_CAPACITY,
+                                                   LOAD_FACTOR, true) {
+            /** serialVersionUID. */
+            private static final long serialVersionUID = 2016081718L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<Long, Node> eldest) {
+                return size() > LazyTreeFile.this.cacheCapacity;
+            }
+        };
+    }
+
+    /**
+     * Opens a tree file for lazy reading.
+     * @param filename the name of a file written by
+     *        {@link #write(NumericBinaryTree, String)}
+     * @param cacheCapacity the greatest number of nodes cached
+     * @return the open file
+     * @throws IOException if an I/O error occurs or
+     *         the file is not a lazy tree file
+     * @throws IllegalArgumentException if cacheCapacity is not positive
+     */
+    public static LazyTreeFile open(final String filename,
+                                    final int cacheCapacity)
+        throws IOException, IllegalArgumentException {
+        if (cacheCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity " + cacheCapacity);
+        }
+        FileChannel channel = FileChannel.open(Paths.get(filename),
+                                               StandardOpenOption.READ);
+        try {
+            return new LazyTreeFile(channel, cacheCapacity);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Writes a tree to a file for lazy reading.
+     * @param tree the tree to write; may be empty
+     * @param filename the name of the file to write
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if tree is null
+     */
+    public static void write(final NumericBinaryTree tree,
+                             final String filename)
+        throws IOException, IllegalArgumentException {
+        if (tree == null) {
+            throw new IllegalArgumentException("null tree");
+        }
+        // Listing root, right, left in preorder reverses postorder.
+        List<NumericBinaryTree> reversed = new ArrayList<NumericBinaryTree>();
+        ArrayDeque<NumericBinaryTree> pending
+                = new ArrayDeque<NumericBinaryTree>();
+        if (!tree.isEmpty()) {
+            pending.push(tree);
+        }
+        while (!pending.isEmpty()) {
+            NumericBinaryTree node = pending.pop();
+            reversed.add(node);
+            if (node.getLeftChild() != null) {
+                pending.push(node.getLeftChild());
+            }
+            if (node.getRightChild() != null) {
+                pending.push(node.getRightChild());
+            }
+        }
+        OutputStream file = new BufferedOutputStream(
+                new FileOutputStream(filename));
+        try {
+            DataOutputStream out = new DataOutputStream(file);
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            ByteArrayOutputStream record = new ByteArrayOutputStream();
+            DataOutputStream recordOut = new DataOutputStream(record);
+            ArrayDeque<Long> offsets = new ArrayDeque<Long>();
+            long offset = HEADER_LENGTH;
+            for (int i = reversed.size() - 1; i >= 0; i--) {
+                NumericBinaryTree node = reversed.get(i);
+                // The right subtree was written last, so its root is on top.
+                long right = NONE;
+                if (node.getRightChild() != null) {
+                    right = offsets.pop();
+                }
+                long left = NONE;
+                if (node.getLeftChild() != null) {
+                    left = offsets.pop();
+                }
+                record.reset();
+                recordOut.writeLong(left);
+                recordOut.writeLong(right);
+                NumberCodec.writeNumber(recordOut, node.getValue());
+                out.writeInt(record.size());
+                record.writeTo(out);
+                offsets.push(offset);
+                offset += Integer.BYTES + record.size();
+            }
+            out.writeInt(reversed.size());
+            if (offsets.isEmpty()) {
+                out.writeLong(NONE);
+            } else {
+                out.writeLong(offsets.pop());
+            }
+            out.flush();
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Returns the number of nodes in the tree.
+     * @return the number of nodes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the root of the tree, reading it if necessary.
+     * @return the root; null if the tree is empty
+     * @throws IOException if an I/O error occurs
+     */
+    public Node root() throws IOException {
+        return nodeAt(this.rootOffset);
+    }
+
+    /**
+     * Determines whether the tree, which must be a binary search tree,
+     * holds a value numerically equal to a value,
+     * reading only the nodes on the search path.
+     * @param value the value sought
+     * @return true if such a value is present
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if value is null
+     * @see NumericBinaryTree#contains(Number)
+     */
+    public boolean contains(final Number value)
+        throws IOException, IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException("null value");
+        }
+        Node node = root();
+        while (node != null) {
+            int order = NumericComparator.compareNumbers(value, node.value);
+            if (order == 0) {
+                return true;
+            }
+            if (order < 0) {
+                node = node.getLeftChild();
+            } else {
+                node = node.getRightChild();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of node records read from the file,
+     * including records read again after leaving the cache.
+     * @return the number of records read
+     */
+    public synchronized long loadCount() {
+        return this.loads;
+    }
+
+    /**
+     * Closes the file; nodes not yet read can no longer be visited.
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Returns the node at an offset, reading it if it is not cached.
+     * @param offset the offset of the record
+     * @return the node; null if offset is NONE
+     * @throws IOException if an I/O error occurs or the record is invalid
+     */
+    private synchronized Node nodeAt(final long offset) throws IOException {
+        if (offset == NONE) {
+            return null;
+        }
+        Node node = this.cache.get(offset);
+        if (node == null) {
+            node = load(offset);
+            this.cache.put(offset, node);
+        }
+        return node;
+    }
+
+    /**
+     * Reads the record at an offset.
+     * @param offset the offset of the record
+     * @return the node
+     * @throws IOException if an I/O error occurs or the record is invalid
+     */
+    private Node load(final long offset) throws IOException {
+        if (offset < HEADER_LENGTH || offset >= this.recordsEnd) {
+            throw new InvalidObjectException("Invalid offset " + offset);
+        }
+        int available = (int) Math.min(READ_AHEAD, this.recordsEnd - offset);
+        ByteBuffer buffer = read(offset, available);
+        int length = buffer.getInt();
+        if (length < MIN_RECORD_LENGTH
+            || length > this.recordsEnd - offset - buffer.position()) {
+            throw new InvalidObjectException("Invalid record at " + offset);
+        }
+        byte[] record = new byte[length];
+        int inBuffer = Math.min(length, buffer.remaining());
+        buffer.get(record, 0, inBuffer);
+        if (inBuffer < length) {
+            ByteBuffer rest = read(offset + available, length - inBuffer);
+            rest.get(record, inBuffer, length - inBuffer);
+        }
+        DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(record));
+        long left = in.readLong();
+        long right = in.readLong();
+        Number value = NumberCodec.readNumber(in);
+        this.loads++;
+        return new Node(offset, value, left, right);
+    }
+
+    /**
+     * Reads bytes from the file.
+     * @param position the offset of the first byte
+     * @param length the number of bytes
+     * @return a buffer holding the bytes, ready to be read
+     * @throws IOException if an I/O error occurs or the file ends
+     */
+    private ByteBuffer read(final long position, final int length)
+        throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int count = this.channel.read(buffer,
+                                          position + buffer.position());
+            if (count < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * A node of a lazily read tree; its children are read when requested.
+     */
+    public final class Node {
+
+        /** Offset of the record of this node. */
+        private final long offset;
+
+        /** Value of this node. */
+        private final Number value;
+
+        /** Offset of the left child; NONE if there is none. */
+        private final long leftOffset;
+
+        /** Offset of the right child; NONE if there is none. */
+        private final long rightOffset;
+
+        /**
+         * Constructs a node from its record.
+         * @param offset the offset of the record
+         * @param value the value
+         * @param leftOffset the offset of the left child
+         * @param rightOffset the offset of the right child
+         */
+        private Node(final long offset, final Number value,
+                     final long leftOffset, final long rightOffset) {
+            this.offset = offset;
+            this.value = value;
+            this.leftOffset = leftOffset;
+            this.rightOffset = rightOffset;
+        }
+
+        /**
+         * Returns the value of this node.
+         * @return the value
+         */
+        public Number getValue() {
+            return this.value;
+        }
+
+        /**
+         * Determines whether this node has no children,
+         * without reading any.
+         * @return true if this node is a leaf
+         */
+        public boolean isLeaf() {
+            return this.leftOffset == NONE && this.rightOffset == NONE;
+        }
+
+        /**
+         * Returns the left child, reading it if necessary.
+         * @return the left child; null if there is none
+         * @throws IOException if an I/O error occurs
+         */
+        public Node getLeftChild() throws IOException {
+            return nodeAt(this.leftOffset);
+        }
+
+        /**
+         * Returns the right child, reading it if necessary.
+         * @return the right child; null if there is none
+         * @throws IOException if an I/O error occurs
+         */
+        public Node getRightChild() throws IOException {
+            return nodeAt(this.rightOffset);
+        }
+
+        /**
+         * Reads the whole subtree rooted at this node into memory.
+         * @return a tree equal to the stored subtree
+         * @throws IOException if an I/O error occurs
+         */
+        public NumericBinaryTree toTree() throws IOException {
+            List<Node> reversed = new ArrayList<Node>();
+            ArrayDeque<Node> pending = new ArrayDeque<Node>();
+            pending.push(this);
+            while (!pending.isEmpty()) {
+                Node node = pending.pop();
+                reversed.add(node);
+                if (node.leftOffset != NONE) {
+                    pending.push(node.getLeftChild());
+                }
+                if (node.rightOffset != NONE) {
+                    pending.push(node.getRightChild());
+                }
+            }
+            ArrayDeque<NumericBinaryTree> built
+                    = new ArrayDeque<NumericBinaryTree>();
+            for (int i = reversed.size() - 1; i >= 0; i--) {
+                Node node = reversed.get(i);
+                NumericBinaryTree right = null;
+                if (node.rightOffset != NONE) {
+                    right = built.pop();
+                }
+                NumericBinaryTree left = null;
+                if (node.leftOffset != NONE) {
+                    left = built.pop();
+                }
+                built.push(new NumericBinaryTree(node.value, left, right));
+            }
+            return built.pop();
+        }
+
+        /**
+         * Returns the value and offset of this node.
+         * @return a description of this node
+         */
+        @Override
+        public String toString() {
+            return this.value + "@" + this.offset;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+// LazyTreeFileTest.java
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Tests for LazyTreeFile.
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public class LazyTreeFileTest {
+    /** Filename used for testing. */
+    public static final String LAZY_FILENAME = "lazyTest.ser";
+    /** Number of nodes in generated large trees. */
+    private static final int LARGE_SIZE = 100000;
+    /** Greatest height of the generated balanced tree. */
+    private static final int LARGE_HEIGHT = 17;
+    /** Capacity of the node cache. */
+    private static final int CACHE_CAPACITY = 32;
+
+    /**
+     * Generates a balanced search tree of sequential values.
+     * @param first the first value, placed in inorder
+     * @param count the number of nodes
+     * @return testing tree; null if count is zero
+     */
+    private NumericBinaryTree generateBalancedTree(final long first,
+                                                   final int count) {
+        if (count == 0) {
+            return null;
+        }
+        int leftCount = count / 2;
+        return new NumericBinaryTree(first + leftCount,
+                generateBalancedTree(first, leftCount),
+                generateBalancedTree(first + leftCount + 1,
+                                     count - leftCount - 1));
+    }
+
+    /**
+     * Verifies that a search reads only the nodes on its path.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void searchPathTest() throws IOException {
+        LazyTreeFile.write(generateBalancedTree(0, LARGE_SIZE),
+                           LAZY_FILENAME);
+        LazyTreeFile file = LazyTreeFile.open(LAZY_FILENAME, CACHE_CAPACITY);
+        try {
+            assertEquals(LARGE_SIZE, file.size());
+            assertTrue(file.contains(LARGE_SIZE - 1));
+            assertTrue(file.contains(0.0));
+            assertFalse(file.contains(LARGE_SIZE));
+            assertFalse(file.contains(BigDecimal.valueOf(1, 1)));
+            assertTrue(file.loadCount() <= 2 * (LARGE_HEIGHT + 1));
+            long loaded = file.loadCount();
+            file.contains(0);
+            assertEquals(loaded, file.loadCount());
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Verifies that subtrees read into memory match the original,
+     * including value types, even when the cache is smaller.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void toTreeTest() throws IOException {
+        NumericBinaryTree nbt = new NumericBinaryTree(1.5f,
+                new NumericBinaryTree((byte) 1,
+                        new NumericBinaryTree(new BigDecimal("-3.14159")),
+                        null),
+                new NumericBinaryTree(Long.MAX_VALUE, null,
+                        new NumericBinaryTree(Double.NaN)));
+        LazyTreeFile.write(nbt, LAZY_FILENAME);
+        LazyTreeFile file = LazyTreeFile.open(LAZY_FILENAME, 1);
+        try {
+            LazyTreeFile.Node root = file.root();
+            assertEquals(1.5f, root.getValue());
+            assertFalse(root.isLeaf());
+            assertEquals(nbt, root.toTree());
+            assertEquals(nbt.getRightChild(),
+                         root.getRightChild().toTree());
+            assertNull(root.getRightChild().getLeftChild());
+            assertTrue(root.getLeftChild().getLeftChild().isLeaf());
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Verifies writing and reading an empty tree.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void emptyTreeTest() throws IOException {
+        LazyTreeFile.write(new NumericBinaryTree(), LAZY_FILENAME);
+        LazyTreeFile file = LazyTreeFile.open(LAZY_FILENAME, 1);
+        try {
+            assertEquals(0, file.size());
+            assertNull(file.root());
+            assertFalse(file.contains(0));
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Verifies exception for a file in another format.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test(expected = IOException.class)
+    public void wrongFormatException() throws IOException {
+        new NumericBinaryTree(0).saveCompact(LAZY_FILENAME);
+        LazyTreeFile.open(LAZY_FILENAME, 1).close();
+    }
+}
@@ -0,0 +1,292 @@
+// LcaIndex.java
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+/**
+ * Index answering lowest common ancestor queries over a tree
+ * in constant time.
+ * <p>
+ * The index records an Euler tour of the tree, listing each node
+ * when first reached and again after each of its children,
+ * together with the depth of each listed node.
+ * The lowest common ancestor of two nodes is the shallowest node
+ * listed between their first appearances, found by a range minimum
+ * query over a sparse table of minima of every power-of-two range.
+ * Building takes time and space proportional to n log n
+ * for a tree of n nodes.
+ * </p>
+ * <p>
+ * The index is rebuilt before the next query whenever the version
+ * of the tree has advanced since it was built, since a change anywhere
+ * within it may move every later position of the tour;
+ * changes to other trees leave the index current.
+ * Queries may run concurrently; a rebuild is performed by one thread
+ * while the others wait.
+ * The tree must not be modified during a query, and must not
+ * contain shared subtrees or cycles; see
+ * {@link NumericBinaryTree#validate()}.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public final class LcaIndex {
+
+    /** The indexed tree. */
+    private final NumericBinaryTree tree;
+
+    /** Tables for the current contents of the tree. */
+    private volatile Table table;
+
+    /** Number of times the tables have been built. */
+    private long builds;
+
+    /**
+     * Constructs an index over a tree.
+     * @param tree the tree to index; may be empty
+     * @throws IllegalArgumentException if tree is null
+     */
+    public LcaIndex(final NumericBinaryTree tree)
+        throws IllegalArgumentException {
+        if (tree == null) {
+            throw new IllegalArgumentException("null tree");
+        }
+        this.tree = tree;
+        rebuild();
+    }
+
+    /**
+     * Finds the deepest subtree of the indexed tree having two
+     * given subtrees as subtrees.
+     * @param first a nonempty subtree of the indexed tree
+     * @param second a nonempty subtree of the indexed tree
+     * @return the lowest common ancestor, which may be first or second
+     * @throws IllegalArgumentException if first or second
+     *         is not a subtree of the indexed tree
+     */
+    public NumericBinaryTree lowestCommonAncestor(
+            final NumericBinaryTree first, final NumericBinaryTree second)
+        throws IllegalArgumentException {
+        Table current = current();
+        int low = current.position(first);
+        int high = current.position(second);
+        if (low > high) {
+            int swap = low;
+            low = high;
+            high = swap;
+        }
+        return current.tour[current.shallowest(low, high)];
+    }
+
+    /**
+     * Returns the number of ancestors of a subtree within the indexed tree.
+     * @param node a nonempty subtree of the indexed tree
+     * @return the depth of node; 0 for the indexed tree itself
+     * @throws IllegalArgumentException if node
+     *         is not a subtree of the indexed tree
+     */
+    public int depth(final NumericBinaryTree node)
+        throws IllegalArgumentException {
+        Table current = current();
+        return current.depths[current.position(node)];
+    }
+
+    /**
+     * Determines whether the index must be rebuilt before the next query
+     * because the tree has been modified since it was built.
+     * @return true if the index is out of date
+     */
+    public boolean isStale() {
+        return this.table.stamp != this.tree.version();
+    }
+
+    /**
+     * Rebuilds the index from the current contents of the tree.
+     */
+    public synchronized void rebuild() {
+        this.table = new Table(this.tree);
+        this.builds++;
+    }
+
+    /**
+     * Returns the number of times the index has been built,
+     * including construction.
+     * @return the number of builds
+     */
+    public synchronized long buildCount() {
+        return this.builds;
+    }
+
+    /**
+     * Returns the tables, first rebuilding them if out of date.
+     * @return tables for the current contents of the tree
+     */
+    private Table current() {
+        Table current = this.table;
+        if (current.stamp == this.tree.version()) {
+            return current;
+        }
+        synchronized (this) {
+            if (isStale()) {
+                rebuild();
+            }
+            return this.table;
+        }
+    }
+
+    /**
+     * Euler tour and sparse table for one version of a tree.
+     */
+    private static final class Table {
+
+        /** Version of the tree when built. */
+        private final long stamp;
+
+        /** Nodes in Euler tour order. */
+        private final NumericBinaryTree[] tour;
+
+        /** Depths of the nodes in Euler tour order. */
+        private final int[] depths;
+
+        /** Position in the tour at which each node first appears. */
+        private final Map<NumericBinaryTree, Integer> first;
+
+        /**
+         * Positions of the shallowest nodes of ranges; row k holds
+         * the range of length 2 to the k starting at each position.
+         */
+        private final int[][] minima;
+
+        /**
+         * Builds the tables for a tree.
+         * @param tree the tree; may be empty
+         */
+        Table(final NumericBinaryTree tree) {
+            this.stamp = tree.version();
+            int nodes = tree.numberOfNodes();
+            int length = Math.max(2 * nodes - 1, 0);
+            this.tour = new NumericBinaryTree[length];
+            this.depths = new int[length];
+            this.first = new IdentityHashMap<NumericBinaryTree, Integer>(
+                    nodes);
+            if (nodes > 0) {
+                walk(tree);
+            }
+            int levels = 1;
+            while (length >> levels > 0) {
+                levels++;
+            }
+            this.minima = new int[levels][];
+            this.minima[0] = new int[length];
+            Arrays.setAll(this.minima[0], i -> i);
+            for (int k = 1; k < levels; k++) {
+                int half = 1 << (k - 1);
+                int[] previous = this.minima[k - 1];
+                int[] row = new int[length - (1 << k) + 1];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = shallower(previous[i], previous[i + half]);
+                }
+                this.minima[k] = row;
+            }
+        }
+
+        /**
+         * Records the Euler tour of a nonempty tree without recursion.
+         * @param root the tree
+         */
+        private void walk(final NumericBinaryTree root) {
+            List<NumericBinaryTree> path = new ArrayList<NumericBinaryTree>();
+            int[] visited = new int[1];
+            int position = 0;
+            path.add(root);
+            position = record(root, 0, position);
+            while (!path.isEmpty()) {
+                int top = path.size() - 1;
+                NumericBinaryTree node = path.get(top);
+                NumericBinaryTree child = null;
+                if (visited[top] == 0) {
+                    child = node.getLeftChild();
+                } else if (visited[top] == 1) {
+                    child = node.getRightChild();
+                }
+                if (visited[top] < 2) {
+                    visited[top]++;
+                    if (child != null) {
+                        path.add(child);
+                        if (visited.length == path.size() - 1) {
+                            visited = Arrays.copyOf(visited,
+                                                    2 * visited.length);
+                        }
+                        visited[top + 1] = 0;
+                        position = record(child, top + 1, position);
+                    }
+                } else {
+                    path.remove(top);
+                    if (top > 0) {
+                        position = record(path.get(top - 1), top - 1,
+                                          position);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Appends a node to the tour.
+         * @param node the node
+         * @param depth the depth of the node
+         * @param position the next position of the tour
+         * @return the position after the node
+         */
+        private int record(final NumericBinaryTree node, final int depth,
+                           final int position) {
+            this.tour[position] = node;
+            this.depths[position] = depth;
+            if (!this.first.containsKey(node)) {
+                this.first.put(node, position);
+            }
+            return position + 1;
+        }
+
+        /**
+         * Returns the position at which a node first appears.
+         * @param node the node
+         * @return its first position in the tour
+         * @throws IllegalArgumentException if node is not in the tour
+         */
+        private int position(final NumericBinaryTree node)
+            throws IllegalArgumentException {
+            Integer position = this.first.get(node);
+            if (position == null) {
+                throw new IllegalArgumentException("Not an indexed subtree");
+            }
+            return position;
+        }
+
+        /**
+         * Returns the position of the shallowest node in a range.
+         * @param low the first position of the range
+         * @param high the last position of the range
+         * @return the position of a shallowest node between them
+         */
+        private int shallowest(final int low, final int high) {
+            int level = Integer.SIZE - 1
+                - Integer.numberOfLeadingZeros(high - low + 1);
+            int[] row = this.minima[level];
+            return shallower(row[low], row[high - (1 << level) + 1]);
+        }
+
+        /**
+         * Chooses the shallower of two positions.
+         * @param a a position
+         * @param b another position
+         * @return a if its node is no deeper than that of b; b otherwise
+         */
+        private int shallower(final int a, final int b) {
+            if (this.depths[b] < this.depths[a]) {
+                return b;
+            }
+            return a;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+// LcaIndexTest.java
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for LcaIndex.
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public class LcaIndexTest {
+    /** Number of values inserted in the random tree. */
+    private static final int RANDOM_SIZE = 300;
+    /** Seed for the random tree. */
+    private static final long SEED = 2016081718L;
+
+    /**
+     * Generates a search tree of random values.
+     * @return testing tree
+     */
+    private NumericBinaryTree generateRandomTree() {
+        Random random = new Random(SEED);
+        NumericBinaryTree nbt = new NumericBinaryTree(RANDOM_SIZE / 2);
+        for (int i = 0; i < RANDOM_SIZE; i++) {
+            nbt.insert(random.nextInt(RANDOM_SIZE));
+        }
+        return nbt;
+    }
+
+    /**
+     * Verifies that every query agrees with the parent-link walk.
+     */
+    @Test
+    public void agreesWithParentWalkTest() {
+        NumericBinaryTree nbt = generateRandomTree();
+        LcaIndex index = new LcaIndex(nbt);
+        List<NumericBinaryTree> nodes = nbt.preorderSubtrees();
+        for (NumericBinaryTree a : nodes) {
+            assertEquals(a.depth(), index.depth(a));
+            for (NumericBinaryTree b : nodes) {
+                assertSame(a.lowestCommonAncestor(b),
+                           index.lowestCommonAncestor(a, b));
+            }
+        }
+        assertEquals(1, index.buildCount());
+    }
+
+    /**
+     * Verifies that the index is rebuilt after the tree changes.
+     */
+    @Test
+    public void rebuildAfterChangeTest() {
+        NumericBinaryTree left = new NumericBinaryTree(1);
+        NumericBinaryTree right = new NumericBinaryTree(2);
+        NumericBinaryTree root = new NumericBinaryTree(0, left, right);
+        LcaIndex index = new LcaIndex(root);
+        assertSame(root, index.lowestCommonAncestor(left, right));
+        assertFalse(index.isStale());
+        new NumericBinaryTree(0).setValue(1);
+        assertFalse(index.isStale());
+        root.setRightChild(null);
+        left.setRightChild(right);
+        assertTrue(index.isStale());
+        assertSame(left, index.lowestCommonAncestor(left, right));
+        assertEquals(2, index.depth(right));
+        assertEquals(2, index.buildCount());
+    }
+
+    /**
+     * Verifies exception for a node outside the indexed tree.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void foreignNodeException() {
+        NumericBinaryTree nbt = generateRandomTree();
+        new LcaIndex(nbt).lowestCommonAncestor(nbt,
+                                               new NumericBinaryTree(0));
+    }
+
+    /**
+     * Verifies exception for a query of an empty tree.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyTreeException() {
+        NumericBinaryTree nbt = new NumericBinaryTree();
+        new LcaIndex(nbt).depth(nbt);
+    }
+}
@@ -0,0 +1,275 @@
+// NodeArena.java
+import java.util.ArrayList;
+import java.util.List;
+/**
+ * Recycling allocator for the nodes of short-lived trees.
+ * <p>
+ * Workloads that repeatedly build a tree, analyze it and discard it
+ * allocate a new node for every value of every tree.
+ * An arena instead hands out nodes from slabs that it keeps:
+ * nodes are obtained through a {@link Lease}, and closing the lease
+ * releases every node it handed out at once, in constant time,
+ * for reuse by the next lease.
+ * After the first few cycles, building a tree allocates nothing.
+ * </p>
+ * <p>
+ * Only one lease is open at a time.
+ * A closed lease refuses further use, and so do the nodes it handed
+ * out, which throw IllegalStateException from every operation,
+ * until a later lease reuses them.
+ * A reused node belongs to the later lease and cannot tell a stale
+ * reference from a current one, so references to the nodes of a lease,
+ * and to the trees built from them, must still not be kept after the
+ * lease is closed; {@link Lease#keep(NumericBinaryTree)} makes an
+ * ordinary copy of a tree that outlives the lease.
+ * An arena is not thread-safe.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public final class NodeArena {
+
+    /** Number of nodes in each slab. */
+    private final int slabSize;
+
+    /** Slabs of nodes; a null slot has not been allocated yet. */
+    private final List<Node[]> slabs;
+
+    /** Number of nodes handed out by the open lease. */
+    private int used;
+
+    /** Generation of the open lease; advanced when it is closed. */
+    private long generation;
+
+    /** Whether a lease is open. */
+    private boolean open;
+
+    /**
+     * Constructs an arena with no nodes.
+     * @param slabSize the number of nodes in each slab
+     * @throws IllegalArgumentException if slabSize is not positive
+     */
+    public NodeArena(final int slabSize) throws IllegalArgumentException {
+        if (slabSize <= 0) {
+            throw new IllegalArgumentException("Slab size " + slabSize);
+        }
+        this.slabSize = slabSize;
+        this.slabs = new ArrayList<Node[]>();
+    }
+
+    /**
+     * Opens a lease through which nodes are obtained.
+     * @return the lease
+     * @throws IllegalStateException if a lease is already open
+     */
+    public Lease open() throws IllegalStateException {
+        if (this.open) {
+            throw new IllegalStateException("A lease is already open");
+        }
+        this.open = true;
+        return new Lease(this.generation);
+    }
+
+    /**
+     * Returns the number of nodes the slabs can hold.
+     * @return the capacity of the allocated slabs
+     */
+    public int capacity() {
+        return this.slabs.size() * this.slabSize;
+    }
+
+    /**
+     * Returns the number of nodes handed out by the open lease.
+     * @return the number of nodes in use; 0 if no lease is open
+     */
+    public int used() {
+        return this.used;
+    }
+
+    /**
+     * Discards the slabs so that their nodes can be collected.
+     * @throws IllegalStateException if a lease is open
+     */
+    public void clear() throws IllegalStateException {
+        if (this.open) {
+            throw new IllegalStateException("A lease is open");
+        }
+        this.slabs.clear();
+    }
+
+    /**
+     * Hands out the next node, reinitialized.
+     * @param lease the lease obtaining the node
+     * @param value the value of the node
+     * @param left the left child; null if no such child
+     * @param right the right child; null if no such child
+     * @return the node
+     */
+    private NumericBinaryTree allocate(final Lease lease,
+                                       final Number value,
+                                       final NumericBinaryTree left,
+                                       final NumericBinaryTree right) {
+        int slab = this.used / this.slabSize;
+        int slot = this.used % this.slabSize;
+        if (slab == this.slabs.size()) {
+            this.slabs.add(new Node[this.slabSize]);
+        }
+        Node[] nodes = this.slabs.get(slab);
+        Node node = nodes[slot];
+        if (node == null) {
+            node = new Node(value, left, right);
+            nodes[slot] = node;
+        } else {
+            node.lease = null;
+            node.reinitialize(value, left, right);
+        }
+        node.lease = lease;
+        this.used++;
+        return node;
+    }
+
+    /**
+     * Releases every node handed out by the open lease.
+     */
+    private void release() {
+        this.used = 0;
+        this.generation++;
+        this.open = false;
+    }
+
+    /**
+     * Node of an arena, refusing use once the lease
+     * through which it was obtained is closed.
+     * Only arena nodes pay for the check; ordinary trees are unaffected.
+     */
+    private static final class Node extends NumericBinaryTree {
+        /** Serialization version indicator. */
+        private static final long serialVersionUID = 2016081718L;
+
+        /** Lease through which this node was last obtained; or null. */
+        private transient Lease lease;
+
+        /**
+         * Constructs a node as the three-argument
+         * NumericBinaryTree constructor would.
+         * @param value the value stored at the node
+         * @param left the left child; null if no such child
+         * @param right the right child; null if no such child
+         */
+        Node(final Number value, final NumericBinaryTree left,
+             final NumericBinaryTree right) {
+            super(value, left, right);
+        }
+
+        /**
+         * Empty tree predicate, checked by nearly every operation.
+         * @return <code>true</code> if this is an empty tree;
+         *         <code>false</code> otherwise
+         * @throws IllegalStateException if the lease through which
+         *         this node was obtained is closed
+         */
+        @Override
+        public boolean isEmpty() throws IllegalStateException {
+            if (this.lease != null && !this.lease.isOpen()) {
+                throw new IllegalStateException("Node of a closed lease");
+            }
+            return super.isEmpty();
+        }
+    }
+
+    /**
+     * Access to the nodes of an arena until closed.
+     */
+    public final class Lease implements AutoCloseable {
+
+        /** Generation of the arena when this lease was opened. */
+        private final long leaseGeneration;
+
+        /**
+         * Constructs a lease for a generation of the arena.
+         * @param leaseGeneration the generation
+         */
+        private Lease(final long leaseGeneration) {
+            this.leaseGeneration = leaseGeneration;
+        }
+
+        /**
+         * Determines whether this lease is open.
+         * @return true until this lease is closed
+         */
+        public boolean isOpen() {
+            return NodeArena.this.open
+                && NodeArena.this.generation == this.leaseGeneration;
+        }
+
+        /**
+         * Obtains a node with the specified value and no children.
+         * @param value the value stored at the node
+         * @return the node
+         * @throws IllegalArgumentException if value is null
+         * @throws IllegalStateException if this lease is closed
+         */
+        public NumericBinaryTree node(final Number value)
+            throws IllegalArgumentException, IllegalStateException {
+            return node(value, null, null);
+        }
+
+        /**
+         * Obtains a node with the specified value and children,
+         * as the three-argument NumericBinaryTree constructor would.
+         * @param value the value stored at the node
+         * @param left the left child; null if no such child
+         * @param right the right child; null if no such child
+         * @return the node
+         * @throws IllegalArgumentException if value is null
+         * @throws IllegalStateException if this lease is closed
+         */
+        public NumericBinaryTree node(final Number value,
+                                      final NumericBinaryTree left,
+                                      final NumericBinaryTree right)
+            throws IllegalArgumentException, IllegalStateException {
+            checkOpen();
+            if (value == null) {
+                throw new IllegalArgumentException();
+            }
+            return allocate(this, value, left, right);
+        }
+
+        /**
+         * Copies a tree into ordinary nodes that remain valid
+         * after this lease is closed.
+         * @param tree the tree to copy, typically built from this lease
+         * @return the copy; an empty tree if tree is null or empty
+         * @throws IllegalStateException if this lease is closed
+         */
+        public NumericBinaryTree keep(final NumericBinaryTree tree)
+            throws IllegalStateException {
+            checkOpen();
+            if (tree == null) {
+                return new NumericBinaryTree();
+            }
+            return tree.deepCopy();
+        }
+
+        /**
+         * Closes this lease, releasing every node it handed out
+         * for reuse; has no effect if this lease is already closed.
+         */
+        @Override
+        public void close() {
+            if (isOpen()) {
+                release();
+            }
+        }
+
+        /**
+         * Checks that this lease is open.
+         * @throws IllegalStateException if this lease is closed
+         */
+        private void checkOpen() throws IllegalStateException {
+            if (!isOpen()) {
+                throw new IllegalStateException("Lease is closed");
+            }
+        }
+    }
+}
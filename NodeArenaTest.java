@@ -0,0 +1,143 @@
+// NodeArenaTest.java
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests for NodeArena.
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public class NodeArenaTest {
+    /** Number of nodes in each slab of testing arenas. */
+    private static final int SLAB_SIZE = 4;
+    /** Number of nodes in generated chains. */
+    private static final int CHAIN_SIZE = 10;
+    /** Number of build and release cycles. */
+    private static final int CYCLES = 3;
+
+    /**
+     * Builds a right-leaning chain of values 0 through size - 1.
+     * @param lease the lease from which to obtain nodes
+     * @param size the number of nodes
+     * @return the root of the chain
+     */
+    private NumericBinaryTree chain(final NodeArena.Lease lease,
+                                    final int size) {
+        NumericBinaryTree root = null;
+        for (int i = size - 1; i >= 0; i--) {
+            root = lease.node(i, null, root);
+        }
+        return root;
+    }
+
+    /**
+     * Verifies that nodes are reused across leases
+     * and that kept copies survive release.
+     */
+    @Test
+    public void reuseTest() {
+        NodeArena arena = new NodeArena(SLAB_SIZE);
+        NumericBinaryTree first = null;
+        NumericBinaryTree kept = null;
+        for (int cycle = 0; cycle < CYCLES; cycle++) {
+            try (NodeArena.Lease lease = arena.open()) {
+                NumericBinaryTree root = chain(lease, CHAIN_SIZE);
+                assertEquals(CHAIN_SIZE, root.numberOfNodes());
+                assertEquals(CHAIN_SIZE, arena.used());
+                if (first == null) {
+                    first = root;
+                    kept = lease.keep(root);
+                    assertEquals(kept, root);
+                    assertEquals(root, kept);
+                } else {
+                    assertSame(first, root);
+                }
+            }
+            assertEquals(0, arena.used());
+        }
+        assertEquals(CHAIN_SIZE, kept.numberOfNodes());
+        assertEquals(0, kept.getValue());
+        assertTrue(arena.capacity() >= CHAIN_SIZE);
+        assertTrue(arena.capacity() < CHAIN_SIZE + SLAB_SIZE);
+    }
+
+    /**
+     * Verifies that reused nodes do not keep stale children.
+     */
+    @Test
+    public void resetChildrenTest() {
+        NodeArena arena = new NodeArena(SLAB_SIZE);
+        try (NodeArena.Lease lease = arena.open()) {
+            lease.node(1, lease.node(0), null);
+        }
+        try (NodeArena.Lease lease = arena.open()) {
+            NumericBinaryTree leaf = lease.node(2);
+            assertTrue(leaf.isLeaf());
+            assertNull(leaf.getLeftChild());
+            assertEquals(1, leaf.numberOfNodes());
+        }
+    }
+
+    /**
+     * Verifies that reused nodes do not keep stale parent links,
+     * which validation would otherwise take as current.
+     */
+    @Test
+    public void resetLinksTest() {
+        NodeArena arena = new NodeArena(SLAB_SIZE);
+        try (NodeArena.Lease lease = arena.open()) {
+            lease.node(1, null, lease.node(0));
+        }
+        NumericBinaryTree.setValidation(true);
+        try (NodeArena.Lease lease = arena.open()) {
+            NumericBinaryTree leaf = lease.node(0);
+            assertNull(leaf.getParent());
+            assertEquals(0, leaf.depth());
+            NumericBinaryTree root = lease.node(1, leaf, null);
+            assertSame(root, leaf.getParent());
+            assertNull(root.getRightChild());
+        } finally {
+            NumericBinaryTree.setValidation(false);
+        }
+    }
+
+    /**
+     * Verifies exception for use of a closed lease.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void closedLeaseException() {
+        NodeArena arena = new NodeArena(SLAB_SIZE);
+        NodeArena.Lease lease = arena.open();
+        lease.close();
+        assertFalse(lease.isOpen());
+        arena.open().close();
+        lease.node(1);
+    }
+
+    /**
+     * Verifies exception for use of a node of a closed lease.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void closedNodeException() {
+        NodeArena arena = new NodeArena(SLAB_SIZE);
+        NumericBinaryTree root;
+        try (NodeArena.Lease lease = arena.open()) {
+            root = chain(lease, CHAIN_SIZE);
+        }
+        root.numberOfNodes();
+    }
+
+    /**
+     * Verifies exception for opening a second lease.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void secondLeaseException() {
+        NodeArena arena = new NodeArena(SLAB_SIZE);
+        arena.open();
+        arena.open();
+    }
+}
@@ -0,0 +1,309 @@
+// NumberCodec.java
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+/**
+ * Binary encoding of Number values and NumericBinaryTree structures
+ * for the persistence formats that do not use Java serialization.
+ * <p>
+ * Each value is written as a one-byte type tag followed by
+ * its type-specific representation,
+ * so values are restored with their original Number type.
+ * Number types other than the standard ones fall back to
+ * Java serialization of the individual value.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+final class NumberCodec {
+
+    /** Type tag for Byte values. */
+    static final int BYTE = 0;
+    /** Type tag for Short values. */
+    static final int SHORT = 1;
+    /** Type tag for Integer values. */
+    static final int INTEGER = 2;
+    /** Type tag for Long values. */
+    static final int LONG = 3;
+    /** Type tag for Float values. */
+    static final int FLOAT = 4;
+    /** Type tag for Double values. */
+    static final int DOUBLE = 5;
+    /** Type tag for BigInteger values. */
+    static final int BIG_INTEGER = 6;
+    /** Type tag for BigDecimal values. */
+    static final int BIG_DECIMAL = 7;
+    /** Type tag for values stored using Java serialization. */
+    static final int SERIALIZED = 8;
+
+    /** Tree marker for the empty tree. */
+    private static final int EMPTY_TREE = 0;
+    /** Tree marker for a non-empty tree. */
+    private static final int NONEMPTY_TREE = 1;
+    /** Node flag indicating a left child follows. */
+    private static final int HAS_LEFT = 1;
+    /** Node flag indicating a right child follows. */
+    private static final int HAS_RIGHT = 2;
+
+    /** Prevents instantiation of utility class. */
+    private NumberCodec() {
+    }
+
+    /**
+     * Determines the type tag of a value.
+     * @param value the non-null value to classify
+     * @return the type tag used to encode the value
+     */
+    static int tagOf(final Number value) {
+        Class<?> type = value.getClass();
+        if (type == Integer.class) {
+            return INTEGER;
+        } else if (type == Double.class) {
+            return DOUBLE;
+        } else if (type == Long.class) {
+            return LONG;
+        } else if (type == Float.class) {
+            return FLOAT;
+        } else if (type == Short.class) {
+            return SHORT;
+        } else if (type == Byte.class) {
+            return BYTE;
+        } else if (type == BigInteger.class) {
+            return BIG_INTEGER;
+        } else if (type == BigDecimal.class) {
+            return BIG_DECIMAL;
+        }
+        return SERIALIZED;
+    }
+
+    /**
+     * Writes a value with its type tag.
+     * @param out the destination
+     * @param value the non-null value to write
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeNumber(final DataOutput out, final Number value)
+        throws IOException {
+        int tag = tagOf(value);
+        out.writeByte(tag);
+        writeUntagged(out, tag, value);
+    }
+
+    /**
+     * Writes the representation of a value without its type tag.
+     * @param out the destination
+     * @param tag the type tag of the value
+     * @param value the non-null value to write
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeUntagged(final DataOutput out, final int tag,
+                              final Number value) throws IOException {
+        switch (tag) {
+            case BYTE:
+                out.writeByte(value.byteValue());
+                break;
+            case SHORT:
+                out.writeShort(value.shortValue());
+                break;
+            case INTEGER:
+                out.writeInt(value.intValue());
+                break;
+            case LONG:
+                out.writeLong(value.longValue());
+                break;
+            case FLOAT:
+                out.writeFloat(value.floatValue());
+                break;
+            case DOUBLE:
+                out.writeDouble(value.doubleValue());
+                break;
+            case BIG_INTEGER:
+                writeBytes(out, ((BigInteger) value).toByteArray());
+                break;
+            case BIG_DECIMAL:
+                BigDecimal decimal = (BigDecimal) value;
+                out.writeInt(decimal.scale());
+                writeBytes(out, decimal.unscaledValue().toByteArray());
+                break;
+            default:
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                ObjectOutputStream objects = new ObjectOutputStream(bytes);
+                objects.writeObject(value);
+                objects.close();
+                writeBytes(out, bytes.toByteArray());
+                break;
+        }
+    }
+
+    /**
+     * Reads a value written by {@link #writeNumber(DataOutput, Number)}.
+     * @param in the source
+     * @return the value read
+     * @throws IOException if an I/O error occurs or the data is invalid
+     */
+    static Number readNumber(final DataInput in) throws IOException {
+        return readUntagged(in, in.readUnsignedByte());
+    }
+
+    /**
+     * Reads the representation of a value whose type tag is known.
+     * @param in the source
+     * @param tag the type tag of the value
+     * @return the value read
+     * @throws IOException if an I/O error occurs or the data is invalid
+     */
+    static Number readUntagged(final DataInput in, final int tag)
+        throws IOException {
+        switch (tag) {
+            case BYTE:
+                return Byte.valueOf(in.readByte());
+            case SHORT:
+                return Short.valueOf(in.readShort());
+            case INTEGER:
+                return Integer.valueOf(in.readInt());
+            case LONG:
+                return Long.valueOf(in.readLong());
+            case FLOAT:
+                return Float.valueOf(in.readFloat());
+            case DOUBLE:
+                return Double.valueOf(in.readDouble());
+            case BIG_INTEGER:
+                return new BigInteger(readBytes(in));
+            case BIG_DECIMAL:
+                int scale = in.readInt();
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+            case SERIALIZED:
+                ObjectInputStream objects = new ObjectInputStream(
+                        new ByteArrayInputStream(readBytes(in)));
+                try {
+                    return (Number) objects.readObject();
+                } catch (ClassNotFoundException ex) {
+                    throw new InvalidObjectException(ex.toString());
+                } catch (ClassCastException ex) {
+                    throw new InvalidObjectException(ex.toString());
+                } finally {
+                    objects.close();
+                }
+            default:
+                throw new InvalidObjectException("Unknown value tag " + tag);
+        }
+    }
+
+    /**
+     * Writes a tree in preorder, including its structure.
+     * @param out the destination
+     * @param tree the tree to write; may be empty
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeTree(final DataOutput out, final NumericBinaryTree tree)
+        throws IOException {
+        if (tree.isEmpty()) {
+            out.writeByte(EMPTY_TREE);
+            return;
+        }
+        out.writeByte(NONEMPTY_TREE);
+        writeNode(out, tree);
+    }
+
+    /**
+     * Writes a non-empty subtree in preorder.
+     * @param out the destination
+     * @param node the non-empty subtree to write
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeNode(final DataOutput out,
+                                  final NumericBinaryTree node)
+        throws IOException {
+        NumericBinaryTree left = node.getLeftChild();
+        NumericBinaryTree right = node.getRightChild();
+        int flags = 0;
+        if (left != null) {
+            flags |= HAS_LEFT;
+        }
+        if (right != null) {
+            flags |= HAS_RIGHT;
+        }
+        out.writeByte(flags);
+        writeNumber(out, node.getValue());
+        if (left != null) {
+            writeNode(out, left);
+        }
+        if (right != null) {
+            writeNode(out, right);
+        }
+    }
+
+    /**
+     * Reads a tree written by
+     * {@link #writeTree(DataOutput, NumericBinaryTree)}.
+     * @param in the source
+     * @return the tree read; may be empty
+     * @throws IOException if an I/O error occurs or the data is invalid
+     */
+    static NumericBinaryTree readTree(final DataInput in) throws IOException {
+        int marker = in.readUnsignedByte();
+        if (marker == EMPTY_TREE) {
+            return new NumericBinaryTree();
+        }
+        if (marker != NONEMPTY_TREE) {
+            throw new InvalidObjectException("Unknown tree marker " + marker);
+        }
+        return readNode(in);
+    }
+
+    /**
+     * Reads a non-empty subtree written in preorder.
+     * @param in the source
+     * @return the subtree read
+     * @throws IOException if an I/O error occurs or the data is invalid
+     */
+    private static NumericBinaryTree readNode(final DataInput in)
+        throws IOException {
+        int flags = in.readUnsignedByte();
+        Number value = readNumber(in);
+        NumericBinaryTree left = null;
+        if ((flags & HAS_LEFT) != 0) {
+            left = readNode(in);
+        }
+        NumericBinaryTree right = null;
+        if ((flags & HAS_RIGHT) != 0) {
+            right = readNode(in);
+        }
+        return new NumericBinaryTree(value, left, right);
+    }
+
+    /**
+     * Writes a length-prefixed byte array.
+     * @param out the destination
+     * @param bytes the bytes to write
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeBytes(final DataOutput out, final byte[] bytes)
+        throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a length-prefixed byte array.
+     * @param in the source
+     * @return the bytes read
+     * @throws IOException if an I/O error occurs or the data is invalid
+     */
+    private static byte[] readBytes(final DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new InvalidObjectException("Negative length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
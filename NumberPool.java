@@ -0,0 +1,148 @@
+// NumberPool.java
+import java.util.LinkedHashMap;
+import java.util.Map;
+/**
+ * Bounded pool of shared Number instances.
+ * <p>
+ * Trees built from data with few distinct values otherwise hold
+ * a separate boxed object for every node.
+ * {@link #intern(Number)} returns one shared instance for all equal
+ * values, so those duplicates can be collected.
+ * Values are matched by <code>equals</code>, so interning never changes
+ * the type or scale of a value: <code>Integer(1)</code> and
+ * <code>Long(1)</code> remain distinct.
+ * </p>
+ * <p>
+ * The pool holds at most a fixed number of values and evicts the
+ * least recently used value when full; an evicted value remains valid
+ * wherever it is already held, but later equal values will no longer
+ * share it.
+ * All methods are thread-safe.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ * @see NumericBinaryTree#setValuePool(NumberPool)
+ * @see NumericBinaryTree#internValues(NumberPool)
+ */
+public final class NumberPool {
+
+    /** Load factor of the underlying map. */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /** Greatest number of values held. */
+    private final int capacity;
+
+    /** Pooled values, each mapped to itself, in least recent use order. */
+    private final Map<Number, Number> values;
+
+    /** Number of lookups that found a pooled value. */
+    private long hits;
+
+    /** Number of lookups that added a value. */
+    private long misses;
+
+    /** Number of values evicted to make room. */
+    private long evictions;
+
+    /**
+     * Constructs an empty pool.
+     * @param capacity the greatest number of values held
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public NumberPool(final int capacity) throws IllegalArgumentException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity " + capacity);
+        }
+        this.capacity = capacity;
+        int initial = (int) Math.min(Integer.MAX_VALUE,
+                                     (long) (capacity / LOAD_FACTOR) + 1);
+        this.values = new LinkedHashMap<Number, Number>(initial,
+                                                       LOAD_FACTOR, true) {
+            /** serialVersionUID. */
+            private static final long serialVersionUID = 2016081718L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<Number, Number> eldest) {
+                if (size() > NumberPool.this.capacity) {
+                    NumberPool.this.evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the pooled instance equal to a value,
+     * adding the value to the pool if there is none.
+     * @param value the value; may be null
+     * @return a pooled value equal to value;
+     *         null if value is null
+     */
+    public synchronized Number intern(final Number value) {
+        if (value == null) {
+            return null;
+        }
+        Number pooled = this.values.get(value);
+        if (pooled != null) {
+            this.hits++;
+            return pooled;
+        }
+        this.misses++;
+        this.values.put(value, value);
+        return value;
+    }
+
+    /**
+     * Returns the greatest number of values held.
+     * @return the capacity
+     */
+    public int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns the number of values held.
+     * @return the number of values held
+     */
+    public synchronized int size() {
+        return this.values.size();
+    }
+
+    /**
+     * Returns the number of calls to {@link #intern(Number)}
+     * that returned an already pooled value.
+     * @return the number of hits
+     */
+    public synchronized long hitCount() {
+        return this.hits;
+    }
+
+    /**
+     * Returns the number of calls to {@link #intern(Number)}
+     * that added a value.
+     * @return the number of misses
+     */
+    public synchronized long missCount() {
+        return this.misses;
+    }
+
+    /**
+     * Returns the number of values evicted to make room for others.
+     * @return the number of evictions
+     */
+    public synchronized long evictionCount() {
+        return this.evictions;
+    }
+
+    /**
+     * Removes every value and resets the counts.
+     */
+    public synchronized void clear() {
+        this.values.clear();
+        this.hits = 0;
+        this.misses = 0;
+        this.evictions = 0;
+    }
+}
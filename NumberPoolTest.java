@@ -0,0 +1,79 @@
+// NumberPoolTest.java
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ * Tests for NumberPool.
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public class NumberPoolTest {
+    /** Capacity of testing pools. */
+    private static final int CAPACITY = 3;
+    /** A value beyond the range of cached boxed values. */
+    private static final long LARGE = 1000000L;
+
+    /**
+     * Boxes a value as a new instance, distinct from every other.
+     * @param value the value to box
+     * @return a new Long holding value
+     */
+    @SuppressWarnings("removal")
+    private static Long distinctLong(final long value) {
+        return new Long(value);
+    }
+
+    /**
+     * Verifies that equal values share the first instance interned
+     * and that values of different types are kept apart.
+     */
+    @Test
+    public void internTest() {
+        NumberPool pool = new NumberPool(CAPACITY);
+        Long first = distinctLong(LARGE);
+        Long second = distinctLong(LARGE);
+        assertNotSame(first, second);
+        assertSame(first, pool.intern(first));
+        assertSame(first, pool.intern(second));
+        assertEquals(Double.valueOf(LARGE),
+                     pool.intern(Double.valueOf(LARGE)));
+        assertNull(pool.intern(null));
+        assertEquals(2, pool.size());
+        assertEquals(1, pool.hitCount());
+        assertEquals(2, pool.missCount());
+    }
+
+    /**
+     * Verifies that the least recently used value is evicted.
+     */
+    @Test
+    public void evictionTest() {
+        NumberPool pool = new NumberPool(CAPACITY);
+        Long[] held = new Long[CAPACITY];
+        for (int i = 0; i < CAPACITY; i++) {
+            held[i] = distinctLong(LARGE + i);
+            pool.intern(held[i]);
+        }
+        pool.intern(distinctLong(LARGE));
+        pool.intern(distinctLong(LARGE + CAPACITY));
+        assertEquals(CAPACITY, pool.size());
+        assertEquals(1, pool.evictionCount());
+        assertSame(held[0], pool.intern(distinctLong(LARGE)));
+        Long replacement = distinctLong(LARGE + 1);
+        assertSame(replacement, pool.intern(replacement));
+        pool.clear();
+        assertEquals(0, pool.size());
+        assertEquals(0, pool.evictionCount());
+    }
+
+    /**
+     * Verifies exception for a capacity that is not positive.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCapacityException() {
+        new NumberPool(0);
+    }
+}
@@ -1,18 +1,16 @@
 // NumericBinaryTree.java
 import java.util.List;
 import java.util.ArrayList;
-import java.io.BufferedOutputStream;
-import java.io.BufferedInputStream;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 import java.io.IOException;
-import java.io.ObjectInput;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutput;
-import java.io.ObjectOutputStream;
-import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.UnaryOperator;
 /**
  * A simple binary tree whose root holds a non-null Number value.
  * <p>
@@ -83,7 +81,7 @@ public class NumericBinaryTree
     private static final long serialVersionUID = 2016081718L;
 
     /** Default root value. */
-    private static final Number DEFAULT_ROOT = new Byte((byte) 0);
+    private static final Number DEFAULT_ROOT = Byte.valueOf((byte) 0);
 
     /** Empty tree indicator root value. */
     private static final Number EMPTY_ROOT_VALUE = null;
@@ -91,6 +89,15 @@ public class NumericBinaryTree
     /** Singleton empty tree reference. */
     private static final NumericBinaryTree EMPTY_TREE = new NumericBinaryTree();
 
+    /** Multiplier combining node hashes in {@link #numericHashCode()}. */
+    private static final int HASH_MULTIPLIER = 31;
+
+    /** Pool interning values given to constructors and setValue; or null. */
+    private static volatile NumberPool valuePool;
+
+    /** Whether constructors and child setters reject malformed trees. */
+    private static volatile boolean validation;
+
     /**
      * Value of the root of this tree;
      * null if and only if empty tree.
@@ -112,6 +119,44 @@ public class NumericBinaryTree
      */
     private NumericBinaryTree rightChild;
 
+    /**
+     * Number of nodes in this tree;
+     * valid only while aggregateStamp equals version.
+     */
+    private transient int subtreeSize;
+
+    /**
+     * Sum of the values of this tree as doubles;
+     * valid only while aggregateStamp equals version.
+     */
+    private transient double subtreeSum;
+
+    /**
+     * Version at which the aggregates were computed;
+     * written after them, so that a reader seeing a current stamp
+     * also sees the aggregates it stamps.
+     */
+    private transient volatile long aggregateStamp;
+
+    /**
+     * Version of this tree, advanced by every change to this tree
+     * or any of its descendants; starts at 1 so that no aggregates
+     * are current before first computed.
+     */
+    private transient volatile long version = 1;
+
+    /**
+     * Number of changes to the value or children of the root of this tree;
+     * checked by iterators to detect concurrent modification.
+     */
+    private transient int modCount;
+
+    /**
+     * Tree of which this tree was most recently made a child;
+     * current only while that tree still has this tree as a child.
+     */
+    private transient NumericBinaryTree parent;
+
     /**
      * Manages a singleton empty tree for leaf nodes.
      * @return the common empty tree
@@ -149,7 +194,10 @@ public class NumericBinaryTree
      * @param rightchild the right child of the root;
      *        <code>null</code> if no such child
      * @throws IllegalArgumentException
-     *         if <code>rootvalue</code> parameter is null
+     *         if <code>rootvalue</code> parameter is null,
+     *         or if validation is enabled and a child is already
+     *         a child of another tree or both children are the same tree
+     * @see #setValidation(boolean)
      */
     public NumericBinaryTree(final Number rootvalue,
                             final NumericBinaryTree leftchild,
@@ -158,7 +206,9 @@ public class NumericBinaryTree
         if (rootvalue == null) {
             throw new IllegalArgumentException();
         }
-        this.rootValue = rootvalue;
+        checkAttachable(leftchild, rightchild);
+        checkAttachable(rightchild, leftchild);
+        this.rootValue = interned(rootvalue);
         if (leftchild == null) {
             this.leftChild = EMPTY_TREE;
         } else {
@@ -169,6 +219,8 @@ public class NumericBinaryTree
         } else {
             this.rightChild = rightchild;
         }
+        adopt(this.leftChild);
+        adopt(this.rightChild);
     }
 
     /**
@@ -186,17 +238,144 @@ public class NumericBinaryTree
      * @return the number of nodes (subtrees)
      */
     public int numberOfNodes() {
-        int numNodes = 0;
-        if (this.rootValue != EMPTY_ROOT_VALUE) {
-            numNodes++;
-            if (this.getLeftChild() != null) {
-                numNodes += this.getLeftChild().numberOfNodes();
+        return (int) aggregate(false);
+    }
+
+    /**
+     * Returns the count or sum of the values of this tree, from the
+     * cached subtree aggregates while validation rules out subtrees
+     * shared between trees, and otherwise by walking the tree.
+     * @param sum true for the sum; false for the count
+     * @return the sum or number of values; 0 if empty tree
+     */
+    private double aggregate(final boolean sum) {
+        if (isEmpty()) {
+            return 0;
+        }
+        if (!validation) {
+            return walkAggregate(sum);
+        }
+        refreshAggregates();
+        return cachedAggregate(sum);
+    }
+
+    /**
+     * Counts the nodes or adds up the values of this nonempty tree
+     * without recursion and without the cached aggregates.
+     * @param sum true to add up the values, false to count the nodes
+     * @return the sum of the values as doubles, or the number of nodes
+     */
+    private double walkAggregate(final boolean sum) {
+        double total = 0;
+        ArrayDeque<NumericBinaryTree> pending
+                = new ArrayDeque<NumericBinaryTree>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            NumericBinaryTree node = pending.pop();
+            total += node.aggregateOfRoot(sum);
+            if (!node.leftChild.isEmpty()) {
+                pending.push(node.leftChild);
             }
-            if (this.getRightChild() != null) {
-                numNodes += this.getRightChild().numberOfNodes();
+            if (!node.rightChild.isEmpty()) {
+                pending.push(node.rightChild);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Recomputes any out of date cached aggregates of this nonempty
+     * tree without recursion or allocation: stale subtrees are entered
+     * through child links and left through parent links, which match
+     * the child links while validation is enabled.
+     */
+    private void refreshAggregates() {
+        NumericBinaryTree node = this;
+        while (this.aggregateStamp != this.version) {
+            if (node.leftChild.isAggregateStale()) {
+                node = node.leftChild;
+            } else if (node.rightChild.isAggregateStale()) {
+                node = node.rightChild;
+            } else {
+                long stamp = node.version;
+                node.subtreeSize = (int) (1
+                        + node.leftChild.cachedAggregate(false)
+                        + node.rightChild.cachedAggregate(false));
+                node.subtreeSum = node.rootValue.doubleValue()
+                                  + node.leftChild.cachedAggregate(true)
+                                  + node.rightChild.cachedAggregate(true);
+                node.aggregateStamp = stamp;
+                node = node.attachedParent();
+                if (node == null) {
+                    node = this;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the cached count or sum of the values of this
+     * up to date tree.
+     * @param sum true for the sum; false for the count
+     * @return the sum or number of values; 0 if empty tree
+     */
+    private double cachedAggregate(final boolean sum) {
+        if (isEmpty()) {
+            return 0;
+        }
+        if (sum) {
+            return this.subtreeSum;
+        }
+        return this.subtreeSize;
+    }
+
+    /**
+     * Determines whether the cached aggregates of this tree
+     * must be recomputed.
+     * @return true if this tree is nonempty and its aggregates
+     *         are out of date
+     */
+    private boolean isAggregateStale() {
+        return !isEmpty() && this.aggregateStamp != this.version;
+    }
+
+    /**
+     * Records a change to this tree by advancing its version
+     * and the versions of its ancestors, so that their cached
+     * aggregates, and results derived from them, are out of date.
+     * Parent links that have been made to form a loop are detected
+     * rather than followed forever.
+     */
+    void changed() {
+        NumericBinaryTree slow = this;
+        NumericBinaryTree node = this;
+        int steps = 0;
+        while (node != null) {
+            node.version++;
+            node = node.attachedParent();
+            steps++;
+            if (steps % 2 == 0) {
+                slow = slow.attachedParent();
+            }
+            if (node == slow) {
+                // Every tree on the loop has been advanced.
+                break;
             }
         }
-        return numNodes;
+    }
+
+    /**
+     * Returns the version of this tree, which advances whenever
+     * this tree or any of its descendants changes.
+     * Results derived from this tree remain valid
+     * while its version is unchanged.
+     * Changes to a subtree shared with other trees advance only
+     * the versions of the trees of which it was last made a child;
+     * validation rules such sharing out.
+     * @return the version of this tree
+     */
+    public long version() {
+        return this.version;
     }
 
     /**
@@ -209,10 +388,7 @@ public class NumericBinaryTree
         if (isEmpty()) {
             throw new NullPointerException();
         }
-        if (numberOfNodes() < 1) {
-            return false;
-        }
-        return (numberOfNodes() == 1);
+        return this.leftChild.isEmpty() && this.rightChild.isEmpty();
     }
 
     /**
@@ -257,6 +433,102 @@ public class NumericBinaryTree
         return this.rightChild;
     }
 
+    /**
+     * Returns the tree of which this tree is a child.
+     * If this tree has been made a child of several trees,
+     * the most recent one that still has it as a child is returned.
+     * @return the parent; null if this tree is not a child
+     * @throws java.lang.NullPointerException if this tree is empty
+     */
+    public NumericBinaryTree getParent() throws NullPointerException {
+        if (isEmpty()) {
+            throw new NullPointerException();
+        }
+        return attachedParent();
+    }
+
+    /**
+     * Returns the number of ancestors of this tree,
+     * following parent links in time proportional to the result.
+     * @return the depth of this tree; 0 if it has no parent
+     * @throws java.lang.NullPointerException if this tree is empty
+     * @throws IllegalStateException if this tree is its own ancestor
+     */
+    public int depth() throws NullPointerException, IllegalStateException {
+        if (isEmpty()) {
+            throw new NullPointerException();
+        }
+        int depth = 0;
+        NumericBinaryTree slow = this;
+        NumericBinaryTree fast = attachedParent();
+        while (fast != null) {
+            depth++;
+            if (depth % 2 == 0) {
+                slow = slow.attachedParent();
+            }
+            if (slow == fast) {
+                throw new IllegalStateException("Cyclic tree");
+            }
+            fast = fast.attachedParent();
+        }
+        return depth;
+    }
+
+    /**
+     * Lists the ancestors of this tree.
+     * @return the ancestors from parent to root;
+     *         the empty list if this tree has no parent
+     * @throws java.lang.NullPointerException if this tree is empty
+     * @throws IllegalStateException if this tree is its own ancestor
+     */
+    public List<NumericBinaryTree> ancestors()
+        throws NullPointerException, IllegalStateException {
+        int count = depth();
+        List<NumericBinaryTree> result
+                = new ArrayList<NumericBinaryTree>(count);
+        NumericBinaryTree node = this;
+        for (int i = 0; i < count; i++) {
+            node = node.attachedParent();
+            result.add(node);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the deepest tree having both this tree and another
+     * as subtrees, following parent links in time proportional
+     * to the depths of the two trees.
+     * @param other a subtree of the same tree as this tree
+     * @return the lowest common ancestor, which may be this tree
+     *         or other itself; null if the trees share no ancestor
+     * @throws java.lang.NullPointerException if this tree is empty
+     * @throws IllegalArgumentException if other is null or empty
+     * @throws IllegalStateException if either tree is its own ancestor
+     */
+    public NumericBinaryTree lowestCommonAncestor(
+            final NumericBinaryTree other)
+        throws NullPointerException, IllegalArgumentException,
+               IllegalStateException {
+        if (other == null || other.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+        NumericBinaryTree first = this;
+        NumericBinaryTree second = other;
+        int firstDepth = depth();
+        int secondDepth = other.depth();
+        for (; firstDepth > secondDepth; firstDepth--) {
+            first = first.attachedParent();
+        }
+        for (; secondDepth > firstDepth; secondDepth--) {
+            second = second.attachedParent();
+        }
+        while (first != second) {
+            first = first.attachedParent();
+            second = second.attachedParent();
+        }
+        return first;
+    }
+
     /**
      * Modifies the value of the root of this tree.
      * @param value the new value for the root
@@ -266,7 +538,298 @@ public class NumericBinaryTree
         if (isEmpty()) {
             throw new NullPointerException();
         }
-        this.rootValue = value;
+        this.rootValue = interned(value);
+        this.modCount++;
+        changed();
+    }
+
+    /**
+     * Replaces the value of the root of this nonempty tree
+     * by a function of it, without recording a change of its ancestors;
+     * callers record one change of the tree once every value is replaced.
+     * @param function the function of the value
+     * @throws IllegalArgumentException if function returns null
+     */
+    void replaceValue(final UnaryOperator<Number> function)
+        throws IllegalArgumentException {
+        Number value = function.apply(this.rootValue);
+        if (value == null) {
+            throw new IllegalArgumentException("null value");
+        }
+        this.rootValue = interned(value);
+        this.modCount++;
+        this.version++;
+    }
+
+    /**
+     * Reinitializes this tree for reuse as a new node,
+     * as the three-argument constructor would initialize it.
+     * The previous parent and children of this tree are forgotten
+     * before the new children are checked, so that neither is mistaken
+     * for a current link.
+     * @param value the value stored at the root of the tree
+     * @param left the left child; null if no such child
+     * @param right the right child; null if no such child
+     * @throws IllegalArgumentException if value is null,
+     *         or if validation is enabled and a child is rejected
+     */
+    void reinitialize(final Number value, final NumericBinaryTree left,
+                      final NumericBinaryTree right)
+        throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException();
+        }
+        this.parent = null;
+        this.leftChild = EMPTY_TREE;
+        this.rightChild = EMPTY_TREE;
+        this.modCount++;
+        checkAttachable(left, right);
+        checkAttachable(right, left);
+        this.rootValue = interned(value);
+        if (left != null) {
+            this.leftChild = left;
+        }
+        if (right != null) {
+            this.rightChild = right;
+        }
+        adopt(this.leftChild);
+        adopt(this.rightChild);
+        changed();
+    }
+
+    /**
+     * Installs a pool through which values given to the constructors
+     * and to {@link #setValue(Number)} are interned,
+     * so that equal values share one instance.
+     * Interning is off until a pool is installed.
+     * @param pool the pool; null to stop interning
+     * @see NumberPool
+     */
+    public static void setValuePool(final NumberPool pool) {
+        valuePool = pool;
+    }
+
+    /**
+     * Returns the pool through which new values are interned.
+     * @return the installed pool; null if interning is off
+     */
+    public static NumberPool getValuePool() {
+        return valuePool;
+    }
+
+    /**
+     * Interns a value through the installed pool, if any.
+     * @param value the value
+     * @return the pooled value equal to value; value if there is no pool
+     */
+    private static Number interned(final Number value) {
+        NumberPool pool = valuePool;
+        if (pool == null) {
+            return value;
+        }
+        return pool.intern(value);
+    }
+
+    /**
+     * Replaces each value of this tree with its pooled instance,
+     * so that equal values throughout an existing tree share one object.
+     * Each replacement is equal to the value it replaces,
+     * so the tree remains equal to what it was.
+     * @param pool the pool through which to intern values
+     * @return the number of values replaced by a different instance
+     * @throws IllegalArgumentException if pool is null
+     */
+    public int internValues(final NumberPool pool)
+        throws IllegalArgumentException {
+        if (pool == null) {
+            throw new IllegalArgumentException("null pool");
+        }
+        int replaced = 0;
+        for (NumericBinaryTree node : inorderNodes()) {
+            Number pooled = pool.intern(node.rootValue);
+            if (pooled != node.rootValue) {
+                node.rootValue = pooled;
+                replaced++;
+            }
+        }
+        return replaced;
+    }
+
+    /**
+     * Enables or disables validation of the trees given as children
+     * to the constructors, {@link #setLeftChild(NumericBinaryTree)} and
+     * {@link #setRightChild(NumericBinaryTree)}.
+     * While enabled, a child that is already a child of another tree
+     * or that would make a tree its own descendant is rejected
+     * with IllegalArgumentException, at a cost proportional to the depth
+     * of the tree receiving the child.
+     * While enabled, node counts and sums are also read from
+     * subtree aggregates cached in each tree.
+     * Validation is disabled until enabled;
+     * {@link #validate()} checks trees built while it was disabled.
+     * @param enabled <code>true</code> to validate children
+     */
+    public static void setValidation(final boolean enabled) {
+        validation = enabled;
+    }
+
+    /**
+     * Determines whether children are validated.
+     * @return <code>true</code> if validation is enabled
+     * @see #setValidation(boolean)
+     */
+    public static boolean isValidationEnabled() {
+        return validation;
+    }
+
+    /**
+     * Checks that every nonempty subtree of this tree is reachable
+     * from its root by exactly one path, so that this tree has no
+     * shared subtrees and no cycles, and that empty trees have no
+     * children.
+     * Runs in time proportional to the number of nodes
+     * and also links each subtree to its parent,
+     * so that later validated changes are checked correctly.
+     * @throws IllegalStateException if this tree is malformed
+     */
+    public void validate() throws IllegalStateException {
+        Set<NumericBinaryTree> seen = Collections.newSetFromMap(
+                new IdentityHashMap<NumericBinaryTree, Boolean>());
+        ArrayDeque<NumericBinaryTree> pending
+                = new ArrayDeque<NumericBinaryTree>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            NumericBinaryTree node = pending.pop();
+            if (node.isEmpty()) {
+                if (node.leftChild != null || node.rightChild != null) {
+                    throw new IllegalStateException("Empty tree with child");
+                }
+                continue;
+            }
+            if (!seen.add(node)) {
+                throw new IllegalStateException(
+                        "Shared or cyclic subtree " + node.rootValue);
+            }
+            if (node.leftChild == null || node.rightChild == null) {
+                throw new IllegalStateException("Missing empty child");
+            }
+            node.adopt(node.leftChild);
+            node.adopt(node.rightChild);
+            pending.push(node.rightChild);
+            pending.push(node.leftChild);
+        }
+    }
+
+    /**
+     * Rejects a prospective child of this tree if validation is enabled
+     * and the child would be shared or would form a cycle.
+     * @param child the prospective child; null or empty for no child
+     * @param sibling the other child of this tree, which must remain
+     * @throws IllegalArgumentException if the child is rejected
+     */
+    private void checkAttachable(final NumericBinaryTree child,
+                                 final NumericBinaryTree sibling)
+        throws IllegalArgumentException {
+        if (!validation || child == null || child.isEmpty()) {
+            return;
+        }
+        if (child == sibling) {
+            throw new IllegalArgumentException("Child already present");
+        }
+        NumericBinaryTree owner = child.attachedParent();
+        if (owner != null && owner != this) {
+            throw new IllegalArgumentException("Child has another parent");
+        }
+        if (hasAncestorOrSelf(child)) {
+            throw new IllegalArgumentException("Child contains this tree");
+        }
+    }
+
+    /**
+     * Checks a prospective child of this tree without replacing
+     * either child, as setLeftChild or setRightChild would check it.
+     * @param child the prospective child; null or empty for no child
+     * @param left true for the left child; false for the right
+     * @throws java.lang.NullPointerException if this tree is empty
+     * @throws IllegalArgumentException if validation is enabled
+     *         and the child would be rejected
+     */
+    void checkChild(final NumericBinaryTree child, final boolean left)
+        throws NullPointerException, IllegalArgumentException {
+        if (isEmpty()) {
+            throw new NullPointerException();
+        }
+        if (left) {
+            checkAttachable(child, this.rightChild);
+        } else {
+            checkAttachable(child, this.leftChild);
+        }
+    }
+
+    /**
+     * Records this tree as the parent of a child.
+     * @param child the child; ignored if null or empty
+     */
+    private void adopt(final NumericBinaryTree child) {
+        if (child != null && !child.isEmpty()) {
+            child.parent = this;
+        }
+    }
+
+    /**
+     * Returns the tree of which this tree is a child, without checks.
+     * @return the parent; null if there is none
+     */
+    private NumericBinaryTree attachedParent() {
+        NumericBinaryTree p = this.parent;
+        if (p != null && (p.leftChild == this || p.rightChild == this)) {
+            return p;
+        }
+        return null;
+    }
+
+    /**
+     * Determines whether a tree is this tree or one of its ancestors.
+     * Parent links that have been made to form a loop are detected
+     * rather than followed forever.
+     * @param tree the tree sought
+     * @return true if tree is this tree or an ancestor of it
+     * @throws IllegalStateException if the ancestors of this tree
+     *         include this tree
+     */
+    private boolean hasAncestorOrSelf(final NumericBinaryTree tree)
+        throws IllegalStateException {
+        NumericBinaryTree slow = this;
+        NumericBinaryTree fast = this;
+        while (true) {
+            for (int step = 0; step < 2; step++) {
+                if (fast == tree) {
+                    return true;
+                }
+                fast = fast.attachedParent();
+                if (fast == null) {
+                    return false;
+                }
+            }
+            slow = slow.attachedParent();
+            if (slow == fast) {
+                throw new IllegalStateException("Cyclic tree");
+            }
+        }
+    }
+
+    /**
+     * Restores this tree from a stream and links its children to it.
+     * @param in the stream
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if a value class is not found
+     */
+    private void readObject(final ObjectInputStream in)
+        throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.version = 1;
+        adopt(this.leftChild);
+        adopt(this.rightChild);
     }
 
     /**
@@ -274,17 +837,25 @@ public class NumericBinaryTree
      * @param child the new left child for this tree;
      *                  null or empty tree indicates no child
      * @throws java.lang.NullPointerException if this tree is empty
+     * @throws IllegalArgumentException if validation is enabled and
+     *         child is already a child of another tree or of this tree,
+     *         or would make this tree its own descendant
+     * @see #setValidation(boolean)
      */
     public void setLeftChild(final NumericBinaryTree child)
-        throws NullPointerException {
+        throws NullPointerException, IllegalArgumentException {
         if (isEmpty()) {
             throw new NullPointerException();
         }
+        checkAttachable(child, this.rightChild);
         if (null == child) {
             this.leftChild = EMPTY_TREE;
         } else {
             this.leftChild = child;
         }
+        adopt(this.leftChild);
+        this.modCount++;
+        changed();
     }
 
     /**
@@ -292,17 +863,25 @@ public class NumericBinaryTree
      * @param child the new right child for this tree;
      *                  null or empty tree indicates no child
      * @throws java.lang.NullPointerException if this tree is empty
+     * @throws IllegalArgumentException if validation is enabled and
+     *         child is already a child of another tree or of this tree,
+     *         or would make this tree its own descendant
+     * @see #setValidation(boolean)
      */
     public void setRightChild(final NumericBinaryTree child)
-        throws NullPointerException {
+        throws NullPointerException, IllegalArgumentException {
         if (isEmpty()) {
             throw new NullPointerException();
         }
+        checkAttachable(child, this.leftChild);
         if (null == child) {
             this.rightChild = EMPTY_TREE;
         } else {
             this.rightChild = child;
         }
+        adopt(this.rightChild);
+        this.modCount++;
+        changed();
     }
 
     /**
@@ -349,6 +928,58 @@ public class NumericBinaryTree
         return 1 + maxChildHeight;
     }
 
+    /**
+     * Determines the height of this tree using fork/join parallelism.
+     * Left and right subtrees are measured concurrently
+     * near the root; deeper subtrees fall back to {@link #height()}.
+     * @return the height of this tree, -1 if empty
+     */
+    public final int parallelHeight() {
+        if (isEmpty()) {
+            return -1;
+        }
+        return ParallelTreeTasks.metric(this, ParallelTreeTasks.HEIGHT);
+    }
+
+    /**
+     * Returns the number of nodes (subtrees) in this tree
+     *   using fork/join parallelism; 0 if empty tree.
+     * @return the number of nodes (subtrees)
+     */
+    public int parallelNumberOfNodes() {
+        if (isEmpty()) {
+            return 0;
+        }
+        return ParallelTreeTasks.metric(this, ParallelTreeTasks.NODES);
+    }
+
+    /**
+     * Determines the number of leaves of this tree
+     *   using fork/join parallelism.
+     * @return the number of leaves
+     * @throws java.lang.NullPointerException if this tree is empty
+     */
+    public int parallelNumberOfLeaves() throws NullPointerException {
+        if (isEmpty()) {
+            throw new NullPointerException();
+        }
+        return ParallelTreeTasks.metric(this, ParallelTreeTasks.LEAVES);
+    }
+
+    /**
+     * Compares this tree with another for shape and contents
+     *   using fork/join parallelism.
+     * Produces the same result as {@link #equals(Object)}.
+     * @param other the tree with which to compare
+     * @return true if and only if the trees are equal
+     */
+    public boolean parallelEquals(final NumericBinaryTree other) {
+        if (other == null) {
+            return false;
+        }
+        return ParallelTreeTasks.equal(this, other);
+    }
+
     /**
      * Indicates whether some other object is "equal to" this one.
      * @param obj the reference object with which to compare
@@ -365,7 +996,7 @@ public class NumericBinaryTree
      */
     @Override
     public boolean equals(final Object obj) {
-        if ((obj == null) || (obj.getClass() != this.getClass())) {
+        if (!(obj instanceof NumericBinaryTree)) {
             return false;
         }
         return compareTrees(this, (NumericBinaryTree) obj);
@@ -403,7 +1034,7 @@ public class NumericBinaryTree
      */
     public List<Number> preorderValues() {
         List<Number> preorderV = new ArrayList<Number>();
-        if (this.numberOfNodes() != 0) {
+        if (!this.isEmpty()) {
             preorderV.add(this.getValue());
             if (this.getLeftChild() != null) {
                 preorderV.addAll(this.getLeftChild().preorderValues());
@@ -423,7 +1054,7 @@ public class NumericBinaryTree
      */
     public List<Number> inorderValues() {
         List<Number> inorderV = new ArrayList<Number>();
-        if (this.numberOfNodes() != 0) {
+        if (!this.isEmpty()) {
             if (this.getLeftChild() != null) {
                 inorderV.addAll(this.getLeftChild().inorderValues());
             }
@@ -443,7 +1074,7 @@ public class NumericBinaryTree
      */
     public List<Number> postorderValues() {
         List<Number> postorderV = new ArrayList<Number>();
-        if (this.numberOfNodes() != 0) {
+        if (!this.isEmpty()) {
             if (this.getLeftChild() != null) {
                 postorderV.addAll(this.getLeftChild().postorderValues());
             }
@@ -464,7 +1095,7 @@ public class NumericBinaryTree
     public List<NumericBinaryTree> preorderSubtrees() {
         List<NumericBinaryTree> preorderList
                 = new ArrayList<NumericBinaryTree>();
-        if (this.numberOfNodes() != 0) {
+        if (!this.isEmpty()) {
             preorderList.add(this);
             if (this.getLeftChild() != null) {
                 preorderList.addAll(this.getLeftChild().preorderSubtrees());
@@ -485,7 +1116,7 @@ public class NumericBinaryTree
     public List<NumericBinaryTree> inorderSubtrees() {
         List<NumericBinaryTree> inorderList
                 = new ArrayList<NumericBinaryTree>();
-        if (this.numberOfNodes() != 0) {
+        if (!this.isEmpty()) {
             if (this.getLeftChild() != null) {
                 inorderList.addAll(this.getLeftChild().inorderSubtrees());
             }
@@ -506,7 +1137,7 @@ public class NumericBinaryTree
     public List<NumericBinaryTree> postorderSubtrees() {
         List<NumericBinaryTree> postorderList
             = new ArrayList<NumericBinaryTree>();
-        if (this.numberOfNodes() != 0) {
+        if (!this.isEmpty()) {
             if (this.getLeftChild() != null) {
                 postorderList.addAll(this.getLeftChild().postorderSubtrees());
             }
@@ -539,12 +1170,27 @@ public class NumericBinaryTree
     }
 
     /**
-     * Returns an iterator over the subtrees (nodes) of this tree.
+     * Returns an iterator over the subtrees (nodes) of this tree
+     *   in postorder.
+     * Nodes are visited as the iteration proceeds rather than listed
+     *   in advance, and the iterator is fail-fast: if a node whose
+     *   children it has yet to visit is modified, the next call of
+     *   <code>next()</code> throws ConcurrentModificationException.
      * @return an iterator over subtrees of this tree
      */
     @Override
     public java.util.Iterator<NumericBinaryTree> iterator() {
-        return this.postorderSubtrees().iterator();
+        return new SubtreeIterator(this);
+    }
+
+    /**
+     * Returns the number of changes made to the root of this tree:
+     *   to its value, to its children, or by insert or remove.
+     * Changes to descendants are counted by the descendants.
+     * @return the modification count of the root of this tree
+     */
+    public int modificationCount() {
+        return this.modCount;
     }
 
     /**
@@ -601,57 +1247,30 @@ public class NumericBinaryTree
      */
     public final boolean save(final String filename)
     throws java.io.IOException {
-        boolean success = true;
-        String treeFileName = filename;
-        if (treeFileName == null) {
-            treeFileName = NumericBinaryTree.SERIAL_FILENAME;
-        }
-        // Serialize the tree.
-        try {
-            OutputStream file = new FileOutputStream(treeFileName);
-            OutputStream buffer = new BufferedOutputStream(file);
-            ObjectOutput output = new ObjectOutputStream(buffer);
-            try {
-                output.writeObject(this);
-            } finally {
-                output.close();
-            }
-        } catch (IOException ex) {
-            System.err.println("Unsuccessful save. " + ex);
-            throw ex;
-        }
-
-        // Attempt to deserialize the graph as verification.
-        try {
-            InputStream file = new FileInputStream(treeFileName);
-            InputStream buffer = new BufferedInputStream(file);
-            ObjectInput input = new ObjectInputStream(buffer);
-            try {
-                NumericBinaryTree restored
-                = (NumericBinaryTree) input.readObject();
-                // Use toString for quick check.
-                if (!this.toString().equals(restored.toString())) {
-                    success = false;
-                }
-                // Use compareTrees predicate for deeper check.
-                if (!compareTrees(this, restored)) {
-                    success = false;
-                }
-            } finally {
-                input.close();
-            }
-        } catch (ClassNotFoundException ex) {
-            // System.err.println("save: restore-check Class not found. " + ex);
-            success = false;
-        } catch (IOException ex) {
-            // System.err.println("save: restore-check exception.  " + ex);
-            success = false;
-        }
-        return success;
+        return TreeFiles.save(this, filename);
+    }
+
+    /**
+     * Saves this tree to a file in compact format.
+     * The shape of the tree is stored as two bits per node,
+     * and values are delta or XOR compressed according to their type.
+     * The file can be read by {@link #restore(String)}
+     * and by {@link CompactTreeReader}.
+     * @param filename the name of the file in which to save this tree;
+     *                 if null, uses default file name
+     * @return <code>true</code> if successful save;
+     *         <code>false</code> otherwise
+     * @throws java.io.IOException if unexpected IO error
+     */
+    public final boolean saveCompact(final String filename)
+    throws java.io.IOException {
+        return TreeFiles.saveCompact(this, filename);
     }
 
     /**
      * Restores this tree from a file.
+     * The file may have been written by either
+     * {@link #save(String)} or {@link #saveCompact(String)}.
      * <br><em>Postconditions:</em>
      * <blockquote>If successful, previous contents of this tree have
      * been replaced by the contents of the file.
@@ -664,48 +1283,148 @@ public class NumericBinaryTree
      */
     public final boolean restore(final String filename) throws
     java.io.IOException {
-        boolean success = false;
-        String treeFileName = filename;
-        if (treeFileName == null) {
-            treeFileName = NumericBinaryTree.SERIAL_FILENAME;
-        }
-        NumericBinaryTree restored = null;
-        try {
-            InputStream file = new FileInputStream(treeFileName);
-            InputStream buffer = new BufferedInputStream(file);
-            ObjectInput input = new ObjectInputStream(buffer);
-            try {
-                NumericBinaryTree retrieved
-                = (NumericBinaryTree) input.readObject();
-                restored = retrieved;
-            } finally {
-                input.close();
-                success = true;
-            }
-        } catch (ClassNotFoundException ex) {
-            // ClassNotFoundException is common.
-            success = false;
-        } catch (FileNotFoundException ex) {
-            // FileNoteFoundException is common.
-            success = false;
-        } catch (IOException ex) {
-            // Throw other IOExceptions as unexpected.
-            throw ex;
-        }
+        NumericBinaryTree restored = TreeFiles.read(filename);
         if (restored == null) {
             // Invalid; NumericBinaryTree cannot be null.
-            success = false;
-        } else {
-            this.rootValue = restored.rootValue;
-            this.leftChild = restored.leftChild;
-            this.rightChild = restored.rightChild;
+            return false;
+        }
+        assign(restored);
+        return true;
+    }
+
+    /**
+     * Saves this tree to a file without blocking the caller.
+     * A snapshot of this tree is taken before returning,
+     * so later modifications do not affect the saved contents.
+     * Serialization and verification run on the common fork/join pool;
+     * the file is written asynchronously to a temporary file
+     * that replaces the named file only once completely written.
+     * @param filename the name of the file in which to save this tree;
+     *                 if null, uses default file name
+     * @return a future completed with <code>true</code> if successful save
+     *         and <code>false</code> if verification failed,
+     *         or completed exceptionally if unexpected IO error
+     */
+    public final CompletableFuture<Boolean> saveAsync(final String filename) {
+        return saveAsync(filename, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Saves this tree to a file without blocking the caller.
+     * @param filename the name of the file in which to save this tree;
+     *                 if null, uses default file name
+     * @param executor the executor that serializes the snapshot
+     * @return a future completed with <code>true</code> if successful save
+     *         and <code>false</code> if verification failed,
+     *         or completed exceptionally if unexpected IO error
+     * @see #saveAsync(String)
+     */
+    public final CompletableFuture<Boolean> saveAsync(final String filename,
+                                                      final Executor executor) {
+        return TreeFiles.saveAsync(deepCopy(), filename, executor);
+    }
+
+    /**
+     * Restores this tree from a file without blocking the caller.
+     * The serialized or compact file is read asynchronously
+     * and decoded on the common fork/join pool.
+     * This tree must not be accessed until the returned future completes.
+     * <br><em>Postconditions:</em>
+     * <blockquote>If successful, previous contents of this tree have
+     * been replaced by the contents of the file.
+     * If unsuccessful, content of the tree is unchanged.</blockquote>
+     * @param filename the name of the file from which to restore this tree;
+     *                 if null, uses default file name
+     * @return a future completed with <code>true</code> if successful restore
+     *         and <code>false</code> otherwise,
+     *         or completed exceptionally if unexpected IO error
+     */
+    public final CompletableFuture<Boolean> restoreAsync(
+            final String filename) {
+        return restoreAsync(filename, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Restores this tree from a file without blocking the caller.
+     * @param filename the name of the file from which to restore this tree;
+     *                 if null, uses default file name
+     * @param executor the executor that decodes the file contents
+     * @return a future completed with <code>true</code> if successful restore
+     *         and <code>false</code> otherwise,
+     *         or completed exceptionally if unexpected IO error
+     * @see #restoreAsync(String)
+     */
+    public final CompletableFuture<Boolean> restoreAsync(
+            final String filename, final Executor executor) {
+        return TreeFiles.readAsync(filename, executor).thenApply(restored -> {
+            if (restored == null) {
+                return false;
+            }
+            assign(restored);
+            return true;
+        });
+    }
+
+    /**
+     * Replaces the contents of this tree with those of another tree.
+     * The children of the other tree become the children of this tree.
+     * @param source the tree whose contents replace those of this tree
+     */
+    void assign(final NumericBinaryTree source) {
+        this.rootValue = source.rootValue;
+        this.leftChild = source.leftChild;
+        this.rightChild = source.rightChild;
+        adopt(this.leftChild);
+        adopt(this.rightChild);
+        this.modCount++;
+        changed();
+    }
+
+    /**
+     * Lists the nodes of this tree in inorder without recursion.
+     * @return all nonempty subtrees in inorder;
+     *         the empty list if this tree is empty
+     */
+    List<NumericBinaryTree> inorderNodes() {
+        List<NumericBinaryTree> nodes = new ArrayList<NumericBinaryTree>();
+        ArrayDeque<NumericBinaryTree> pending
+                = new ArrayDeque<NumericBinaryTree>();
+        NumericBinaryTree node = this;
+        while (!node.isEmpty() || !pending.isEmpty()) {
+            while (!node.isEmpty()) {
+                pending.push(node);
+                node = node.leftChild;
+            }
+            node = pending.pop();
+            nodes.add(node);
+            node = node.rightChild;
+        }
+        return nodes;
+    }
+
+    /**
+     * Creates a deep copy of this tree.
+     * Values are shared; nodes are not.
+     * @return a new tree equal to this tree
+     */
+    NumericBinaryTree deepCopy() {
+        if (isEmpty()) {
+            return new NumericBinaryTree();
+        }
+        NumericBinaryTree left = null;
+        if (!this.leftChild.isEmpty()) {
+            left = this.leftChild.deepCopy();
+        }
+        NumericBinaryTree right = null;
+        if (!this.rightChild.isEmpty()) {
+            right = this.rightChild.deepCopy();
         }
-        return success;
+        return new NumericBinaryTree(this.rootValue, left, right);
     }
 
     /**
      * Utility that compares two trees for shape and contents.
-     * This private method behaves like an equals predicate
+     * This method behaves like an equals predicate
      * except that it works only for NumericBinaryTree objects.
      * @param nbt1 first tree for comparison
      * @param nbt2 second tree for comparison
@@ -716,42 +1435,559 @@ public class NumericBinaryTree
      *      both the left children and right children
      *      also return true to this predicate
      */
-    private static boolean compareTrees(final NumericBinaryTree nbt1,
-                                        final NumericBinaryTree nbt2) {
-        if (nbt1 == null || nbt2 == null) {
-            return false;
+    static boolean compareTrees(final NumericBinaryTree nbt1,
+                                final NumericBinaryTree nbt2) {
+        return compareTrees(nbt1, nbt2, false);
+    }
+
+    /**
+     * Compares this tree with another for shape and numeric contents.
+     * Unlike {@link #equals(Object)}, respective values
+     * of different Number types are considered equal
+     * when they represent the same number;
+     * for example, <code>Integer(1)</code> and <code>Long(1)</code>.
+     * @param other the tree with which to compare
+     * @return true if and only if both trees have the same structure
+     *         and numerically equal values at respective nodes
+     */
+    public boolean equalsNumerically(final NumericBinaryTree other) {
+        return compareTrees(this, other, true);
+    }
+
+    /**
+     * Returns a hash code consistent with
+     * {@link #equalsNumerically(NumericBinaryTree)}:
+     * numerically equal trees have equal numeric hash codes.
+     * @return a hash code of the structure and numeric values of this tree
+     * @see NumericComparator#hash(Number)
+     */
+    public int numericHashCode() {
+        int code = 1;
+        ArrayDeque<NumericBinaryTree> pending
+                = new ArrayDeque<NumericBinaryTree>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            NumericBinaryTree node = pending.pop();
+            code *= HASH_MULTIPLIER;
+            if (!node.isEmpty()) {
+                code += NumericComparator.hash(node.rootValue);
+                pending.push(node.rightChild);
+                pending.push(node.leftChild);
+            }
         }
-        if (nbt1.isEmpty()) {
-            return nbt2.isEmpty();
+        return code;
+    }
+
+    /**
+     * Determines whether this binary search tree holds a value
+     * numerically equal to a value.
+     * In a binary search tree, values less than the value of a node
+     * are in its left subtree and all other values,
+     * including equal values, are in its right subtree.
+     * @param value the value sought
+     * @return true if such a value is present
+     * @throws IllegalArgumentException if value is null
+     */
+    public boolean contains(final Number value)
+        throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException();
         }
-        if (nbt1.height() != nbt2.height()) {
-            return false;
+        NumericBinaryTree node = this;
+        while (!node.isEmpty()) {
+            int order = compareValues(value, node.rootValue);
+            if (order == 0) {
+                return true;
+            }
+            if (order < 0) {
+                node = node.leftChild;
+            } else {
+                node = node.rightChild;
+            }
         }
-        if (!nbt1.getValue().equals(nbt2.getValue())) {
-            return false;
+        return false;
+    }
+
+    /**
+     * Inserts a value into this binary search tree as a new leaf.
+     * Equal values are placed in the right subtree.
+     * If this tree is empty, the value becomes its root.
+     * @param value the value to insert
+     * @throws IllegalArgumentException if value is null
+     */
+    public void insert(final Number value) throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException();
         }
-        if (nbt1.getLeftChild() == null) {
-            if (nbt2.getLeftChild() != null) {
-                return false;
+        if (isEmpty()) {
+            assign(new NumericBinaryTree(value));
+            return;
+        }
+        NumericBinaryTree leaf = new NumericBinaryTree(value);
+        NumericBinaryTree node = this;
+        while (true) {
+            if (compareValues(value, node.rootValue) < 0) {
+                if (node.leftChild.isEmpty()) {
+                    node.leftChild = leaf;
+                    leaf.parent = node;
+                    node.modCount++;
+                    node.changed();
+                    return;
+                }
+                node = node.leftChild;
+            } else {
+                if (node.rightChild.isEmpty()) {
+                    node.rightChild = leaf;
+                    leaf.parent = node;
+                    node.modCount++;
+                    node.changed();
+                    return;
+                }
+                node = node.rightChild;
             }
-        } else if (nbt2.getLeftChild() == null) {
-            return false;
         }
-        if (nbt1.getLeftChild() != null
-            && !compareTrees(nbt1.getLeftChild(), nbt2.getLeftChild())) {
-            return false;
+    }
+
+    /**
+     * Determines the rank of a value in this binary search tree.
+     * Runs in time proportional to the height of the tree
+     * using cached subtree sizes while validation is enabled,
+     * and in linear time otherwise.
+     * @param value the value whose rank is sought
+     * @return the number of values of this tree less than value
+     * @throws IllegalArgumentException if value is null
+     */
+    public int rank(final Number value) throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException();
         }
-        if (nbt1.getRightChild() == null) {
-            if (nbt2.getRightChild() != null) {
-                return false;
+        int rank = 0;
+        NumericBinaryTree node = this;
+        while (!node.isEmpty()) {
+            if (compareValues(value, node.rootValue) <= 0) {
+                node = node.leftChild;
+            } else {
+                rank += (int) node.leftChild.aggregate(false) + 1;
+                node = node.rightChild;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Selects the value of a given rank in this binary search tree;
+     * for example, <code>select(numberOfNodes() / 2)</code>
+     * is a median.
+     * Runs in time proportional to the height of the tree
+     * using cached subtree sizes while validation is enabled,
+     * and in linear time otherwise.
+     * @param index the rank of the value, counting from 0
+     * @return the value at that position in inorder
+     * @throws IllegalArgumentException if index is negative or
+     *         not less than the number of nodes
+     */
+    public Number select(final int index) throws IllegalArgumentException {
+        if (index < 0 || index >= numberOfNodes()) {
+            throw new IllegalArgumentException("No value of rank " + index);
+        }
+        int remaining = index;
+        NumericBinaryTree node = this;
+        while (true) {
+            int leftSize = (int) node.leftChild.aggregate(false);
+            if (remaining < leftSize) {
+                node = node.leftChild;
+            } else if (remaining == leftSize) {
+                return node.rootValue;
+            } else {
+                remaining -= leftSize + 1;
+                node = node.rightChild;
             }
-        } else if (nbt2.getRightChild() == null) {
-            return false;
         }
-        if (nbt1.getRightChild() != null
-            && !compareTrees(nbt1.getRightChild(), nbt2.getRightChild())) {
+    }
+
+    /**
+     * Removes a value numerically equal to a value
+     * from this binary search tree.
+     * A node with two children takes the value of its inorder successor,
+     * which is removed in its place.
+     * The versions of the trees along the affected path,
+     * and of the ancestors of this tree, are advanced.
+     * @param value the value to remove
+     * @return true if a value was removed;
+     *         false if no such value was present
+     * @throws IllegalArgumentException if value is null
+     */
+    public boolean remove(final Number value)
+        throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException();
+        }
+        NumericBinaryTree above = null;
+        NumericBinaryTree node = this;
+        while (!node.isEmpty() && compareValues(value, node.rootValue) != 0) {
+            above = node;
+            node = node.childToward(value);
+        }
+        if (node.isEmpty()) {
             return false;
         }
+        if (!node.leftChild.isEmpty() && !node.rightChild.isEmpty()) {
+            above = node;
+            NumericBinaryTree successor = node.rightChild;
+            while (!successor.leftChild.isEmpty()) {
+                above = successor;
+                successor = successor.leftChild;
+            }
+            node.rootValue = successor.rootValue;
+            node.modCount++;
+            node = successor;
+        }
+        NumericBinaryTree replacement = node.leftChild;
+        if (replacement.isEmpty()) {
+            replacement = node.rightChild;
+        }
+        if (above == null) {
+            this.modCount++;
+            if (replacement.isEmpty()) {
+                this.rootValue = EMPTY_ROOT_VALUE;
+                this.leftChild = null;
+                this.rightChild = null;
+            } else {
+                this.rootValue = replacement.rootValue;
+                this.leftChild = replacement.leftChild;
+                this.rightChild = replacement.rightChild;
+                adopt(this.leftChild);
+                adopt(this.rightChild);
+            }
+            changed();
+        } else {
+            if (above.leftChild == node) {
+                above.leftChild = replacement;
+            } else {
+                above.rightChild = replacement;
+            }
+            above.adopt(replacement);
+            above.modCount++;
+            above.changed();
+        }
         return true;
     }
+
+    /**
+     * Returns the child of this nonempty search tree in which
+     * a value not equal to its root value belongs.
+     * @param value the value
+     * @return the left child if value is less than the root value;
+     *         the right child otherwise
+     */
+    private NumericBinaryTree childToward(final Number value) {
+        if (compareValues(value, this.rootValue) < 0) {
+            return this.leftChild;
+        }
+        return this.rightChild;
+    }
+
+    /**
+     * Determines for each of many keys whether this binary search tree
+     * holds a numerically equal value.
+     * The keys are sorted and resolved in a single walk of the tree,
+     * so keys sharing a path share the cost of walking it.
+     * @param keys the keys sought
+     * @return for each key, in the same order,
+     *         whether a numerically equal value is present
+     * @throws IllegalArgumentException if keys is null
+     */
+    public boolean[] containsAll(final long[] keys)
+        throws IllegalArgumentException {
+        if (keys == null) {
+            throw new IllegalArgumentException();
+        }
+        return SearchTreeBatch.containsAll(this, keys);
+    }
+
+    /**
+     * Inserts many values into this binary search tree.
+     * The values are sorted and placed in a single walk of the tree;
+     * values reaching the same empty child are attached as a balanced
+     * subtree, so the resulting shape may differ from that
+     * produced by inserting the values one at a time.
+     * @param values the values to insert
+     * @throws IllegalArgumentException if values is null
+     */
+    public void insertAll(final double[] values)
+        throws IllegalArgumentException {
+        if (values == null) {
+            throw new IllegalArgumentException();
+        }
+        SearchTreeBatch.insertAll(this, values);
+    }
+
+    /**
+     * Counts the values of this binary search tree within a range.
+     * Runs in time proportional to the height of the tree
+     * using cached subtree aggregates while validation is enabled,
+     * and in linear time otherwise.
+     * @param low the least value of the range
+     * @param high the greatest value of the range
+     * @return the number of values v such that low &lt;= v &lt;= high
+     * @throws IllegalArgumentException if either bound is null
+     */
+    public int countRange(final Number low, final Number high)
+        throws IllegalArgumentException {
+        return (int) aggregateRange(low, high, false);
+    }
+
+    /**
+     * Counts the values of this binary search tree within each
+     * of many ranges.
+     * @param lows the least value of each range
+     * @param highs the greatest value of each range
+     * @return for each range, in the same order,
+     *         the number of values v such that low &lt;= v &lt;= high
+     * @throws IllegalArgumentException if either array is null
+     *         or the arrays differ in length
+     */
+    public int[] countRanges(final double[] lows, final double[] highs)
+        throws IllegalArgumentException {
+        if (lows == null || highs == null || lows.length != highs.length) {
+            throw new IllegalArgumentException();
+        }
+        int[] counts = new int[lows.length];
+        for (int i = 0; i < lows.length; i++) {
+            counts[i] = countRange(lows[i], highs[i]);
+        }
+        return counts;
+    }
+
+    /**
+     * Sums the values of this binary search tree within a range.
+     * Runs in time proportional to the height of the tree
+     * using cached subtree aggregates while validation is enabled,
+     * and in linear time otherwise.
+     * @param low the least value of the range
+     * @param high the greatest value of the range
+     * @return the sum, as a double, of the values v
+     *         such that low &lt;= v &lt;= high; 0 if there are none
+     * @throws IllegalArgumentException if either bound is null
+     */
+    public double sumRange(final Number low, final Number high)
+        throws IllegalArgumentException {
+        return aggregateRange(low, high, true);
+    }
+
+    /**
+     * Finds the least value of this binary search tree within a range.
+     * @param low the least value of the range
+     * @param high the greatest value of the range
+     * @return the least value v such that low &lt;= v &lt;= high;
+     *         null if there is none
+     * @throws IllegalArgumentException if either bound is null
+     */
+    public Number minRange(final Number low, final Number high)
+        throws IllegalArgumentException {
+        if (low == null || high == null) {
+            throw new IllegalArgumentException();
+        }
+        Number least = null;
+        NumericBinaryTree node = this;
+        while (!node.isEmpty()) {
+            if (compareValues(node.rootValue, low) >= 0) {
+                least = node.rootValue;
+                node = node.leftChild;
+            } else {
+                node = node.rightChild;
+            }
+        }
+        if (least == null || compareValues(least, high) > 0) {
+            return null;
+        }
+        return least;
+    }
+
+    /**
+     * Finds the greatest value of this binary search tree within a range.
+     * @param low the least value of the range
+     * @param high the greatest value of the range
+     * @return the greatest value v such that low &lt;= v &lt;= high;
+     *         null if there is none
+     * @throws IllegalArgumentException if either bound is null
+     */
+    public Number maxRange(final Number low, final Number high)
+        throws IllegalArgumentException {
+        if (low == null || high == null) {
+            throw new IllegalArgumentException();
+        }
+        Number greatest = null;
+        NumericBinaryTree node = this;
+        while (!node.isEmpty()) {
+            if (compareValues(node.rootValue, high) <= 0) {
+                greatest = node.rootValue;
+                node = node.rightChild;
+            } else {
+                node = node.leftChild;
+            }
+        }
+        if (greatest == null || compareValues(greatest, low) < 0) {
+            return null;
+        }
+        return greatest;
+    }
+
+    /**
+     * Counts or sums the values of this binary search tree within a range.
+     * The paths to the two ends of the range are walked from the node
+     * at which they diverge, adding the cached aggregates of the subtrees
+     * lying wholly between them.
+     * @param low the least value of the range
+     * @param high the greatest value of the range
+     * @param sum true to sum the values; false to count them
+     * @return the count or sum of the values v
+     *         such that low &lt;= v &lt;= high
+     * @throws IllegalArgumentException if either bound is null
+     */
+    private double aggregateRange(final Number low, final Number high,
+                                  final boolean sum)
+        throws IllegalArgumentException {
+        if (low == null || high == null) {
+            throw new IllegalArgumentException();
+        }
+        if (isEmpty()) {
+            return 0;
+        }
+        NumericBinaryTree split = this;
+        while (!split.isEmpty()) {
+            if (compareValues(split.rootValue, low) < 0) {
+                split = split.rightChild;
+            } else if (compareValues(split.rootValue, high) > 0) {
+                split = split.leftChild;
+            } else {
+                break;
+            }
+        }
+        if (split.isEmpty()) {
+            return 0;
+        }
+        double total = split.aggregateOfRoot(sum);
+        // Left of the split, every value is at most high.
+        NumericBinaryTree node = split.leftChild;
+        while (!node.isEmpty()) {
+            if (compareValues(node.rootValue, low) >= 0) {
+                total += node.aggregateOfRoot(sum)
+                         + node.rightChild.aggregate(sum);
+                node = node.leftChild;
+            } else {
+                node = node.rightChild;
+            }
+        }
+        // Right of the split, every value is at least low.
+        node = split.rightChild;
+        while (!node.isEmpty()) {
+            if (compareValues(node.rootValue, high) <= 0) {
+                total += node.aggregateOfRoot(sum)
+                         + node.leftChild.aggregate(sum);
+                node = node.rightChild;
+            } else {
+                node = node.leftChild;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the count or sum of the root value of this nonempty tree.
+     * @param sum true for the sum; false for the count
+     * @return the root value as a double, or 1
+     */
+    private double aggregateOfRoot(final boolean sum) {
+        if (sum) {
+            return this.rootValue.doubleValue();
+        }
+        return 1;
+    }
+
+    /**
+     * Compares two trees for shape and contents in a single
+     * iterative pass that walks both trees in lockstep; identical
+     * subtree references are accepted without being visited, and
+     * trees with differing cached sizes, current under validation,
+     * are rejected unvisited.
+     * @param nbt1 first tree for comparison
+     * @param nbt2 second tree for comparison
+     * @param numeric <code>true</code> to compare values numerically;
+     *        <code>false</code> to compare values using equals
+     * @return true if and only if both are non-null,
+     *      have the same structure, and have equal values
+     *      at respective nodes
+     */
+    private static boolean compareTrees(final NumericBinaryTree nbt1,
+                                        final NumericBinaryTree nbt2,
+                                        final boolean numeric) {
+        if (nbt1 == null || nbt2 == null
+            || (validation && !nbt1.isAggregateStale()
+                && !nbt2.isAggregateStale()
+                && nbt1.cachedAggregate(false)
+                   != nbt2.cachedAggregate(false))) {
+            return false;
+        }
+        ArrayDeque<NumericBinaryTree> pending
+                = new ArrayDeque<NumericBinaryTree>();
+        NumericBinaryTree first = nbt1;
+        NumericBinaryTree second = nbt2;
+        while (true) {
+            if (first != second) {
+                if (first.isEmpty() || second.isEmpty()) {
+                    if (first.isEmpty() != second.isEmpty()) {
+                        return false;
+                    }
+                } else {
+                    if (!valuesEqual(first.rootValue, second.rootValue,
+                                     numeric)) {
+                        return false;
+                    }
+                    pending.push(second.rightChild);
+                    pending.push(first.rightChild);
+                    first = first.leftChild;
+                    second = second.leftChild;
+                    continue;
+                }
+            }
+            if (pending.isEmpty()) {
+                return true;
+            }
+            first = pending.pop();
+            second = pending.pop();
+        }
+    }
+
+    /**
+     * Compares two non-null values.
+     * @param value1 first value for comparison
+     * @param value2 second value for comparison
+     * @param numeric <code>true</code> to compare numerically;
+     *        <code>false</code> to compare using equals
+     * @return true if and only if the values are equal
+     */
+    private static boolean valuesEqual(final Number value1,
+                                       final Number value2,
+                                       final boolean numeric) {
+        if (value1.equals(value2)) {
+            return true;
+        }
+        return numeric && NumericComparator.equal(value1, value2);
+    }
+
+    /**
+     * Compares two non-null values numerically.
+     * NaN is greater than every other value and equal to itself;
+     * negative zero is equal to zero.
+     * @param value1 first value for comparison
+     * @param value2 second value for comparison
+     * @return a negative integer, zero, or a positive integer
+     *         as value1 is less than, equal to, or greater than value2
+     * @see NumericComparator
+     */
+    private static int compareValues(final Number value1,
+                                     final Number value2) {
+        return NumericComparator.compareNumbers(value1, value2);
+    }
 }
@@ -0,0 +1,588 @@
+// NumericBinaryTreeJournal.java
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+/**
+ * Write-ahead mutation journal for a NumericBinaryTree.
+ * <p>
+ * Modifications made through a journal are appended to a binary
+ * journal file before being applied to the tree,
+ * so making a batch of changes durable costs I/O proportional
+ * to the size of the changes rather than the size of the tree.
+ * The journal is forced to storage once every
+ * {@link #setSyncInterval(int) sync interval} records
+ * and whenever {@link #sync()} is invoked.
+ * </p>
+ * <p>
+ * A checkpoint saves the whole tree using
+ * {@link NumericBinaryTree#save(String)} and starts a new journal.
+ * The journal header records the length and checksum of the checkpoint
+ * it extends, so a crash between replacing the checkpoint and
+ * starting the new journal never replays records twice.
+ * {@link #recover(NumericBinaryTree, String, String) Recovery}
+ * restores the checkpoint and replays the journal,
+ * discarding a torn record at its end.
+ * </p>
+ * <p>
+ * Nodes are addressed by their path from the root,
+ * a string of <code>'L'</code> and <code>'R'</code> characters;
+ * the empty string addresses the root.
+ * Modifications made directly to the tree are not journaled.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public final class NumericBinaryTreeJournal implements java.io.Closeable {
+
+    /** Default number of records between forced writes. */
+    public static final int DEFAULT_SYNC_INTERVAL = 64;
+
+    /** Journal file identification ("NBTJ"). */
+    private static final int MAGIC = 0x4E42544A;
+
+    /** Length of the journal header: magic, checkpoint length and CRC. */
+    private static final int HEADER_LENGTH
+            = (Integer.SIZE + 2 * Long.SIZE) / Byte.SIZE;
+
+    /** Length of the framing around each record: length and CRC. */
+    private static final int FRAME_LENGTH = 2 * Integer.SIZE / Byte.SIZE;
+
+    /** Suffix of the file in which a checkpoint is prepared. */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** Record kind: replace the value of the addressed node. */
+    private static final int SET_VALUE = 0;
+
+    /** Record kind: replace the left child of the addressed node. */
+    private static final int SET_LEFT = 1;
+
+    /** Record kind: replace the right child of the addressed node. */
+    private static final int SET_RIGHT = 2;
+
+    /** Path character descending to the left child. */
+    private static final char LEFT = 'L';
+
+    /** Path character descending to the right child. */
+    private static final char RIGHT = 'R';
+
+    /** Size of the buffer used to checksum files. */
+    private static final int CHECKSUM_BUFFER_SIZE = 8192;
+
+    /** The journaled tree. */
+    private final NumericBinaryTree tree;
+
+    /** Name of the checkpoint file. */
+    private final String checkpointFileName;
+
+    /** Name of the journal file. */
+    private final String journalFileName;
+
+    /** Buffer in which each record is assembled. */
+    private final ByteArrayOutputStream recordBytes
+            = new ByteArrayOutputStream();
+
+    /** Journal file being appended. */
+    private FileOutputStream journalFile;
+
+    /** Buffered stream over the journal file. */
+    private DataOutputStream journal;
+
+    /** Number of records between forced writes. */
+    private int syncInterval = DEFAULT_SYNC_INTERVAL;
+
+    /** Number of records between automatic checkpoints; 0 if never. */
+    private int checkpointInterval;
+
+    /** Records written since the journal was last forced. */
+    private int unsyncedRecords;
+
+    /** Records written since the last checkpoint. */
+    private int journaledRecords;
+
+    /**
+     * Constructs a journal without opening any file.
+     * @param nbt the journaled tree
+     * @param checkpointName name of the checkpoint file
+     * @param journalName name of the journal file
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    private NumericBinaryTreeJournal(final NumericBinaryTree nbt,
+                                     final String checkpointName,
+                                     final String journalName) {
+        if (nbt == null || checkpointName == null || journalName == null) {
+            throw new IllegalArgumentException();
+        }
+        this.tree = nbt;
+        this.checkpointFileName = checkpointName;
+        this.journalFileName = journalName;
+    }
+
+    /**
+     * Starts journaling a tree, replacing any existing
+     * checkpoint and journal files with a checkpoint of the tree.
+     * @param nbt the tree to journal
+     * @param checkpointName name of the checkpoint file
+     * @param journalName name of the journal file
+     * @return a journal ready for modifications
+     * @throws IllegalArgumentException if any parameter is null
+     * @throws java.io.IOException if the checkpoint cannot be written
+     */
+    public static NumericBinaryTreeJournal create(
+            final NumericBinaryTree nbt,
+            final String checkpointName,
+            final String journalName)
+        throws IllegalArgumentException, IOException {
+        NumericBinaryTreeJournal created = new NumericBinaryTreeJournal(
+                nbt, checkpointName, journalName);
+        created.checkpoint();
+        return created;
+    }
+
+    /**
+     * Recovers a tree from a checkpoint and journal and
+     * resumes journaling it.
+     * <br><em>Postconditions:</em>
+     * <blockquote>The previous contents of the tree have been replaced
+     * by the checkpoint with all complete journal records applied.
+     * </blockquote>
+     * @param nbt the tree into which the journaled tree is restored
+     * @param checkpointName name of the checkpoint file
+     * @param journalName name of the journal file
+     * @return a journal ready for modifications
+     * @throws IllegalArgumentException if any parameter is null
+     * @throws java.io.IOException if the checkpoint cannot be restored
+     *         or the journal is not a journal file
+     */
+    public static NumericBinaryTreeJournal recover(
+            final NumericBinaryTree nbt,
+            final String checkpointName,
+            final String journalName)
+        throws IllegalArgumentException, IOException {
+        NumericBinaryTreeJournal recovered = new NumericBinaryTreeJournal(
+                nbt, checkpointName, journalName);
+        if (!nbt.restore(checkpointName)) {
+            throw new IOException("Cannot restore checkpoint "
+                                  + checkpointName);
+        }
+        long validLength = recovered.replay();
+        if (validLength < 0) {
+            recovered.startJournal();
+        } else {
+            recovered.journalFile = new FileOutputStream(journalName, true);
+            recovered.journalFile.getChannel().truncate(validLength);
+            recovered.journal = new DataOutputStream(
+                    new BufferedOutputStream(recovered.journalFile));
+        }
+        return recovered;
+    }
+
+    /**
+     * Returns the journaled tree.
+     * @return the tree modified by this journal
+     */
+    public NumericBinaryTree getTree() {
+        return this.tree;
+    }
+
+    /**
+     * Sets the number of records written between forced writes.
+     * Records written since the last forced write
+     * may be lost if the system fails.
+     * @param records number of records; 1 forces every record
+     * @throws IllegalArgumentException if records is less than 1
+     */
+    public void setSyncInterval(final int records)
+        throws IllegalArgumentException {
+        if (records < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.syncInterval = records;
+    }
+
+    /**
+     * Sets the number of records written between automatic checkpoints.
+     * @param records number of records; 0 disables automatic checkpoints
+     * @throws IllegalArgumentException if records is negative
+     */
+    public void setCheckpointInterval(final int records)
+        throws IllegalArgumentException {
+        if (records < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.checkpointInterval = records;
+    }
+
+    /**
+     * Modifies the value of the addressed node.
+     * @param path the path from the root to the node
+     * @param value the new value for the node
+     * @throws IllegalArgumentException if value is null
+     *         or the path does not address a node
+     * @throws java.lang.NullPointerException if the tree is empty
+     * @throws java.io.IOException if the record cannot be written
+     */
+    public void setValue(final String path, final Number value)
+        throws IllegalArgumentException, NullPointerException, IOException {
+        if (value == null) {
+            throw new IllegalArgumentException();
+        }
+        NumericBinaryTree node = locate(path);
+        beginRecord(SET_VALUE, path);
+        NumberCodec.writeNumber(new DataOutputStream(this.recordBytes), value);
+        endRecord();
+        node.setValue(value);
+        afterRecord();
+    }
+
+    /**
+     * Replaces the left child of the addressed node.
+     * @param path the path from the root to the node
+     * @param child the new left child; null or empty tree indicates no child
+     * @throws IllegalArgumentException if the path does not address a node,
+     *         or if validation is enabled and the child is rejected
+     * @throws java.lang.NullPointerException if the tree is empty
+     * @throws java.io.IOException if the record cannot be written
+     */
+    public void setLeftChild(final String path, final NumericBinaryTree child)
+        throws IllegalArgumentException, NullPointerException, IOException {
+        setChild(SET_LEFT, path, child);
+    }
+
+    /**
+     * Replaces the right child of the addressed node.
+     * @param path the path from the root to the node
+     * @param child the new right child; null or empty tree indicates no child
+     * @throws IllegalArgumentException if the path does not address a node,
+     *         or if validation is enabled and the child is rejected
+     * @throws java.lang.NullPointerException if the tree is empty
+     * @throws java.io.IOException if the record cannot be written
+     */
+    public void setRightChild(final String path, final NumericBinaryTree child)
+        throws IllegalArgumentException, NullPointerException, IOException {
+        setChild(SET_RIGHT, path, child);
+    }
+
+    /**
+     * Forces all journal records written so far to storage.
+     * @throws java.io.IOException if an I/O error occurs
+     */
+    public void sync() throws IOException {
+        this.journal.flush();
+        this.journalFile.getChannel().force(false);
+        this.unsyncedRecords = 0;
+    }
+
+    /**
+     * Saves the whole tree as a new checkpoint and starts a new journal.
+     * @throws java.io.IOException if the checkpoint cannot be written
+     *         or fails verification
+     */
+    public void checkpoint() throws IOException {
+        if (this.journal != null) {
+            sync();
+        }
+        String tempName = this.checkpointFileName + TEMP_SUFFIX;
+        if (!this.tree.save(tempName)) {
+            throw new IOException("Checkpoint verification failed");
+        }
+        File temp = new File(tempName);
+        File target = new File(this.checkpointFileName);
+        try {
+            Files.move(temp.toPath(), target.toPath(),
+                       StandardCopyOption.ATOMIC_MOVE,
+                       StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp.toPath(), target.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (this.journal != null) {
+            this.journal.close();
+        }
+        startJournal();
+    }
+
+    /**
+     * Forces outstanding records to storage and closes the journal file.
+     * @throws java.io.IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.journal != null) {
+            try {
+                sync();
+            } finally {
+                this.journal.close();
+                this.journal = null;
+            }
+        }
+    }
+
+    /**
+     * Journals and applies a child replacement.
+     * @param kind SET_LEFT or SET_RIGHT
+     * @param path the path from the root to the parent node
+     * @param child the new child; null or empty tree indicates no child
+     * @throws java.io.IOException if the record cannot be written
+     */
+    private void setChild(final int kind, final String path,
+                          final NumericBinaryTree child) throws IOException {
+        NumericBinaryTree node = locate(path);
+        // A change the tree would reject must not reach the journal.
+        node.checkChild(child, kind == SET_LEFT);
+        NumericBinaryTree subtree = child;
+        if (subtree == null) {
+            subtree = new NumericBinaryTree();
+        }
+        beginRecord(kind, path);
+        NumberCodec.writeTree(new DataOutputStream(this.recordBytes), subtree);
+        endRecord();
+        if (kind == SET_LEFT) {
+            node.setLeftChild(child);
+        } else {
+            node.setRightChild(child);
+        }
+        afterRecord();
+    }
+
+    /**
+     * Finds the node addressed by a path.
+     * @param path the path from the root
+     * @return the addressed node
+     * @throws IllegalArgumentException if the path does not address a node
+     * @throws java.lang.NullPointerException if the tree is empty
+     */
+    private NumericBinaryTree locate(final String path) {
+        if (path == null) {
+            throw new IllegalArgumentException();
+        }
+        if (this.tree.isEmpty()) {
+            throw new NullPointerException();
+        }
+        NumericBinaryTree node = this.tree;
+        for (int i = 0; i < path.length(); i++) {
+            char step = path.charAt(i);
+            if (step == LEFT) {
+                node = node.getLeftChild();
+            } else if (step == RIGHT) {
+                node = node.getRightChild();
+            } else {
+                node = null;
+            }
+            if (node == null) {
+                throw new IllegalArgumentException("No node at " + path);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Starts assembling a record.
+     * @param kind the record kind
+     * @param path the path from the root to the modified node
+     * @throws java.io.IOException if an I/O error occurs
+     */
+    private void beginRecord(final int kind, final String path)
+        throws IOException {
+        this.recordBytes.reset();
+        DataOutputStream out = new DataOutputStream(this.recordBytes);
+        out.writeByte(kind);
+        out.writeInt(path.length());
+        int packed = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == RIGHT) {
+                packed |= 1 << (i % Byte.SIZE);
+            }
+            if (i % Byte.SIZE == Byte.SIZE - 1) {
+                out.writeByte(packed);
+                packed = 0;
+            }
+        }
+        if (path.length() % Byte.SIZE != 0) {
+            out.writeByte(packed);
+        }
+    }
+
+    /**
+     * Appends the assembled record, framed by its length and checksum.
+     * @throws java.io.IOException if an I/O error occurs
+     */
+    private void endRecord() throws IOException {
+        byte[] bytes = this.recordBytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        this.journal.writeInt(bytes.length);
+        this.journal.write(bytes);
+        this.journal.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Performs forced writes and checkpoints that are due
+     * after a record has been applied.
+     * @throws java.io.IOException if an I/O error occurs
+     */
+    private void afterRecord() throws IOException {
+        this.journaledRecords++;
+        this.unsyncedRecords++;
+        if (this.checkpointInterval > 0
+            && this.journaledRecords >= this.checkpointInterval) {
+            checkpoint();
+        } else if (this.unsyncedRecords >= this.syncInterval) {
+            sync();
+        }
+    }
+
+    /**
+     * Creates an empty journal extending the current checkpoint.
+     * @throws java.io.IOException if an I/O error occurs
+     */
+    private void startJournal() throws IOException {
+        long[] fingerprint = fingerprint(this.checkpointFileName);
+        this.journalFile = new FileOutputStream(this.journalFileName, false);
+        this.journal = new DataOutputStream(
+                new BufferedOutputStream(this.journalFile));
+        this.journal.writeInt(MAGIC);
+        this.journal.writeLong(fingerprint[0]);
+        this.journal.writeLong(fingerprint[1]);
+        sync();
+        this.journaledRecords = 0;
+    }
+
+    /**
+     * Applies the complete records of the journal file to the tree.
+     * @return the length of the journal up to its last complete record;
+     *         -1 if the journal is missing, incomplete,
+     *         or extends a previous checkpoint
+     * @throws java.io.IOException if the journal is not a journal file
+     */
+    private long replay() throws IOException {
+        File file = new File(this.journalFileName);
+        if (!file.exists()) {
+            return -1;
+        }
+        long[] fingerprint = fingerprint(this.checkpointFileName);
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)));
+        try {
+            long position;
+            try {
+                if (in.readInt() != MAGIC) {
+                    throw new InvalidObjectException(
+                            "Not a journal file: " + this.journalFileName);
+                }
+                if (in.readLong() != fingerprint[0]
+                    || in.readLong() != fingerprint[1]) {
+                    return -1;
+                }
+                position = HEADER_LENGTH;
+            } catch (EOFException ex) {
+                return -1;
+            }
+            while (true) {
+                byte[] bytes;
+                try {
+                    int length = in.readInt();
+                    if (length < 0 || length > file.length() - position) {
+                        return position;
+                    }
+                    bytes = new byte[length];
+                    in.readFully(bytes);
+                    CRC32 crc = new CRC32();
+                    crc.update(bytes, 0, bytes.length);
+                    if (in.readInt() != (int) crc.getValue()) {
+                        return position;
+                    }
+                } catch (EOFException ex) {
+                    return position;
+                }
+                apply(bytes);
+                position += FRAME_LENGTH + bytes.length;
+                this.journaledRecords++;
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Applies one journal record to the tree.
+     * @param bytes the record contents
+     * @throws java.io.IOException if the record is invalid
+     */
+    private void apply(final byte[] bytes) throws IOException {
+        DataInputStream in
+                = new DataInputStream(new ByteArrayInputStream(bytes));
+        int kind = in.readUnsignedByte();
+        int length = in.readInt();
+        StringBuilder path = new StringBuilder(length);
+        int packed = 0;
+        for (int i = 0; i < length; i++) {
+            if (i % Byte.SIZE == 0) {
+                packed = in.readUnsignedByte();
+            }
+            if ((packed & (1 << (i % Byte.SIZE))) == 0) {
+                path.append(LEFT);
+            } else {
+                path.append(RIGHT);
+            }
+        }
+        try {
+            NumericBinaryTree node = locate(path.toString());
+            switch (kind) {
+                case SET_VALUE:
+                    node.setValue(NumberCodec.readNumber(in));
+                    break;
+                case SET_LEFT:
+                    node.setLeftChild(NumberCodec.readTree(in));
+                    break;
+                case SET_RIGHT:
+                    node.setRightChild(NumberCodec.readTree(in));
+                    break;
+                default:
+                    throw new InvalidObjectException("Unknown record " + kind);
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidObjectException(ex.getMessage());
+        } catch (NullPointerException ex) {
+            throw new InvalidObjectException("Record applied to empty tree");
+        }
+    }
+
+    /**
+     * Computes the length and checksum of a file.
+     * @param fileName the name of the file
+     * @return the length of the file and its CRC-32 checksum
+     * @throws java.io.IOException if the file cannot be read
+     */
+    private static long[] fingerprint(final String fileName)
+        throws IOException {
+        CRC32 crc = new CRC32();
+        long length = 0;
+        InputStream in = new FileInputStream(fileName);
+        try {
+            byte[] buffer = new byte[CHECKSUM_BUFFER_SIZE];
+            int count = in.read(buffer);
+            while (count >= 0) {
+                crc.update(buffer, 0, count);
+                length += count;
+                count = in.read(buffer);
+            }
+        } finally {
+            in.close();
+        }
+        return new long[] {length, crc.getValue()};
+    }
+}
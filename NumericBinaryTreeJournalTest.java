@@ -0,0 +1,188 @@
+// NumericBinaryTreeJournalTest.java
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Tests for NumericBinaryTreeJournal.
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public class NumericBinaryTreeJournalTest {
+    /** Checkpoint filename used for testing. */
+    public static final String CHECKPOINT_FILENAME
+            = "journalTestCheckpoint.ser";
+    /** Journal filename used for testing. */
+    public static final String JOURNAL_FILENAME = "journalTestJournal.ser";
+
+    /** Root indicator. */
+    private static final Number ROOT = 42;
+    /** Left child indicator. */
+    private static final Number LEFT = 21;
+    /** Right child indicator. */
+    private static final Number RIGHT = 63;
+    /** Replacement value indicator. */
+    private static final Number CHANGED = 99L;
+    /** Number of records written by bulk tests. */
+    private static final int MANY_RECORDS = 200;
+
+    /**
+     * Generates a small tree for testing.
+     * @return testing tree
+     */
+    private NumericBinaryTree generateTestTree() {
+        return new NumericBinaryTree(ROOT,
+                new NumericBinaryTree(LEFT),
+                new NumericBinaryTree(RIGHT));
+    }
+
+    /**
+     * Verifies that journaled modifications survive recovery.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void recoverTest() throws IOException {
+        NumericBinaryTree nbt = generateTestTree();
+        NumericBinaryTreeJournal journal = NumericBinaryTreeJournal.create(
+                nbt, CHECKPOINT_FILENAME, JOURNAL_FILENAME);
+        journal.setValue("", CHANGED);
+        journal.setLeftChild("L", new NumericBinaryTree(RIGHT));
+        journal.setRightChild("", null);
+        journal.setValue("LL", 1.5);
+        journal.close();
+        NumericBinaryTree expected = new NumericBinaryTree(CHANGED,
+                new NumericBinaryTree(LEFT, new NumericBinaryTree(1.5), null),
+                null);
+        assertEquals(expected, nbt);
+        NumericBinaryTree recovered = new NumericBinaryTree();
+        journal = NumericBinaryTreeJournal.recover(
+                recovered, CHECKPOINT_FILENAME, JOURNAL_FILENAME);
+        assertEquals(expected, recovered);
+        journal.setValue("L", ROOT);
+        journal.close();
+        recovered = new NumericBinaryTree();
+        NumericBinaryTreeJournal.recover(
+                recovered, CHECKPOINT_FILENAME, JOURNAL_FILENAME).close();
+        assertEquals(ROOT, recovered.getLeftChild().getValue());
+    }
+
+    /**
+     * Verifies that a torn record at the end of the journal is discarded.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void tornRecordTest() throws IOException {
+        NumericBinaryTree nbt = generateTestTree();
+        NumericBinaryTreeJournal journal = NumericBinaryTreeJournal.create(
+                nbt, CHECKPOINT_FILENAME, JOURNAL_FILENAME);
+        journal.setValue("R", CHANGED);
+        journal.close();
+        FileOutputStream out = new FileOutputStream(JOURNAL_FILENAME, true);
+        out.write(new byte[] {0, 0, 0, 2 * Byte.SIZE, 1, 2, 3});
+        out.close();
+        NumericBinaryTree recovered = new NumericBinaryTree();
+        journal = NumericBinaryTreeJournal.recover(
+                recovered, CHECKPOINT_FILENAME, JOURNAL_FILENAME);
+        assertEquals(nbt, recovered);
+        journal.setValue("L", CHANGED);
+        journal.close();
+        recovered = new NumericBinaryTree();
+        NumericBinaryTreeJournal.recover(
+                recovered, CHECKPOINT_FILENAME, JOURNAL_FILENAME).close();
+        assertEquals(CHANGED, recovered.getLeftChild().getValue());
+    }
+
+    /**
+     * Verifies that records already contained in a newer checkpoint
+     * are not replayed.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void checkpointWithoutNewJournalTest() throws IOException {
+        NumericBinaryTree nbt = generateTestTree();
+        NumericBinaryTreeJournal journal = NumericBinaryTreeJournal.create(
+                nbt, CHECKPOINT_FILENAME, JOURNAL_FILENAME);
+        journal.setValue("L", CHANGED);
+        journal.setLeftChild("", null);
+        journal.close();
+        // Simulate failure after the checkpoint was replaced.
+        assertTrue(nbt.save(CHECKPOINT_FILENAME));
+        NumericBinaryTree recovered = new NumericBinaryTree();
+        NumericBinaryTreeJournal.recover(
+                recovered, CHECKPOINT_FILENAME, JOURNAL_FILENAME).close();
+        assertEquals(nbt, recovered);
+        assertNull(recovered.getLeftChild());
+    }
+
+    /**
+     * Verifies automatic checkpoints keep the journal short.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void automaticCheckpointTest() throws IOException {
+        NumericBinaryTree nbt = generateTestTree();
+        NumericBinaryTreeJournal journal = NumericBinaryTreeJournal.create(
+                nbt, CHECKPOINT_FILENAME, JOURNAL_FILENAME);
+        journal.setCheckpointInterval(MANY_RECORDS / 2);
+        journal.setSyncInterval(1);
+        long firstLength = 0;
+        for (int i = 0; i < MANY_RECORDS; i++) {
+            journal.setValue("R", (long) i);
+            if (i == 0) {
+                firstLength = new File(JOURNAL_FILENAME).length();
+            }
+        }
+        journal.setValue("R", CHANGED);
+        journal.close();
+        assertEquals(firstLength, new File(JOURNAL_FILENAME).length());
+        NumericBinaryTree recovered = new NumericBinaryTree();
+        NumericBinaryTreeJournal.recover(
+                recovered, CHECKPOINT_FILENAME, JOURNAL_FILENAME).close();
+        assertEquals(nbt, recovered);
+    }
+
+    /**
+     * Verifies that a child rejected by validation is not journaled.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void rejectedChildTest() throws IOException {
+        NumericBinaryTree nbt = generateTestTree();
+        NumericBinaryTreeJournal journal = NumericBinaryTreeJournal.create(
+                nbt, CHECKPOINT_FILENAME, JOURNAL_FILENAME);
+        NumericBinaryTree.setValidation(true);
+        try {
+            journal.setLeftChild("", nbt.getRightChild());
+            fail("Shared child accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals(LEFT, nbt.getLeftChild().getValue());
+        } finally {
+            NumericBinaryTree.setValidation(false);
+            journal.close();
+        }
+        NumericBinaryTree recovered = new NumericBinaryTree();
+        NumericBinaryTreeJournal.recover(
+                recovered, CHECKPOINT_FILENAME, JOURNAL_FILENAME).close();
+        assertEquals(nbt, recovered);
+    }
+
+    /**
+     * Verifies exception for a path that addresses no node.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void missingNodeException() throws IOException {
+        NumericBinaryTreeJournal journal = NumericBinaryTreeJournal.create(
+                generateTestTree(), CHECKPOINT_FILENAME, JOURNAL_FILENAME);
+        try {
+            journal.setValue("LL", CHANGED);
+        } finally {
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,364 @@
+// NumericBinaryTreePatch.java
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+/**
+ * A set of edits that transforms one NumericBinaryTree into another.
+ * <p>
+ * A patch is produced by {@link #diff(NumericBinaryTree, NumericBinaryTree)}
+ * and contains only the differences between the two trees:
+ * changed root values, and subtrees that were inserted, removed
+ * or replaced.
+ * Subtrees present in both trees as the same reference are not visited,
+ * so the cost of a diff is proportional to the part of the trees
+ * that is not shared.
+ * </p>
+ * <p>
+ * Each edit addresses a node by its path from the root,
+ * stored as a packed sequence of left/right bits.
+ * A patch is serializable in a compact form
+ * and can therefore be shipped to another process
+ * holding a copy of the original tree.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public final class NumericBinaryTreePatch implements java.io.Serializable {
+
+    /**
+     * Serialization version indicator used to determine
+     *    if a file is compatible with this class.
+     */
+    private static final long serialVersionUID = 2016081718L;
+
+    /** Edit kind: replace the value of the addressed node. */
+    private static final int SET_VALUE = 0;
+
+    /** Edit kind: replace the left child of the addressed node. */
+    private static final int SET_LEFT = 1;
+
+    /** Edit kind: replace the right child of the addressed node. */
+    private static final int SET_RIGHT = 2;
+
+    /** Edit kind: replace the entire tree. */
+    private static final int REPLACE_TREE = 3;
+
+    /** Number of path bits packed into each word. */
+    private static final int BITS_PER_WORD = Long.SIZE;
+
+    /** Edits in the order in which they are applied. */
+    private transient List<Edit> edits;
+
+    /**
+     * Constructs a patch from a list of edits.
+     * @param patchEdits edits in the order in which they are applied
+     */
+    private NumericBinaryTreePatch(final List<Edit> patchEdits) {
+        this.edits = patchEdits;
+    }
+
+    /**
+     * Computes the patch that transforms one tree into another.
+     * @param original the tree to which the patch will be applied
+     * @param revised the tree that applying the patch reproduces
+     * @return the differences between the two trees
+     * @throws IllegalArgumentException if either parameter is null
+     */
+    public static NumericBinaryTreePatch diff(
+            final NumericBinaryTree original,
+            final NumericBinaryTree revised)
+        throws IllegalArgumentException {
+        if (original == null || revised == null) {
+            throw new IllegalArgumentException();
+        }
+        Differ differ = new Differ();
+        if (original.isEmpty() != revised.isEmpty()) {
+            differ.emit(REPLACE_TREE, null, revised.deepCopy());
+        } else if (!original.isEmpty()) {
+            differ.compareNodes(original, revised);
+        }
+        return new NumericBinaryTreePatch(differ.found);
+    }
+
+    /**
+     * Returns the number of edits in this patch.
+     * @return the number of edits
+     */
+    public int size() {
+        return this.edits.size();
+    }
+
+    /**
+     * Empty patch predicate.
+     * @return <code>true</code> if this patch makes no changes;
+     *         <code>false</code> otherwise
+     */
+    public boolean isEmpty() {
+        return this.edits.isEmpty();
+    }
+
+    /**
+     * Applies this patch to a tree.
+     * <br><em>Postconditions:</em>
+     * <blockquote>If successful, the tree is equal to the revised tree
+     * from which this patch was computed.
+     * If unsuccessful, the tree is unchanged.</blockquote>
+     * @param target the tree to modify; must be equal to the original
+     *        tree from which this patch was computed
+     * @throws IllegalArgumentException if target is null or
+     *         its structure does not match this patch
+     */
+    public void applyTo(final NumericBinaryTree target)
+        throws IllegalArgumentException {
+        if (target == null) {
+            throw new IllegalArgumentException();
+        }
+        for (Edit edit : this.edits) {
+            if (edit.kind != REPLACE_TREE && locate(target, edit) == null) {
+                throw new IllegalArgumentException(
+                        "Patch does not match tree structure");
+            }
+        }
+        for (Edit edit : this.edits) {
+            switch (edit.kind) {
+                case SET_VALUE:
+                    locate(target, edit).setValue(edit.value);
+                    break;
+                case SET_LEFT:
+                    locate(target, edit).setLeftChild(copyOf(edit.subtree));
+                    break;
+                case SET_RIGHT:
+                    locate(target, edit).setRightChild(copyOf(edit.subtree));
+                    break;
+                default:
+                    target.assign(edit.subtree.deepCopy());
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Finds the node addressed by an edit.
+     * @param root the root of the tree being patched
+     * @param edit the edit whose node is sought
+     * @return the addressed node; null if there is no such node
+     */
+    private static NumericBinaryTree locate(final NumericBinaryTree root,
+                                            final Edit edit) {
+        if (root.isEmpty()) {
+            return null;
+        }
+        NumericBinaryTree node = root;
+        for (int i = 0; i < edit.depth && node != null; i++) {
+            if (isRight(edit.path, i)) {
+                node = node.getRightChild();
+            } else {
+                node = node.getLeftChild();
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Copies a subtree carried by an edit.
+     * @param subtree the subtree to copy; null if no subtree
+     * @return a copy of the subtree; null if no subtree
+     */
+    private static NumericBinaryTree copyOf(final NumericBinaryTree subtree) {
+        if (subtree == null) {
+            return null;
+        }
+        return subtree.deepCopy();
+    }
+
+    /**
+     * Determines the direction of one step of a path.
+     * @param path the packed path bits
+     * @param step the index of the step
+     * @return true if the step descends to the right child
+     */
+    private static boolean isRight(final long[] path, final int step) {
+        return (path[step / BITS_PER_WORD]
+                & (1L << (step % BITS_PER_WORD))) != 0;
+    }
+
+    /**
+     * Determines the number of words needed to pack a path.
+     * @param depth the number of steps in the path
+     * @return the number of words
+     */
+    private static int wordsFor(final int depth) {
+        return (depth + BITS_PER_WORD - 1) / BITS_PER_WORD;
+    }
+
+    /**
+     * Writes this patch in compact form.
+     * @param out the stream to which this patch is written
+     * @throws IOException if an I/O error occurs
+     * @serialData the number of edits, followed by each edit as
+     *   its kind (byte), path length (int), packed path bits (longs),
+     *   and the new value or subtree (object)
+     */
+    private void writeObject(final ObjectOutputStream out)
+        throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(this.edits.size());
+        for (Edit edit : this.edits) {
+            out.writeByte(edit.kind);
+            out.writeInt(edit.depth);
+            for (long word : edit.path) {
+                out.writeLong(word);
+            }
+            if (edit.kind == SET_VALUE) {
+                out.writeObject(edit.value);
+            } else {
+                out.writeObject(edit.subtree);
+            }
+        }
+    }
+
+    /**
+     * Reads a patch written by {@link #writeObject(ObjectOutputStream)}.
+     * @param in the stream from which this patch is read
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if a value class cannot be found
+     */
+    private void readObject(final ObjectInputStream in)
+        throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int count = in.readInt();
+        this.edits = new ArrayList<Edit>(count);
+        for (int i = 0; i < count; i++) {
+            int kind = in.readByte();
+            int depth = in.readInt();
+            long[] path = new long[wordsFor(depth)];
+            for (int w = 0; w < path.length; w++) {
+                path[w] = in.readLong();
+            }
+            Object payload = in.readObject();
+            if (kind == SET_VALUE) {
+                this.edits.add(new Edit(kind, depth, path,
+                                        (Number) payload, null));
+            } else {
+                this.edits.add(new Edit(kind, depth, path, null,
+                                        (NumericBinaryTree) payload));
+            }
+        }
+    }
+
+    /**
+     * A single change to the node at a path.
+     */
+    private static final class Edit {
+        /** Kind of change. */
+        private final int kind;
+        /** Number of steps from the root to the addressed node. */
+        private final int depth;
+        /** Packed path bits; a set bit descends to the right child. */
+        private final long[] path;
+        /** New value for SET_VALUE edits. */
+        private final Number value;
+        /** New subtree for child and tree replacements; null if none. */
+        private final NumericBinaryTree subtree;
+
+        /**
+         * Constructs an edit.
+         * @param editKind kind of change
+         * @param pathDepth number of steps from the root
+         * @param pathBits packed path bits
+         * @param newValue new value; null unless SET_VALUE
+         * @param newSubtree new subtree; null if none
+         */
+        Edit(final int editKind, final int pathDepth, final long[] pathBits,
+             final Number newValue, final NumericBinaryTree newSubtree) {
+            this.kind = editKind;
+            this.depth = pathDepth;
+            this.path = pathBits;
+            this.value = newValue;
+            this.subtree = newSubtree;
+        }
+    }
+
+    /**
+     * Walks two trees in lockstep, recording their differences.
+     */
+    private static final class Differ {
+        /** Edits found so far. */
+        private final List<Edit> found = new ArrayList<Edit>();
+        /** Packed bits of the path to the current node. */
+        private long[] path = new long[1];
+        /** Number of steps in the path to the current node. */
+        private int depth;
+
+        /**
+         * Records the differences between two non-empty trees.
+         * @param original the non-empty original subtree
+         * @param revised the non-empty revised subtree
+         */
+        void compareNodes(final NumericBinaryTree original,
+                          final NumericBinaryTree revised) {
+            if (!original.getValue().equals(revised.getValue())) {
+                emit(SET_VALUE, revised.getValue(), null);
+            }
+            compareChildren(SET_LEFT, original.getLeftChild(),
+                            revised.getLeftChild());
+            compareChildren(SET_RIGHT, original.getRightChild(),
+                            revised.getRightChild());
+        }
+
+        /**
+         * Records the differences between respective children.
+         * @param side SET_LEFT or SET_RIGHT
+         * @param original the original child; null if none
+         * @param revised the revised child; null if none
+         */
+        private void compareChildren(final int side,
+                                     final NumericBinaryTree original,
+                                     final NumericBinaryTree revised) {
+            if (original == revised) {
+                return;
+            }
+            if (original == null || revised == null) {
+                emit(side, null, copyOf(revised));
+                return;
+            }
+            descend(side == SET_RIGHT);
+            compareNodes(original, revised);
+            this.depth--;
+        }
+
+        /**
+         * Extends the current path by one step.
+         * @param right true to descend to the right child
+         */
+        private void descend(final boolean right) {
+            int word = this.depth / BITS_PER_WORD;
+            if (word == this.path.length) {
+                this.path = Arrays.copyOf(this.path, this.path.length * 2);
+            }
+            long bit = 1L << (this.depth % BITS_PER_WORD);
+            if (right) {
+                this.path[word] |= bit;
+            } else {
+                this.path[word] &= ~bit;
+            }
+            this.depth++;
+        }
+
+        /**
+         * Records an edit at the current path.
+         * @param kind kind of change
+         * @param value new value; null unless SET_VALUE
+         * @param subtree new subtree; null if none
+         */
+        void emit(final int kind, final Number value,
+                  final NumericBinaryTree subtree) {
+            this.found.add(new Edit(kind, this.depth,
+                    Arrays.copyOf(this.path, wordsFor(this.depth)),
+                    value, subtree));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+// NumericBinaryTreePatchTest.java
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Tests for NumericBinaryTreePatch.
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public class NumericBinaryTreePatchTest {
+    /** Root indicator. */
+    private static final Number ROOT = 42;
+    /** Left child indicator. */
+    private static final Number LEFT = 21;
+    /** Right child indicator. */
+    private static final Number RIGHT = 63;
+    /** Replacement value indicator. */
+    private static final Number CHANGED = 99;
+    /** Height of generated deep test tree. */
+    private static final int DEEP_HEIGHT = 100;
+
+    /**
+     * Generates a small tree for testing.
+     * @return testing tree
+     */
+    private NumericBinaryTree generateTestTree() {
+        return new NumericBinaryTree(ROOT,
+                new NumericBinaryTree(LEFT),
+                new NumericBinaryTree(RIGHT,
+                        new NumericBinaryTree(LEFT), null));
+    }
+
+    /**
+     * Generates a tree that descends only to the right.
+     * @param height the height of the tree
+     * @return testing tree
+     */
+    private NumericBinaryTree generateRightSpine(final int height) {
+        NumericBinaryTree nbt = new NumericBinaryTree(0);
+        for (int i = 1; i <= height; i++) {
+            nbt = new NumericBinaryTree(i, null, nbt);
+        }
+        return nbt;
+    }
+
+    /**
+     * Verifies that equal trees produce an empty patch.
+     */
+    @Test
+    public void equalTreesTest() {
+        NumericBinaryTreePatch patch = NumericBinaryTreePatch.diff(
+                generateTestTree(), generateTestTree());
+        assertTrue(patch.isEmpty());
+        assertEquals(0, patch.size());
+        patch = NumericBinaryTreePatch.diff(
+                new NumericBinaryTree(), new NumericBinaryTree());
+        assertTrue(patch.isEmpty());
+    }
+
+    /**
+     * Verifies value changes, insertions and removals.
+     */
+    @Test
+    public void applyTest() {
+        NumericBinaryTree original = generateTestTree();
+        NumericBinaryTree revised = generateTestTree();
+        revised.setValue(CHANGED);
+        revised.getLeftChild().setRightChild(new NumericBinaryTree(RIGHT));
+        revised.getRightChild().setLeftChild(null);
+        NumericBinaryTreePatch patch
+                = NumericBinaryTreePatch.diff(original, revised);
+        assertEquals(3, patch.size());
+        NumericBinaryTree target = generateTestTree();
+        patch.applyTo(target);
+        assertEquals(revised, target);
+        revised.getLeftChild().getRightChild().setValue(CHANGED);
+        assertFalse(revised.equals(target));
+    }
+
+    /**
+     * Verifies replacement of an empty tree and by an empty tree.
+     */
+    @Test
+    public void replaceTreeTest() {
+        NumericBinaryTree target = new NumericBinaryTree();
+        NumericBinaryTreePatch.diff(target, generateTestTree())
+                .applyTo(target);
+        assertEquals(generateTestTree(), target);
+        NumericBinaryTreePatch.diff(target, new NumericBinaryTree())
+                .applyTo(target);
+        assertTrue(target.isEmpty());
+    }
+
+    /**
+     * Verifies that shared subtrees are not compared.
+     */
+    @Test
+    public void sharedSubtreeTest() {
+        NumericBinaryTree shared = generateRightSpine(DEEP_HEIGHT);
+        NumericBinaryTree original
+                = new NumericBinaryTree(ROOT, shared, null);
+        NumericBinaryTree revised
+                = new NumericBinaryTree(CHANGED, shared, null);
+        NumericBinaryTreePatch patch
+                = NumericBinaryTreePatch.diff(original, revised);
+        assertEquals(1, patch.size());
+    }
+
+    /**
+     * Verifies that a mismatched target is rejected and left unchanged.
+     */
+    @Test
+    public void mismatchTest() {
+        NumericBinaryTree original = generateTestTree();
+        NumericBinaryTree revised = generateTestTree();
+        revised.setValue(CHANGED);
+        revised.getRightChild().getLeftChild().setValue(CHANGED);
+        NumericBinaryTreePatch patch
+                = NumericBinaryTreePatch.diff(original, revised);
+        NumericBinaryTree target = new NumericBinaryTree(ROOT);
+        try {
+            patch.applyTo(target);
+            fail("mismatched patch applied");
+        } catch (IllegalArgumentException e) {
+            assertEquals(new NumericBinaryTree(ROOT), target);
+        }
+    }
+
+    /**
+     * Verifies round-trip serialization of a patch with a deep path.
+     * @throws Exception if serialization fails
+     */
+    @Test
+    public void serializationTest() throws Exception {
+        NumericBinaryTree original = generateRightSpine(DEEP_HEIGHT);
+        NumericBinaryTree revised = generateRightSpine(DEEP_HEIGHT);
+        NumericBinaryTree deepest = revised;
+        while (deepest.getRightChild() != null) {
+            deepest = deepest.getRightChild();
+        }
+        deepest.setValue(CHANGED);
+        deepest.setLeftChild(generateTestTree());
+        NumericBinaryTreePatch patch
+                = NumericBinaryTreePatch.diff(original, revised);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(patch);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()));
+        NumericBinaryTreePatch copy = (NumericBinaryTreePatch) in.readObject();
+        in.close();
+        assertEquals(2, copy.size());
+        copy.applyTo(original);
+        assertEquals(revised, original);
+    }
+}
@@ -3,6 +3,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.fail;
 import org.junit.Test;
@@ -10,6 +11,7 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Tests for NumericBinaryTree.
@@ -843,4 +845,858 @@ public class NumericBinaryTreeTest {
         assertNotNull(alnumber);
         assertEquals(0, alnumber.size());
     }
+
+    /** Height of generated complete test tree. */
+    private static final int COMPLETE_TREE_HEIGHT = 13;
+
+    /**
+     * Generates a complete tree whose values are
+     *   consecutive integers in inorder.
+     * @param height the height of the tree to generate
+     * @param first the smallest value in the tree
+     * @return complete testing tree
+     */
+    private NumericBinaryTree generateCompleteTree(final int height,
+                                                   final int first) {
+        if (height < 0) {
+            return null;
+        }
+        int leftSize = (1 << height) - 1;
+        return new NumericBinaryTree(first + leftSize,
+                generateCompleteTree(height - 1, first),
+                generateCompleteTree(height - 1, first + leftSize + 1));
+    }
+
+    /**
+     * Verifies parallel metrics agree with sequential metrics.
+     */
+    @Test
+    public void parallelMetricsTest() {
+        NumericBinaryTree root = generateStandardTestTree();
+        assertEquals(HEIGHT_TEST_TREE, root.parallelHeight());
+        assertEquals(NUM_NODES_TEST_TREE, root.parallelNumberOfNodes());
+        assertEquals(NUM_LEAVES_TEST_TREE, root.parallelNumberOfLeaves());
+        NumericBinaryTree big = generateCompleteTree(COMPLETE_TREE_HEIGHT, 0);
+        assertEquals(big.height(), big.parallelHeight());
+        assertEquals(big.numberOfNodes(), big.parallelNumberOfNodes());
+        assertEquals(big.numberOfLeaves(), big.parallelNumberOfLeaves());
+        NumericBinaryTree mt = new NumericBinaryTree();
+        assertEquals(-1, mt.parallelHeight());
+        assertEquals(0, mt.parallelNumberOfNodes());
+    }
+
+    /**
+     * Verifies exception for parallel leaf count on empty tree.
+     */
+    @Test(expected = NullPointerException.class)
+    public void emptyTreeParallelNumberOfLeavesException() {
+        new NumericBinaryTree().parallelNumberOfLeaves();
+    }
+
+    /**
+     * Verifies parallel equality agrees with equals.
+     */
+    @Test
+    public void parallelEqualsTest() {
+        NumericBinaryTree nbt1 = generateCompleteTree(COMPLETE_TREE_HEIGHT, 0);
+        NumericBinaryTree nbt2 = generateCompleteTree(COMPLETE_TREE_HEIGHT, 0);
+        assertTrue(nbt1.parallelEquals(nbt2));
+        assertTrue(nbt1.parallelEquals(nbt1));
+        assertFalse(nbt1.parallelEquals(null));
+        NumericBinaryTree deep = nbt2;
+        while (deep.getRightChild() != null) {
+            deep = deep.getRightChild();
+        }
+        deep.setValue(-1);
+        assertFalse(nbt1.parallelEquals(nbt2));
+        assertFalse(generateStandardTestTree()
+                    .parallelEquals(generateSearchTree()));
+        assertTrue(new NumericBinaryTree()
+                   .parallelEquals(new NumericBinaryTree()));
+    }
+
+    /**
+     * Verifies equality of trees sharing subtree references.
+     */
+    @Test
+    public void equalsSharedSubtreeTest() {
+        NumericBinaryTree shared = generateSearchTree();
+        NumericBinaryTree nbt1 = new NumericBinaryTree(ROOT, shared, null);
+        NumericBinaryTree nbt2 = new NumericBinaryTree(ROOT, shared, null);
+        assertTrue(nbt1.equals(nbt2));
+        nbt2.setRightChild(new NumericBinaryTree(RIGHT));
+        assertFalse(nbt1.equals(nbt2));
+        assertFalse(nbt2.equals(nbt1));
+    }
+
+    /**
+     * Verifies numeric equality across Number types.
+     */
+    @Test
+    public void equalsNumericallyTest() {
+        NumericBinaryTree ints = new NumericBinaryTree(1,
+                new NumericBinaryTree((byte) 2), new NumericBinaryTree(0.5f));
+        NumericBinaryTree mixed = new NumericBinaryTree(1L,
+                new NumericBinaryTree(new java.math.BigInteger("2")),
+                new NumericBinaryTree(new java.math.BigDecimal("0.50")));
+        assertFalse(ints.equals(mixed));
+        assertTrue(ints.equalsNumerically(mixed));
+        assertTrue(mixed.equalsNumerically(ints));
+        mixed.getRightChild().setValue(0.25);
+        assertFalse(ints.equalsNumerically(mixed));
+        assertFalse(ints.equalsNumerically(null));
+        assertTrue(new NumericBinaryTree(Double.NaN)
+                   .equalsNumerically(new NumericBinaryTree(Float.NaN)));
+        assertTrue(new NumericBinaryTree()
+                   .equalsNumerically(new NumericBinaryTree()));
+    }
+
+    /** Serialization filename used by asynchronous save and restore. */
+    public static final String ASYNC_SER_FILENAME = "asyncTest.ser";
+
+    /**
+     * Verifies round-trip asynchronous save and restore
+     * of nonempty and empty trees.
+     * @throws Exception if the save or restore fails unexpectedly
+     */
+    @Test
+    public void asyncSerializationTest() throws Exception {
+        NumericBinaryTree nbt = generateStandardTestTree();
+        java.util.concurrent.CompletableFuture<Boolean> saved
+                = nbt.saveAsync(ASYNC_SER_FILENAME);
+        // Modifications after the call do not affect the saved snapshot.
+        nbt.setValue(NEW_VALUE);
+        assertTrue(saved.get());
+        NumericBinaryTree restoredbt = new NumericBinaryTree(LEFT);
+        assertTrue(restoredbt.restoreAsync(ASYNC_SER_FILENAME).get());
+        assertTrue(compareTrees(generateStandardTestTree(), restoredbt));
+        NumericBinaryTree mt = new NumericBinaryTree();
+        assertTrue(mt.saveAsync(ASYNC_SER_FILENAME).get());
+        assertTrue(restoredbt.restoreAsync(ASYNC_SER_FILENAME).get());
+        assertTrue(restoredbt.isEmpty());
+    }
+
+    /**
+     * Verifies that an asynchronous save creates a new file with the
+     * permissions of a synchronous save and keeps those of a file
+     * it replaces, where the file system has POSIX permissions.
+     * @throws Exception if a save fails unexpectedly
+     */
+    @Test
+    public void asyncSavePermissionsTest() throws Exception {
+        org.junit.Assume.assumeTrue(java.nio.file.FileSystems.getDefault()
+                .supportedFileAttributeViews().contains("posix"));
+        java.nio.file.Path synced = java.nio.file.Paths.get(SER_FILENAME);
+        java.nio.file.Path async
+                = java.nio.file.Paths.get(ASYNC_SER_FILENAME);
+        java.nio.file.Files.deleteIfExists(async);
+        NumericBinaryTree nbt = generateStandardTestTree();
+        assertTrue(nbt.save(SER_FILENAME));
+        assertTrue(nbt.saveAsync(ASYNC_SER_FILENAME).get());
+        assertEquals(java.nio.file.Files.getPosixFilePermissions(synced),
+                     java.nio.file.Files.getPosixFilePermissions(async));
+        java.util.Set<java.nio.file.attribute.PosixFilePermission> chosen
+                = java.nio.file.attribute.PosixFilePermissions.fromString(
+                        "rw-r-----");
+        java.nio.file.Files.setPosixFilePermissions(async, chosen);
+        assertTrue(nbt.saveAsync(ASYNC_SER_FILENAME).get());
+        assertEquals(chosen,
+                     java.nio.file.Files.getPosixFilePermissions(async));
+    }
+
+    /** Number of concurrent asynchronous saves of one file. */
+    private static final int CONCURRENT_SAVES = 8;
+
+    /**
+     * Verifies that concurrent asynchronous saves of one file
+     * leave one complete tree and no temporary files.
+     * @throws Exception if a save or restore fails unexpectedly
+     */
+    @Test
+    public void concurrentAsyncSaveTest() throws Exception {
+        List<NumericBinaryTree> trees = new ArrayList<NumericBinaryTree>();
+        List<CompletableFuture<Boolean>> saves
+                = new ArrayList<CompletableFuture<Boolean>>();
+        NumericBinaryTree nbt = new NumericBinaryTree(0);
+        for (int i = 1; i <= CONCURRENT_SAVES; i++) {
+            nbt.insert(i);
+            trees.add(nbt.deepCopy());
+            saves.add(nbt.saveAsync(ASYNC_SER_FILENAME));
+        }
+        for (CompletableFuture<Boolean> save : saves) {
+            assertTrue(save.get());
+        }
+        NumericBinaryTree restoredbt = new NumericBinaryTree();
+        assertTrue(restoredbt.restoreAsync(ASYNC_SER_FILENAME).get());
+        assertTrue(trees.contains(restoredbt));
+        String[] temps = new java.io.File(".").list((dir, name)
+                -> name.startsWith(ASYNC_SER_FILENAME + ".")
+                   && name.endsWith(".tmp"));
+        assertEquals(0, temps.length);
+    }
+
+    /**
+     * Verifies asynchronous restore from a missing file.
+     * @throws Exception if the restore fails unexpectedly
+     */
+    @Test
+    public void asyncRestoreMissingFileTest() throws Exception {
+        NumericBinaryTree nbt = generateStandardTestTree();
+        assertFalse(nbt.restoreAsync("missingAsyncTest.ser").get());
+        assertTrue(compareTrees(generateStandardTestTree(), nbt));
+    }
+
+    /** Number of values in generated random search trees. */
+    private static final int SEARCH_TREE_SIZE = 2000;
+    /** Range of values in generated random search trees. */
+    private static final int SEARCH_TREE_RANGE = 5000;
+    /** Seed for generated random search trees. */
+    private static final long SEARCH_TREE_SEED = 2016081718L;
+
+    /**
+     * Generates a search tree by inserting random integers.
+     * @param random the source of values
+     * @return testing tree
+     */
+    private NumericBinaryTree generateSearchTree(
+            final java.util.Random random) {
+        NumericBinaryTree nbt = new NumericBinaryTree();
+        for (int i = 0; i < SEARCH_TREE_SIZE; i++) {
+            nbt.insert(random.nextInt(SEARCH_TREE_RANGE));
+        }
+        return nbt;
+    }
+
+    /**
+     * Verifies that the inorder values of a tree are in order.
+     * @param nbt the tree to examine
+     */
+    private void assertSearchOrder(final NumericBinaryTree nbt) {
+        List<Number> values = nbt.inorderValues();
+        for (int i = 1; i < values.size(); i++) {
+            assertTrue(values.get(i - 1).doubleValue()
+                       <= values.get(i).doubleValue());
+        }
+    }
+
+    /**
+     * Verifies single-value search tree insertion and lookup.
+     */
+    @Test
+    public void insertContainsTest() {
+        NumericBinaryTree nbt = new NumericBinaryTree();
+        assertFalse(nbt.contains(ROOT));
+        nbt.insert(ROOT);
+        nbt.insert(LEFT);
+        nbt.insert(RIGHT);
+        nbt.insert(ROOT.longValue());
+        nbt.insert(-0.0);
+        assertEquals(ROOT, nbt.getValue());
+        assertEquals(LEFT, nbt.getLeftChild().getValue());
+        assertEquals(ROOT.longValue(),
+                     nbt.getRightChild().getLeftChild().getValue());
+        assertTrue(nbt.contains(LEFT.doubleValue()));
+        assertTrue(nbt.contains(0));
+        assertTrue(nbt.contains(new java.math.BigDecimal("63.0")));
+        assertFalse(nbt.contains(LEFT.doubleValue() + 0.5));
+        assertSearchOrder(nbt);
+    }
+
+    /**
+     * Verifies batch lookup against single lookups.
+     */
+    @Test
+    public void containsAllTest() {
+        java.util.Random random = new java.util.Random(SEARCH_TREE_SEED);
+        NumericBinaryTree nbt = generateSearchTree(random);
+        long[] keys = new long[SEARCH_TREE_SIZE];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt(SEARCH_TREE_RANGE + 2) - 1;
+        }
+        boolean[] found = nbt.containsAll(keys);
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(nbt.contains(keys[i]), found[i]);
+        }
+        boolean[] none = new NumericBinaryTree().containsAll(keys);
+        assertEquals(keys.length, none.length);
+        assertFalse(none[0]);
+    }
+
+    /**
+     * Verifies batch insertion into empty and nonempty trees.
+     */
+    @Test
+    public void insertAllTest() {
+        java.util.Random random = new java.util.Random(SEARCH_TREE_SEED);
+        double[] values = new double[SEARCH_TREE_SIZE];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(SEARCH_TREE_RANGE) / 2.0;
+        }
+        NumericBinaryTree nbt = new NumericBinaryTree();
+        nbt.insertAll(values);
+        assertEquals(SEARCH_TREE_SIZE, nbt.numberOfNodes());
+        assertSearchOrder(nbt);
+        // Sorted values are attached as balanced subtrees.
+        assertTrue(nbt.height() < SEARCH_TREE_SIZE / 2);
+        NumericBinaryTree bst = generateSearchTree(random);
+        bst.insertAll(values);
+        assertEquals(2 * SEARCH_TREE_SIZE, bst.numberOfNodes());
+        assertSearchOrder(bst);
+        for (double value : values) {
+            assertTrue(bst.contains(value));
+        }
+    }
+
+    /**
+     * Verifies single and batch range counts against a scan.
+     */
+    @Test
+    public void countRangesTest() {
+        java.util.Random random = new java.util.Random(SEARCH_TREE_SEED);
+        NumericBinaryTree nbt = generateSearchTree(random);
+        List<Number> values = nbt.inorderValues();
+        double[] lows = new double[SEARCH_TREE_SIZE];
+        double[] highs = new double[SEARCH_TREE_SIZE];
+        for (int i = 0; i < lows.length; i++) {
+            lows[i] = random.nextInt(SEARCH_TREE_RANGE) - 0.5;
+            highs[i] = lows[i] + random.nextInt(SEARCH_TREE_RANGE / 2);
+        }
+        int[] counts = nbt.countRanges(lows, highs);
+        for (int i = 0; i < lows.length; i++) {
+            int expected = 0;
+            for (Number value : values) {
+                if (lows[i] <= value.doubleValue()
+                    && value.doubleValue() <= highs[i]) {
+                    expected++;
+                }
+            }
+            assertEquals(expected, counts[i]);
+        }
+        assertEquals(SEARCH_TREE_SIZE,
+                     nbt.countRange(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(0, nbt.countRange(1, 0));
+    }
+
+    /** Number of values in generated degenerate search trees. */
+    private static final int DEGENERATE_TREE_SIZE = 20000;
+
+    /**
+     * Verifies rank and select against the sorted values.
+     */
+    @Test
+    public void rankSelectTest() {
+        java.util.Random random = new java.util.Random(SEARCH_TREE_SEED);
+        NumericBinaryTree nbt = generateSearchTree(random);
+        List<Number> sorted = nbt.inorderValues();
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(sorted.get(i), nbt.select(i));
+            int expected = i;
+            while (expected > 0 && sorted.get(expected - 1).intValue()
+                                   == sorted.get(i).intValue()) {
+                expected--;
+            }
+            assertEquals(expected, nbt.rank(sorted.get(i)));
+        }
+        assertEquals(0, nbt.rank(-1));
+        assertEquals(SEARCH_TREE_SIZE, nbt.rank(SEARCH_TREE_RANGE));
+        // Sizes are maintained by insert and recomputed after setters.
+        nbt.insert(-1);
+        assertEquals(-1, nbt.select(0));
+        assertEquals(SEARCH_TREE_SIZE + 1, nbt.numberOfNodes());
+        int leftSize = nbt.getLeftChild().numberOfNodes();
+        nbt.setLeftChild(null);
+        assertEquals(SEARCH_TREE_SIZE - leftSize + 1, nbt.numberOfNodes());
+        assertEquals(nbt.getValue(), nbt.select(0));
+    }
+
+    /**
+     * Verifies that inserting through a subtree keeps the aggregates
+     * of its ancestors current.
+     */
+    @Test
+    public void subtreeInsertTest() {
+        NumericBinaryTree child = new NumericBinaryTree(RIGHT);
+        NumericBinaryTree nbt = new NumericBinaryTree(ROOT,
+                new NumericBinaryTree(LEFT), child);
+        long version = nbt.version();
+        assertEquals(NUM_NODES_SM_TREE, nbt.numberOfNodes());
+        child.insert(RIGHT_RIGHT);
+        assertTrue(nbt.version() > version);
+        assertEquals(NUM_NODES_SM_TREE + 1, nbt.numberOfNodes());
+        assertEquals(RIGHT_RIGHT, nbt.select(NUM_NODES_SM_TREE));
+        assertEquals(NUM_NODES_SM_TREE + 1, TreeValues.toDoubleArray(nbt,
+                TreeValues.Order.INORDER).length);
+        assertEquals(2, new LcaIndex(nbt).depth(child.getRightChild()));
+    }
+
+    /**
+     * Verifies exception for select beyond the number of nodes.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void selectOutOfRangeException() {
+        generateStandardTestTree().select(NUM_NODES_TEST_TREE);
+    }
+
+    /**
+     * Verifies that sizes of a degenerate tree need no recursion.
+     */
+    @Test
+    public void degenerateTreeSizeTest() {
+        NumericBinaryTree nbt = new NumericBinaryTree();
+        for (int i = 0; i < DEGENERATE_TREE_SIZE; i++) {
+            nbt.insert(i);
+        }
+        assertEquals(DEGENERATE_TREE_SIZE, nbt.numberOfNodes());
+        assertEquals(DEGENERATE_TREE_SIZE / 2,
+                     nbt.select(DEGENERATE_TREE_SIZE / 2));
+        nbt.getRightChild().setRightChild(null);
+        assertEquals(2, nbt.numberOfNodes());
+        assertEquals(2, nbt.rank(DEGENERATE_TREE_SIZE));
+    }
+
+    /** Tolerance for comparing sums of values. */
+    private static final double SUM_TOLERANCE = 1e-6;
+    /** Number of rounds of modification in aggregate tests. */
+    private static final int AGGREGATE_ROUNDS = 4;
+    /** Number of queries or modifications per aggregate test round. */
+    private static final int AGGREGATE_ROUND_SIZE = 500;
+    /** Values inserted for removal tests. */
+    private static final int[] REMOVE_TEST_VALUES = {
+        ROOT.intValue(), LEFT.intValue(), RIGHT.intValue(),
+        LEFT_LEFT.intValue(), LEFT_RIGHT.intValue(),
+        RIGHT_LEFT.intValue(), RIGHT_RIGHT.intValue(),
+        LEFT_RIGHT.intValue() - 1, LEFT_RIGHT.intValue() + 1,
+        RIGHT_RIGHT.intValue() + 1, LEFT.intValue(),
+    };
+
+    /**
+     * Verifies range count, sum, minimum and maximum against a scan.
+     * @param nbt the search tree
+     * @param low the least value of the range
+     * @param high the greatest value of the range
+     */
+    private void assertRangeAggregates(final NumericBinaryTree nbt,
+                                       final double low, final double high) {
+        int count = 0;
+        double sum = 0;
+        Number min = null;
+        Number max = null;
+        for (Number value : nbt.inorderValues()) {
+            if (low <= value.doubleValue() && value.doubleValue() <= high) {
+                count++;
+                sum += value.doubleValue();
+                if (min == null) {
+                    min = value;
+                }
+                max = value;
+            }
+        }
+        assertEquals(count, nbt.countRange(low, high));
+        assertEquals(sum, nbt.sumRange(low, high), SUM_TOLERANCE);
+        assertEquals(min, nbt.minRange(low, high));
+        if (max == null) {
+            assertNull(nbt.maxRange(low, high));
+        } else {
+            assertEquals(max.doubleValue(),
+                         nbt.maxRange(low, high).doubleValue(), 0);
+        }
+    }
+
+    /**
+     * Verifies range aggregates as the tree is modified.
+     */
+    @Test
+    public void rangeAggregateTest() {
+        java.util.Random random = new java.util.Random(SEARCH_TREE_SEED);
+        NumericBinaryTree nbt = generateSearchTree(random);
+        for (int round = 0; round < AGGREGATE_ROUNDS; round++) {
+            for (int i = 0; i < AGGREGATE_ROUND_SIZE; i++) {
+                double low = random.nextInt(SEARCH_TREE_RANGE) - 0.5;
+                assertRangeAggregates(nbt, low,
+                        low + random.nextInt(SEARCH_TREE_RANGE / 2));
+            }
+            for (int i = 0; i < AGGREGATE_ROUND_SIZE; i++) {
+                nbt.remove(random.nextInt(SEARCH_TREE_RANGE));
+                nbt.insert(random.nextInt(SEARCH_TREE_RANGE) + 0.5);
+            }
+            // A value change not moving the value within the order.
+            NumericBinaryTree max = nbt;
+            while (max.getRightChild() != null) {
+                max = max.getRightChild();
+            }
+            max.setValue(SEARCH_TREE_RANGE);
+        }
+        assertEquals(nbt.inorderValues().size(), nbt.numberOfNodes());
+        assertRangeAggregates(nbt, Double.NEGATIVE_INFINITY,
+                              Double.POSITIVE_INFINITY);
+        assertRangeAggregates(nbt, 1, 0);
+        assertEquals(0, new NumericBinaryTree().sumRange(0, 1), 0);
+    }
+
+    /**
+     * Verifies search tree removal in every node configuration.
+     */
+    @Test
+    public void removeTest() {
+        NumericBinaryTree nbt = new NumericBinaryTree();
+        List<Number> expected = new ArrayList<Number>();
+        for (int value : REMOVE_TEST_VALUES) {
+            nbt.insert(value);
+        }
+        int[] sorted = REMOVE_TEST_VALUES.clone();
+        Arrays.sort(sorted);
+        for (int value : sorted) {
+            expected.add(value);
+        }
+        assertFalse(nbt.remove(NEW_VALUE));
+        // Order: two children with the successor deeper in the right
+        // subtree, one child, leaf, then the root with two children.
+        Number[] removals = {LEFT.longValue(), RIGHT_RIGHT.doubleValue(),
+                             LEFT_LEFT, ROOT};
+        for (Number removal : removals) {
+            assertTrue(nbt.remove(removal));
+            expected.remove(Integer.valueOf(removal.intValue()));
+            assertEquals(expected, nbt.inorderValues());
+            assertEquals(expected.size(), nbt.numberOfNodes());
+        }
+        double sum = 0;
+        for (Number value : expected) {
+            sum += value.doubleValue();
+        }
+        assertEquals(sum, nbt.sumRange(Integer.MIN_VALUE, Integer.MAX_VALUE),
+                     0);
+        for (Number value : expected) {
+            assertTrue(nbt.remove(value));
+        }
+        assertTrue(nbt.isEmpty());
+        assertFalse(nbt.remove(ROOT));
+        nbt.insert(ROOT);
+        assertEquals(1, nbt.numberOfNodes());
+    }
+
+    /**
+     * Verifies that removing through a subtree keeps the aggregates
+     * of its ancestors current.
+     */
+    @Test
+    public void subtreeRemoveTest() {
+        NumericBinaryTree child = new NumericBinaryTree(RIGHT, null,
+                new NumericBinaryTree(RIGHT_RIGHT));
+        NumericBinaryTree nbt = new NumericBinaryTree(ROOT,
+                new NumericBinaryTree(LEFT), child);
+        assertEquals(NUM_NODES_SM_TREE + 1, nbt.numberOfNodes());
+        assertTrue(child.remove(RIGHT_RIGHT));
+        assertEquals(NUM_NODES_SM_TREE, nbt.numberOfNodes());
+        assertTrue(child.remove(RIGHT));
+        assertTrue(child.isEmpty());
+        assertEquals(2, nbt.numberOfNodes());
+        assertEquals(LEFT.doubleValue() + ROOT.doubleValue(),
+                nbt.sumRange(Integer.MIN_VALUE, Integer.MAX_VALUE), 0);
+        assertEquals(ROOT, nbt.select(1));
+    }
+
+    /**
+     * Verifies the aggregate tests with validation enabled,
+     * when sizes and sums are read from the cached aggregates.
+     */
+    @Test
+    public void validatedAggregateTest() {
+        NumericBinaryTree.setValidation(true);
+        try {
+            rankSelectTest();
+            subtreeInsertTest();
+            degenerateTreeSizeTest();
+            rangeAggregateTest();
+            removeTest();
+            subtreeRemoveTest();
+        } finally {
+            NumericBinaryTree.setValidation(false);
+        }
+    }
+
+    /**
+     * Verifies comparison of trees whose cached sizes are current
+     * under validation, with equal and with differing sizes.
+     */
+    @Test
+    public void validatedSizeMismatchTest() {
+        NumericBinaryTree.setValidation(true);
+        try {
+            NumericBinaryTree nbt = generateStandardTestTree();
+            NumericBinaryTree copy = generateStandardTestTree();
+            assertEquals(nbt.numberOfNodes(), copy.numberOfNodes());
+            assertTrue(nbt.equalsNumerically(copy));
+            copy.insert(NEW_VALUE);
+            assertEquals(NUM_NODES_TEST_TREE + 1, copy.numberOfNodes());
+            assertFalse(nbt.equalsNumerically(copy));
+            assertFalse(copy.equals(nbt));
+        } finally {
+            NumericBinaryTree.setValidation(false);
+        }
+    }
+
+    /**
+     * Verifies that node counts see a change to a leaf shared
+     * by two trees, whichever of them it was last made a child of.
+     */
+    @Test
+    public void sharedSubtreeCountTest() {
+        NumericBinaryTree leaf = new NumericBinaryTree(LEFT);
+        NumericBinaryTree first = new NumericBinaryTree(ROOT, leaf, null);
+        NumericBinaryTree second = new NumericBinaryTree(RIGHT, leaf, null);
+        assertEquals(2, first.numberOfNodes());
+        assertEquals(2, second.numberOfNodes());
+        leaf.setLeftChild(new NumericBinaryTree(LEFT_LEFT));
+        assertEquals(first.postorderValues().size(), first.numberOfNodes());
+        assertEquals(NUM_NODES_SM_TREE, first.numberOfNodes());
+        assertEquals(NUM_NODES_SM_TREE, second.numberOfNodes());
+        assertEquals(ROOT.doubleValue() + LEFT.doubleValue()
+                     + LEFT_LEFT.doubleValue(),
+                     first.sumRange(Integer.MIN_VALUE, Integer.MAX_VALUE), 0);
+    }
+
+    /**
+     * Verifies numeric hash codes of trees.
+     */
+    @Test
+    public void numericHashCodeTest() {
+        NumericBinaryTree ints = new NumericBinaryTree(1,
+                new NumericBinaryTree(2), null);
+        NumericBinaryTree mixed = new NumericBinaryTree(1.0,
+                new NumericBinaryTree(2L), null);
+        NumericBinaryTree mirrored = new NumericBinaryTree(1,
+                null, new NumericBinaryTree(2));
+        assertTrue(ints.equalsNumerically(mixed));
+        assertEquals(ints.numericHashCode(), mixed.numericHashCode());
+        assertTrue(ints.numericHashCode() != mirrored.numericHashCode());
+    }
+
+    /**
+     * Boxes a value as a new instance, distinct from every other.
+     * @param value the value to box
+     * @return a new Integer holding value
+     */
+    @SuppressWarnings("removal")
+    private static Integer distinctInteger(final int value) {
+        return new Integer(value);
+    }
+
+    /**
+     * Verifies interning of new values through an installed pool.
+     */
+    @Test
+    public void valuePoolTest() {
+        NumberPool pool = new NumberPool(NUM_NODES_TEST_TREE);
+        NumericBinaryTree.setValuePool(pool);
+        try {
+            assertSame(pool, NumericBinaryTree.getValuePool());
+            Number shared = distinctInteger(ROOT.intValue());
+            NumericBinaryTree nbt = new NumericBinaryTree(shared);
+            nbt.setLeftChild(
+                    new NumericBinaryTree(distinctInteger(ROOT.intValue())));
+            nbt.setValue(distinctInteger(ROOT.intValue()));
+            assertSame(shared, nbt.getValue());
+            assertSame(shared, nbt.getLeftChild().getValue());
+        } finally {
+            NumericBinaryTree.setValuePool(null);
+        }
+        Number distinct = distinctInteger(ROOT.intValue());
+        assertSame(distinct, new NumericBinaryTree(distinct).getValue());
+    }
+
+    /**
+     * Verifies deduplication of the values of an existing tree.
+     */
+    @Test
+    public void internValuesTest() {
+        NumericBinaryTree nbt = new NumericBinaryTree(
+                distinctInteger(ROOT.intValue()),
+                new NumericBinaryTree(distinctInteger(ROOT.intValue())),
+                new NumericBinaryTree(Long.valueOf(ROOT.longValue())));
+        NumericBinaryTree copy = nbt.deepCopy();
+        NumberPool pool = new NumberPool(NUM_NODES_TEST_TREE);
+        assertEquals(1, nbt.internValues(pool));
+        assertSame(nbt.getValue(), nbt.getLeftChild().getValue());
+        assertEquals(copy, nbt);
+        assertEquals(0, nbt.internValues(pool));
+    }
+
+    /**
+     * Verifies exception for interning without a pool.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void internValuesNullPoolException() {
+        new NumericBinaryTree(ROOT).internValues(null);
+    }
+
+    /**
+     * Verifies that the iterator visits nodes lazily in postorder.
+     */
+    @Test
+    public void lazyIteratorOrderTest() {
+        NumericBinaryTree root = generateStandardTestTree();
+        Iterator<NumericBinaryTree> itr = root.iterator();
+        for (NumericBinaryTree expected : root.postorderSubtrees()) {
+            assertSame(expected, itr.next());
+        }
+        assertFalse(itr.hasNext());
+    }
+
+    /**
+     * Verifies that modification of a node awaiting its children's
+     * iteration is detected, and modification of visited nodes is not.
+     */
+    @Test
+    public void failFastIteratorTest() {
+        NumericBinaryTree root = generateStandardTestTree();
+        int rootCount = root.modificationCount();
+        Iterator<NumericBinaryTree> itr = root.iterator();
+        NumericBinaryTree first = itr.next();
+        first.setValue(ROOT);
+        assertTrue(itr.next().isLeaf());
+        root.setRightChild(null);
+        assertEquals(rootCount + 1, root.modificationCount());
+        try {
+            itr.next();
+            fail("Modification not detected");
+        } catch (java.util.ConcurrentModificationException ex) {
+            assertTrue(true);
+        }
+    }
+
+    /**
+     * Verifies modification counts of nodes changed by insert and remove.
+     */
+    @Test
+    public void searchTreeModificationCountTest() {
+        NumericBinaryTree nbt = new NumericBinaryTree(ROOT);
+        Iterator<NumericBinaryTree> itr = nbt.iterator();
+        nbt.insert(LEFT);
+        assertEquals(1, nbt.modificationCount());
+        try {
+            itr.next();
+            fail("Insertion not detected");
+        } catch (java.util.ConcurrentModificationException ex) {
+            assertTrue(nbt.remove(LEFT));
+        }
+        assertEquals(2, nbt.modificationCount());
+    }
+
+    /**
+     * Verifies that validation rejects shared children and cycles,
+     * and allows moving a subtree once detached.
+     */
+    @Test
+    public void validationRejectsSharingTest() {
+        NumericBinaryTree.setValidation(true);
+        try {
+            NumericBinaryTree child = new NumericBinaryTree(LEFT);
+            NumericBinaryTree root = new NumericBinaryTree(ROOT, child, null);
+            try {
+                new NumericBinaryTree(RIGHT, child, null);
+                fail("Shared child not rejected");
+            } catch (IllegalArgumentException ex) {
+                assertSame(child, root.getLeftChild());
+            }
+            try {
+                root.setRightChild(child);
+                fail("Duplicate child not rejected");
+            } catch (IllegalArgumentException ex) {
+                assertNull(root.getRightChild());
+            }
+            try {
+                child.setLeftChild(root);
+                fail("Cycle not rejected");
+            } catch (IllegalArgumentException ex) {
+                assertTrue(child.isLeaf());
+            }
+            root.setLeftChild(null);
+            NumericBinaryTree other = new NumericBinaryTree(RIGHT);
+            other.setRightChild(child);
+            assertSame(child, other.getRightChild());
+        } finally {
+            NumericBinaryTree.setValidation(false);
+        }
+    }
+
+    /**
+     * Verifies that validate accepts a well-formed tree and reports
+     * shared subtrees and cycles built while validation was disabled.
+     */
+    @Test
+    public void validateTest() {
+        NumericBinaryTree root = generateStandardTestTree();
+        root.validate();
+        NumericBinaryTree shared = root.getLeftChild();
+        root.setRightChild(shared);
+        try {
+            root.validate();
+            fail("Shared subtree not reported");
+        } catch (IllegalStateException ex) {
+            root.setRightChild(null);
+        }
+        root.validate();
+        shared.getLeftChild().setLeftChild(root);
+        try {
+            root.validate();
+            fail("Cycle not reported");
+        } catch (IllegalStateException ex) {
+            shared.getLeftChild().setLeftChild(null);
+        }
+        root.validate();
+    }
+
+    /**
+     * Verifies parent links, depth and ancestors, including after
+     * detaching a subtree and after search tree changes.
+     */
+    @Test
+    public void parentNavigationTest() {
+        NumericBinaryTree root = generateStandardTestTree();
+        NumericBinaryTree right = root.getRightChild();
+        NumericBinaryTree deep = right.getLeftChild().getRightChild();
+        assertNull(root.getParent());
+        assertEquals(0, root.depth());
+        assertSame(right, right.getLeftChild().getParent());
+        assertEquals(HEIGHT_TEST_TREE, deep.depth());
+        assertEquals(Arrays.asList(right.getLeftChild(), right, root),
+                     deep.ancestors());
+        root.setRightChild(null);
+        assertNull(right.getParent());
+        assertEquals(2, deep.depth());
+
+        NumericBinaryTree nbt = new NumericBinaryTree(ROOT);
+        nbt.insert(LEFT);
+        nbt.insert(LEFT_LEFT);
+        nbt.insert(LEFT_RIGHT);
+        nbt.insert(RIGHT);
+        nbt.insert(RIGHT_LEFT);
+        NumericBinaryTree leaf = nbt.getLeftChild().getLeftChild();
+        NumericBinaryTree successor = nbt.getLeftChild().getRightChild();
+        NumericBinaryTree moved = nbt.getRightChild().getLeftChild();
+        assertEquals(2, leaf.depth());
+        assertTrue(nbt.remove(LEFT));
+        assertTrue(nbt.remove(RIGHT));
+        assertNull(successor.getParent());
+        assertEquals(Arrays.asList(nbt.getLeftChild(), nbt),
+                     leaf.ancestors());
+        assertSame(nbt, moved.getParent());
+    }
+
+    /**
+     * Verifies lowest common ancestors of subtrees.
+     */
+    @Test
+    public void lowestCommonAncestorTest() {
+        NumericBinaryTree root = generateStandardTestTree();
+        NumericBinaryTree left = root.getLeftChild();
+        NumericBinaryTree right = root.getRightChild();
+        NumericBinaryTree deep = right.getLeftChild().getRightChild();
+        NumericBinaryTree other = right.getRightChild().getLeftChild();
+        assertSame(right, deep.lowestCommonAncestor(other));
+        assertSame(root, left.getLeftChild().lowestCommonAncestor(deep));
+        assertSame(right, right.lowestCommonAncestor(deep));
+        assertSame(left, left.lowestCommonAncestor(left));
+        assertNull(deep.lowestCommonAncestor(new NumericBinaryTree(ROOT)));
+    }
 }
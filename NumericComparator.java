@@ -0,0 +1,379 @@
+// NumericComparator.java
+import java.math.BigDecimal;
+import java.math.BigInteger;
+/**
+ * Orders Number values by their numeric value regardless of type.
+ * <p>
+ * <code>Integer(1)</code>, <code>Long(1)</code>, <code>Double(1.0)</code>
+ * and <code>BigDecimal("1.00")</code> all compare equal.
+ * Negative zero is equal to zero, and NaN is greater than every other
+ * value and equal to itself, so the ordering is total.
+ * Comparisons among the primitive wrapper types are exact and
+ * allocate nothing, as are comparisons of a primitive long or double
+ * with such a value; BigInteger and BigDecimal values are also
+ * compared exactly.
+ * Other Number types are compared by their double values.
+ * </p>
+ * <p>
+ * {@link #hash(Number)} and {@link #normalize(Number)} are consistent
+ * with this ordering: numerically equal values have equal hashes
+ * and normalize to equal objects.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public final class NumericComparator
+        implements java.util.Comparator<Number>, java.io.Serializable {
+
+    /** The comparator. */
+    public static final NumericComparator INSTANCE = new NumericComparator();
+
+    /** serialVersionUID. */
+    private static final long serialVersionUID = 2016081718L;
+
+    /** Smallest double greater than every long, 2<sup>63</sup>. */
+    private static final double LONG_LIMIT = 0x1p63;
+
+    /** Number of bits in the magnitude of a long. */
+    private static final int LONG_MAGNITUDE_BITS = Long.SIZE - 1;
+
+    /** Number of decimal digits in the largest long. */
+    private static final int MAX_LONG_DIGITS
+            = Long.toString(Long.MAX_VALUE).length();
+
+    /** Prevents instantiation other than the shared instance. */
+    private NumericComparator() {
+    }
+
+    /**
+     * Compares two values numerically.
+     * @param value1 first value for comparison
+     * @param value2 second value for comparison
+     * @return a negative integer, zero, or a positive integer
+     *         as value1 is less than, equal to, or greater than value2
+     * @throws IllegalArgumentException if either value is null
+     */
+    @Override
+    public int compare(final Number value1, final Number value2)
+        throws IllegalArgumentException {
+        return compareNumbers(value1, value2);
+    }
+
+    /**
+     * Compares two values numerically.
+     * @param value1 first value for comparison
+     * @param value2 second value for comparison
+     * @return a negative integer, zero, or a positive integer
+     *         as value1 is less than, equal to, or greater than value2
+     * @throws IllegalArgumentException if either value is null
+     */
+    public static int compareNumbers(final Number value1,
+                                     final Number value2)
+        throws IllegalArgumentException {
+        if (value1 == null || value2 == null) {
+            throw new IllegalArgumentException();
+        }
+        boolean integral1 = isIntegral(value1);
+        boolean integral2 = isIntegral(value2);
+        if (integral1 && integral2) {
+            return Long.compare(value1.longValue(), value2.longValue());
+        }
+        boolean floating1 = isFloatingPoint(value1);
+        boolean floating2 = isFloatingPoint(value2);
+        if (floating1 && floating2) {
+            return compareDoubles(value1.doubleValue(), value2.doubleValue());
+        }
+        if (integral1 && floating2) {
+            return compareLongDouble(value1.longValue(),
+                                     value2.doubleValue());
+        }
+        if (floating1 && integral2) {
+            return -compareLongDouble(value2.longValue(),
+                                      value1.doubleValue());
+        }
+        return compareGeneral(value1, value2);
+    }
+
+    /**
+     * Compares a long with a value numerically
+     * without boxing the long.
+     * @param value1 first value for comparison
+     * @param value2 second value for comparison
+     * @return a negative integer, zero, or a positive integer
+     *         as value1 is less than, equal to, or greater than value2
+     * @throws IllegalArgumentException if value2 is null
+     */
+    public static int compareLong(final long value1, final Number value2)
+        throws IllegalArgumentException {
+        if (value2 == null) {
+            throw new IllegalArgumentException();
+        }
+        if (isIntegral(value2)) {
+            return Long.compare(value1, value2.longValue());
+        }
+        if (isFloatingPoint(value2)) {
+            return compareLongDouble(value1, value2.doubleValue());
+        }
+        return compareGeneral(Long.valueOf(value1), value2);
+    }
+
+    /**
+     * Compares a double with a value numerically
+     * without boxing the double.
+     * @param value1 first value for comparison
+     * @param value2 second value for comparison
+     * @return a negative integer, zero, or a positive integer
+     *         as value1 is less than, equal to, or greater than value2
+     * @throws IllegalArgumentException if value2 is null
+     */
+    public static int compareDouble(final double value1, final Number value2)
+        throws IllegalArgumentException {
+        if (value2 == null) {
+            throw new IllegalArgumentException();
+        }
+        if (isFloatingPoint(value2)) {
+            return compareDoubles(value1, value2.doubleValue());
+        }
+        if (isIntegral(value2)) {
+            return -compareLongDouble(value2.longValue(), value1);
+        }
+        return compareGeneral(Double.valueOf(value1), value2);
+    }
+
+    /**
+     * Determines whether two values are numerically equal.
+     * @param value1 first value for comparison
+     * @param value2 second value for comparison
+     * @return true if the values compare equal
+     * @throws IllegalArgumentException if either value is null
+     */
+    public static boolean equal(final Number value1, final Number value2)
+        throws IllegalArgumentException {
+        return compareNumbers(value1, value2) == 0;
+    }
+
+    /**
+     * Returns a hash code consistent with numeric equality;
+     * the hash code of the normalized value.
+     * Primitive wrapper values are hashed without allocation.
+     * @param value the value
+     * @return the hash code
+     * @throws IllegalArgumentException if value is null
+     */
+    public static int hash(final Number value)
+        throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException();
+        }
+        if (isIntegral(value)) {
+            return Long.hashCode(value.longValue());
+        }
+        if (isFloatingPoint(value)) {
+            double d = value.doubleValue();
+            if (isLongValued(d)) {
+                return Long.hashCode((long) d);
+            }
+            return Double.hashCode(d);
+        }
+        return normalize(value).hashCode();
+    }
+
+    /**
+     * Returns the canonical representative of a value.
+     * Integral values within the range of long normalize to Long;
+     * other values exactly representable as double, including NaN
+     * and the infinities, normalize to Double;
+     * all other values normalize to BigDecimal without trailing zeros.
+     * @param value the value
+     * @return the canonical value, which is value itself
+     *         if it is already canonical
+     * @throws IllegalArgumentException if value is null
+     */
+    public static Number normalize(final Number value)
+        throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException();
+        }
+        if (value instanceof Long) {
+            return value;
+        }
+        if (isIntegral(value)) {
+            return Long.valueOf(value.longValue());
+        }
+        if (isFloatingPoint(value) || !isExact(value)) {
+            double d = value.doubleValue();
+            if (isLongValued(d)) {
+                return Long.valueOf((long) d);
+            }
+            if (value instanceof Double) {
+                return value;
+            }
+            return Double.valueOf(d);
+        }
+        BigDecimal decimal = decimalValue(value);
+        if (decimal.signum() == 0) {
+            return Long.valueOf(0);
+        }
+        decimal = decimal.stripTrailingZeros();
+        if (decimal.scale() <= 0
+            && decimal.precision() - decimal.scale() <= MAX_LONG_DIGITS
+            && decimal.toBigInteger().bitLength() <= LONG_MAGNITUDE_BITS) {
+            return Long.valueOf(decimal.longValue());
+        }
+        double d = decimal.doubleValue();
+        if (!Double.isInfinite(d)
+            && new BigDecimal(d).compareTo(decimal) == 0) {
+            return Double.valueOf(d);
+        }
+        return decimal;
+    }
+
+    /**
+     * Compares two doubles numerically, equating negative zero and zero.
+     * @param double1 first value for comparison
+     * @param double2 second value for comparison
+     * @return a negative integer, zero, or a positive integer
+     *         as double1 is less than, equal to, or greater than double2
+     */
+    private static int compareDoubles(final double double1,
+                                      final double double2) {
+        if (double1 < double2) {
+            return -1;
+        }
+        if (double1 > double2) {
+            return 1;
+        }
+        if (Double.isNaN(double1) || Double.isNaN(double2)) {
+            return Double.compare(double1, double2);
+        }
+        return 0;
+    }
+
+    /**
+     * Compares a long with a double exactly.
+     * @param l the long
+     * @param d the double
+     * @return a negative integer, zero, or a positive integer
+     *         as l is less than, equal to, or greater than d
+     */
+    private static int compareLongDouble(final long l, final double d) {
+        if (Double.isNaN(d) || d >= LONG_LIMIT) {
+            return -1;
+        }
+        if (d < -LONG_LIMIT) {
+            return 1;
+        }
+        // d is now within the range of long, where truncation is exact.
+        long whole = (long) d;
+        if (l != whole) {
+            return Long.compare(l, whole);
+        }
+        return compareDoubles(0, d - whole);
+    }
+
+    /**
+     * Compares values at least one of which is not
+     * a primitive wrapper type.
+     * @param value1 first value for comparison
+     * @param value2 second value for comparison
+     * @return a negative integer, zero, or a positive integer
+     *         as value1 is less than, equal to, or greater than value2
+     */
+    private static int compareGeneral(final Number value1,
+                                      final Number value2) {
+        if (value1 instanceof BigInteger && isIntegral(value2)
+            && ((BigInteger) value1).bitLength() <= LONG_MAGNITUDE_BITS) {
+            return Long.compare(value1.longValue(), value2.longValue());
+        }
+        if (value2 instanceof BigInteger && isIntegral(value1)
+            && ((BigInteger) value2).bitLength() <= LONG_MAGNITUDE_BITS) {
+            return Long.compare(value1.longValue(), value2.longValue());
+        }
+        double double1 = value1.doubleValue();
+        double double2 = value2.doubleValue();
+        // Rounding to double preserves order, so unequal doubles decide.
+        int order = compareDoubles(double1, double2);
+        if (order != 0 || Double.isNaN(double1)
+            || !isExact(value1) || !isExact(value2)) {
+            return order;
+        }
+        if (Double.isInfinite(double1)) {
+            // A true infinity exceeds a finite value too large for double.
+            if (isFloatingPoint(value1)) {
+                return (int) Math.signum(double1);
+            }
+            if (isFloatingPoint(value2)) {
+                return -(int) Math.signum(double2);
+            }
+        }
+        return decimalValue(value1).compareTo(decimalValue(value2));
+    }
+
+    /**
+     * Determines whether a double holds an integer
+     * within the range of long.
+     * @param d the double
+     * @return true if d is integral and within the range of long
+     */
+    private static boolean isLongValued(final double d) {
+        return d >= -LONG_LIMIT && d < LONG_LIMIT && d == Math.rint(d);
+    }
+
+    /**
+     * Determines whether a value is of a primitive integral wrapper type.
+     * @param value the value to examine
+     * @return true if the value is a Byte, Short, Integer or Long
+     */
+    private static boolean isIntegral(final Number value) {
+        return value instanceof Integer || value instanceof Long
+            || value instanceof Short || value instanceof Byte;
+    }
+
+    /**
+     * Determines whether a value is of a primitive floating-point
+     * wrapper type, and so is exactly represented as a double.
+     * @param value the value to examine
+     * @return true if the value is a Float or Double
+     */
+    private static boolean isFloatingPoint(final Number value) {
+        return value instanceof Double || value instanceof Float;
+    }
+
+    /**
+     * Determines whether a value's type is compared exactly.
+     * @param value the value to examine
+     * @return true for the primitive wrapper types,
+     *         BigInteger and BigDecimal
+     */
+    private static boolean isExact(final Number value) {
+        return isIntegral(value) || isFloatingPoint(value)
+            || value instanceof BigInteger || value instanceof BigDecimal;
+    }
+
+    /**
+     * Converts a finite value of an exactly compared type
+     * to an exactly equal BigDecimal.
+     * @param value the value to convert
+     * @return the exact decimal representation of the value
+     */
+    private static BigDecimal decimalValue(final Number value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        }
+        if (isIntegral(value)) {
+            return BigDecimal.valueOf(value.longValue());
+        }
+        return new BigDecimal(value.doubleValue());
+    }
+
+    /**
+     * Preserves the single instance on deserialization.
+     * @return the shared instance
+     */
+    private Object readResolve() {
+        return INSTANCE;
+    }
+}
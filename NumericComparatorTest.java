@@ -0,0 +1,178 @@
+// NumericComparatorTest.java
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for NumericComparator.
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public class NumericComparatorTest {
+    /** Largest integer below which every integer is a double, 2^53. */
+    private static final long DOUBLE_EXACT_LIMIT = 1L << 53;
+    /** A value for comparisons of assorted types. */
+    private static final int SEVEN = 7;
+
+    /**
+     * Determines the sign of a comparison.
+     * @param value1 first value for comparison
+     * @param value2 second value for comparison
+     * @return -1, 0 or 1
+     */
+    private static int sign(final Number value1, final Number value2) {
+        return Integer.signum(
+                NumericComparator.INSTANCE.compare(value1, value2));
+    }
+
+    /**
+     * Verifies that values of every type representing the same number
+     * compare equal, hash equally and normalize equally.
+     */
+    @Test
+    public void mixedTypesEqualTest() {
+        Number[] sevens = {(byte) SEVEN, (short) SEVEN, SEVEN, (long) SEVEN,
+                           (float) SEVEN, (double) SEVEN,
+                           BigInteger.valueOf(SEVEN),
+                           new BigDecimal("7.000")};
+        for (Number first : sevens) {
+            for (Number second : sevens) {
+                assertEquals(0, sign(first, second));
+                assertTrue(NumericComparator.equal(first, second));
+                assertEquals(NumericComparator.hash(first),
+                             NumericComparator.hash(second));
+                assertEquals(NumericComparator.normalize(first),
+                             NumericComparator.normalize(second));
+            }
+        }
+        assertEquals(Long.valueOf(SEVEN),
+                     NumericComparator.normalize(new BigDecimal("7.000")));
+    }
+
+    /**
+     * Verifies exact comparison of longs with doubles that cannot
+     * represent them.
+     */
+    @Test
+    public void longDoublePrecisionTest() {
+        long odd = DOUBLE_EXACT_LIMIT + 1;
+        double rounded = (double) odd;
+        assertEquals(1, sign(odd, rounded));
+        assertEquals(-1, sign(rounded, odd));
+        assertEquals(0, sign(DOUBLE_EXACT_LIMIT, rounded));
+        assertEquals(-1, sign(Long.MAX_VALUE, (double) Long.MAX_VALUE));
+        assertEquals(0, sign(Long.MIN_VALUE, (double) Long.MIN_VALUE));
+        assertEquals(-1, sign(1L, Math.nextUp(1.0)));
+        assertEquals(1, sign(2L, Math.nextDown(2.0)));
+        assertFalse(NumericComparator.equal(odd, rounded));
+    }
+
+    /**
+     * Verifies exact comparison of BigInteger and BigDecimal values.
+     */
+    @Test
+    public void bigValuesTest() {
+        BigInteger beyond = BigInteger.valueOf(Long.MAX_VALUE)
+                .add(BigInteger.ONE);
+        assertEquals(1, sign(beyond, Long.MAX_VALUE));
+        assertEquals(0, sign(beyond, 0x1p63));
+        assertEquals(-1, sign(beyond.add(BigInteger.ONE), Double.NaN));
+        assertEquals(-1, sign(new BigDecimal("0.1"), 0.1f));
+        assertEquals(1, sign(new BigDecimal("0.1000000000000000056"), 0.1));
+        assertEquals(-1, sign(new BigDecimal("0.1"), 0.1));
+        assertEquals(0, sign(new BigDecimal(0.1), 0.1));
+        BigDecimal huge = new BigDecimal("1e400");
+        assertEquals(-1, sign(huge, Double.POSITIVE_INFINITY));
+        assertEquals(1, sign(huge, Double.MAX_VALUE));
+        assertEquals(1, sign(huge, new BigDecimal("9e399")));
+        assertEquals(new BigDecimal("1e400"),
+                     NumericComparator.normalize(new BigDecimal("10e399")));
+        assertEquals(Double.valueOf(0.5),
+                     NumericComparator.normalize(new BigDecimal("0.50")));
+    }
+
+    /**
+     * Verifies the treatment of NaN and negative zero.
+     */
+    @Test
+    public void specialValuesTest() {
+        assertEquals(0, sign(-0.0, 0));
+        assertEquals(0, sign(-0.0f, 0.0));
+        assertEquals(NumericComparator.hash(0), NumericComparator.hash(-0.0));
+        assertEquals(Long.valueOf(0), NumericComparator.normalize(-0.0));
+        assertEquals(0, sign(Double.NaN, Float.NaN));
+        assertEquals(1, sign(Double.NaN, Double.POSITIVE_INFINITY));
+        assertEquals(1, sign(Float.NaN, Long.MAX_VALUE));
+        assertEquals(-1, sign(Double.NEGATIVE_INFINITY, Long.MIN_VALUE));
+        assertEquals(NumericComparator.hash(Double.NaN),
+                     NumericComparator.hash(Float.NaN));
+    }
+
+    /**
+     * Verifies that already canonical values are returned unchanged.
+     */
+    @Test
+    public void normalizeIdentityTest() {
+        Long whole = Long.valueOf(DOUBLE_EXACT_LIMIT);
+        Double fraction = Double.valueOf(0.5);
+        assertSame(whole, NumericComparator.normalize(whole));
+        assertSame(fraction, NumericComparator.normalize(fraction));
+    }
+
+    /**
+     * Verifies sorting a list of mixed types.
+     */
+    @Test
+    public void sortMixedListTest() {
+        List<Number> values = new ArrayList<Number>(Arrays.<Number>asList(
+                Double.NaN, 2.5f, BigInteger.TEN, -1, (byte) 0,
+                new BigDecimal("2.25"), Long.MIN_VALUE, -0.5));
+        Collections.sort(values, NumericComparator.INSTANCE);
+        assertEquals("[-9223372036854775808, -1, -0.5, 0, 2.25, 2.5, 10, NaN]",
+                     values.toString());
+    }
+
+    /**
+     * Verifies that comparisons of primitive longs and doubles
+     * agree with comparisons of their wrappers.
+     */
+    @Test
+    public void primitiveComparisonTest() {
+        long odd = DOUBLE_EXACT_LIMIT + 1;
+        Number[] values = {(byte) SEVEN, -SEVEN, odd, (double) odd, 0.5f,
+                           -0.0, Double.NaN, Double.NEGATIVE_INFINITY,
+                           Long.MAX_VALUE, (double) Long.MAX_VALUE,
+                           BigInteger.valueOf(Long.MAX_VALUE).add(
+                                   BigInteger.ONE),
+                           new BigDecimal("0.1"), new BigDecimal("1e400")};
+        long[] longs = {Long.MIN_VALUE, -SEVEN, 0, odd, Long.MAX_VALUE};
+        double[] doubles = {Double.NaN, -0.0, 0.1, 0.5, (double) odd,
+                            Double.POSITIVE_INFINITY, -Double.MAX_VALUE};
+        for (Number value : values) {
+            for (long l : longs) {
+                assertEquals(sign(l, value), Integer.signum(
+                        NumericComparator.compareLong(l, value)));
+            }
+            for (double d : doubles) {
+                assertEquals(sign(d, value), Integer.signum(
+                        NumericComparator.compareDouble(d, value)));
+            }
+        }
+    }
+
+    /**
+     * Verifies exception for a null value.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void nullValueException() {
+        NumericComparator.INSTANCE.compare(1, null);
+    }
+}
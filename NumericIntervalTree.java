@@ -0,0 +1,481 @@
+// NumericIntervalTree.java
+import java.util.ArrayList;
+import java.util.List;
+/**
+ * A collection of closed numeric intervals supporting overlap queries.
+ * <p>
+ * Intervals are kept in a binary search tree ordered by their low
+ * endpoints, then by their high endpoints, and balanced as an AVL tree
+ * so its height is logarithmic.
+ * Each node also records the greatest high endpoint in its subtree,
+ * which lets a query skip every subtree whose intervals all end
+ * before the query begins.
+ * Finding the k intervals overlapping a query therefore takes time
+ * proportional to log n + k rather than a scan of all intervals.
+ * </p>
+ * <p>
+ * Endpoints of different Number types are compared numerically,
+ * as by {@link NumericComparator}.
+ * Duplicate intervals are permitted.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public final class NumericIntervalTree {
+
+    /** Root of the tree; null if there are no intervals. */
+    private Node root;
+
+    /** Number of intervals. */
+    private int size;
+
+    /**
+     * Returns the number of intervals in this tree.
+     * @return the number of intervals
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Empty tree predicate.
+     * @return <code>true</code> if this tree holds no intervals;
+     *         <code>false</code> otherwise
+     */
+    public boolean isEmpty() {
+        return this.root == null;
+    }
+
+    /**
+     * Determines the height of this tree.
+     * @return the height of this tree, -1 if empty
+     */
+    public int height() {
+        return height(this.root);
+    }
+
+    /**
+     * Inserts an interval.
+     * @param low the least value of the interval
+     * @param high the greatest value of the interval
+     * @throws IllegalArgumentException if either endpoint is null
+     *         or low is greater than high
+     */
+    public void insert(final Number low, final Number high)
+        throws IllegalArgumentException {
+        this.root = insert(this.root, new Interval(low, high));
+        this.size++;
+    }
+
+    /**
+     * Removes one interval with endpoints numerically equal to
+     * those given.
+     * @param low the least value of the interval
+     * @param high the greatest value of the interval
+     * @return true if an interval was removed;
+     *         false if no such interval was present
+     * @throws IllegalArgumentException if either endpoint is null
+     *         or low is greater than high
+     */
+    public boolean remove(final Number low, final Number high)
+        throws IllegalArgumentException {
+        Interval interval = new Interval(low, high);
+        int before = this.size;
+        this.root = remove(this.root, interval);
+        return this.size != before;
+    }
+
+    /**
+     * Determines whether any interval overlaps a range.
+     * Runs in time proportional to the height of the tree.
+     * @param low the least value of the range
+     * @param high the greatest value of the range
+     * @return true if some interval shares at least one value
+     *         with the range
+     * @throws IllegalArgumentException if either bound is null
+     *         or low is greater than high
+     */
+    public boolean overlapsAny(final Number low, final Number high)
+        throws IllegalArgumentException {
+        Interval range = new Interval(low, high);
+        Node node = this.root;
+        while (node != null) {
+            if (node.interval.overlaps(range)) {
+                return true;
+            }
+            // If any interval overlaps, one does on the left whenever
+            // the left subtree reaches the range.
+            if (node.left != null
+                && NumericComparator.compareNumbers(
+                        node.left.maxHigh, range.low) >= 0) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns all intervals overlapping a range.
+     * @param low the least value of the range
+     * @param high the greatest value of the range
+     * @return the intervals sharing at least one value with the range,
+     *         ordered by low endpoint then high endpoint
+     * @throws IllegalArgumentException if either bound is null
+     *         or low is greater than high
+     */
+    public List<Interval> overlapping(final Number low, final Number high)
+        throws IllegalArgumentException {
+        List<Interval> found = new ArrayList<Interval>();
+        collectOverlapping(this.root, new Interval(low, high), found);
+        return found;
+    }
+
+    /**
+     * Returns all intervals containing a value.
+     * @param point the value
+     * @return the intervals that include the value,
+     *         ordered by low endpoint then high endpoint
+     * @throws IllegalArgumentException if point is null
+     */
+    public List<Interval> containing(final Number point)
+        throws IllegalArgumentException {
+        return overlapping(point, point);
+    }
+
+    /**
+     * Returns all intervals in order.
+     * @return the intervals ordered by low endpoint then high endpoint
+     */
+    public List<Interval> intervals() {
+        List<Interval> all = new ArrayList<Interval>();
+        collectAll(this.root, all);
+        return all;
+    }
+
+    /**
+     * Adds the intervals of a subtree overlapping a range to a list.
+     * @param node the subtree; may be null
+     * @param range the range
+     * @param found the list of intervals found
+     */
+    private static void collectOverlapping(final Node node,
+                                           final Interval range,
+                                           final List<Interval> found) {
+        if (node == null
+            || NumericComparator.compareNumbers(node.maxHigh, range.low) < 0) {
+            return;
+        }
+        collectOverlapping(node.left, range, found);
+        if (NumericComparator.compareNumbers(node.interval.low,
+                                              range.high) > 0) {
+            // This and every interval to the right begin too late.
+            return;
+        }
+        if (node.interval.overlaps(range)) {
+            found.add(node.interval);
+        }
+        collectOverlapping(node.right, range, found);
+    }
+
+    /**
+     * Adds the intervals of a subtree to a list in order.
+     * @param node the subtree; may be null
+     * @param all the list of intervals
+     */
+    private static void collectAll(final Node node,
+                                   final List<Interval> all) {
+        if (node != null) {
+            collectAll(node.left, all);
+            all.add(node.interval);
+            collectAll(node.right, all);
+        }
+    }
+
+    /**
+     * Inserts an interval into a subtree.
+     * @param node the subtree; may be null
+     * @param interval the interval to insert
+     * @return the balanced subtree
+     */
+    private static Node insert(final Node node, final Interval interval) {
+        if (node == null) {
+            return new Node(interval);
+        }
+        if (interval.compareTo(node.interval) < 0) {
+            node.left = insert(node.left, interval);
+        } else {
+            node.right = insert(node.right, interval);
+        }
+        return rebalance(node);
+    }
+
+    /**
+     * Removes an interval from a subtree.
+     * @param node the subtree; may be null
+     * @param interval the interval to remove
+     * @return the balanced subtree
+     */
+    private Node remove(final Node node, final Interval interval) {
+        if (node == null) {
+            return null;
+        }
+        int order = interval.compareTo(node.interval);
+        if (order < 0) {
+            node.left = remove(node.left, interval);
+        } else if (order > 0) {
+            node.right = remove(node.right, interval);
+        } else {
+            this.size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.right = removeFirst(node.right);
+            node.interval = successor.interval;
+        }
+        return rebalance(node);
+    }
+
+    /**
+     * Removes the first interval of a nonempty subtree.
+     * @param node the subtree
+     * @return the balanced subtree
+     */
+    private static Node removeFirst(final Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeFirst(node.left);
+        return rebalance(node);
+    }
+
+    /**
+     * Restores the balance and augmentation of a subtree
+     * whose children are balanced and differ in height by at most 2.
+     * @param node the subtree
+     * @return the balanced subtree
+     */
+    private static Node rebalance(final Node node) {
+        Node top = node;
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            top = rotateRight(node);
+        } else if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            top = rotateLeft(node);
+        } else {
+            top.update();
+        }
+        return top;
+    }
+
+    /**
+     * Rotates a subtree to the left.
+     * @param node the subtree, which has a right child
+     * @return the new root of the subtree
+     */
+    private static Node rotateLeft(final Node node) {
+        Node top = node.right;
+        node.right = top.left;
+        top.left = node;
+        node.update();
+        top.update();
+        return top;
+    }
+
+    /**
+     * Rotates a subtree to the right.
+     * @param node the subtree, which has a left child
+     * @return the new root of the subtree
+     */
+    private static Node rotateRight(final Node node) {
+        Node top = node.left;
+        node.left = top.right;
+        top.right = node;
+        node.update();
+        top.update();
+        return top;
+    }
+
+    /**
+     * Returns the height of a subtree.
+     * @param node the subtree; may be null
+     * @return the height; -1 if null
+     */
+    private static int height(final Node node) {
+        if (node == null) {
+            return -1;
+        }
+        return node.height;
+    }
+
+    /**
+     * A closed interval of numbers.
+     */
+    public static final class Interval implements Comparable<Interval> {
+
+        /** The least value of the interval. */
+        private final Number low;
+
+        /** The greatest value of the interval. */
+        private final Number high;
+
+        /**
+         * Constructs an interval.
+         * @param least the least value of the interval
+         * @param greatest the greatest value of the interval
+         * @throws IllegalArgumentException if either endpoint is null
+         *         or least is greater than greatest
+         */
+        public Interval(final Number least, final Number greatest)
+            throws IllegalArgumentException {
+            if (least == null || greatest == null
+                || NumericComparator.compareNumbers(least, greatest) > 0) {
+                throw new IllegalArgumentException(
+                        "Invalid interval " + least + ", " + greatest);
+            }
+            this.low = least;
+            this.high = greatest;
+        }
+
+        /**
+         * Returns the least value of this interval.
+         * @return the low endpoint
+         */
+        public Number getLow() {
+            return this.low;
+        }
+
+        /**
+         * Returns the greatest value of this interval.
+         * @return the high endpoint
+         */
+        public Number getHigh() {
+            return this.high;
+        }
+
+        /**
+         * Determines whether this interval shares a value with another.
+         * @param other the other interval
+         * @return true if the intervals overlap
+         */
+        public boolean overlaps(final Interval other) {
+            return NumericComparator.compareNumbers(this.low, other.high) <= 0
+                   && NumericComparator.compareNumbers(other.low,
+                                                        this.high) <= 0;
+        }
+
+        /**
+         * Orders intervals by low endpoint, then by high endpoint,
+         * comparing endpoints numerically.
+         * @param other the interval with which to compare
+         * @return a negative integer, zero, or a positive integer
+         *         as this interval is before, equal to, or after other
+         */
+        @Override
+        public int compareTo(final Interval other) {
+            int order = NumericComparator.compareNumbers(this.low, other.low);
+            if (order == 0) {
+                order = NumericComparator.compareNumbers(this.high,
+                                                          other.high);
+            }
+            return order;
+        }
+
+        /**
+         * Indicates whether another interval has equal endpoints
+         * of the same types.
+         * @param obj the reference object with which to compare
+         * @return true if obj is an interval with equal endpoints
+         */
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Interval)) {
+                return false;
+            }
+            Interval other = (Interval) obj;
+            return this.low.equals(other.low) && this.high.equals(other.high);
+        }
+
+        /**
+         * Returns a hash code consistent with equals.
+         * @return the hash code
+         */
+        @Override
+        public int hashCode() {
+            return this.low.hashCode() * Integer.SIZE + this.high.hashCode();
+        }
+
+        /**
+         * Renders this interval.
+         * @return the endpoints in brackets
+         */
+        @Override
+        public String toString() {
+            return "[" + this.low + ", " + this.high + "]";
+        }
+    }
+
+    /**
+     * A node of the interval tree.
+     */
+    private static final class Node {
+
+        /** The interval held by this node. */
+        private Interval interval;
+
+        /** Left subtree; null if none. */
+        private Node left;
+
+        /** Right subtree; null if none. */
+        private Node right;
+
+        /** Height of this subtree. */
+        private int height;
+
+        /** Greatest high endpoint in this subtree. */
+        private Number maxHigh;
+
+        /**
+         * Constructs a leaf.
+         * @param value the interval held by the leaf
+         */
+        Node(final Interval value) {
+            this.interval = value;
+            this.maxHigh = value.high;
+        }
+
+        /**
+         * Recomputes the height and greatest high endpoint
+         * from the children.
+         */
+        void update() {
+            this.height = 1 + Math.max(height(this.left), height(this.right));
+            Number max = this.interval.high;
+            if (this.left != null
+                && NumericComparator.compareNumbers(this.left.maxHigh,
+                                                     max) > 0) {
+                max = this.left.maxHigh;
+            }
+            if (this.right != null
+                && NumericComparator.compareNumbers(this.right.maxHigh,
+                                                     max) > 0) {
+                max = this.right.maxHigh;
+            }
+            this.maxHigh = max;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+// NumericIntervalTreeTest.java
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for NumericIntervalTree.
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public class NumericIntervalTreeTest {
+    /** Number of intervals in generated random trees. */
+    private static final int RANDOM_SIZE = 2000;
+    /** Range of generated interval endpoints. */
+    private static final int RANDOM_RANGE = 10000;
+    /** Greatest length of generated intervals. */
+    private static final int MAX_LENGTH = 100;
+    /** Number of queries against generated random trees. */
+    private static final int QUERIES = 500;
+    /** Seed for generated random trees. */
+    private static final long SEED = 2016081718L;
+    /** Bound on AVL height relative to the base 2 logarithm of size. */
+    private static final double AVL_HEIGHT_FACTOR = 1.45;
+
+    /**
+     * Lists the intervals of a list overlapping a range, by scanning.
+     * @param all the intervals in order
+     * @param low the least value of the range
+     * @param high the greatest value of the range
+     * @return the overlapping intervals in order
+     */
+    private List<NumericIntervalTree.Interval> scan(
+            final List<NumericIntervalTree.Interval> all,
+            final long low, final long high) {
+        NumericIntervalTree.Interval range
+                = new NumericIntervalTree.Interval(low, high);
+        List<NumericIntervalTree.Interval> found
+                = new ArrayList<NumericIntervalTree.Interval>();
+        for (NumericIntervalTree.Interval interval : all) {
+            if (interval.overlaps(range)) {
+                found.add(interval);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Verifies that the height is within the AVL bound.
+     * @param tree the tree to examine
+     */
+    private void assertBalanced(final NumericIntervalTree tree) {
+        double log2 = Math.log(tree.size() + 2) / Math.log(2);
+        assertTrue(tree.height() <= AVL_HEIGHT_FACTOR * log2);
+    }
+
+    /**
+     * Verifies queries of an empty tree.
+     */
+    @Test
+    public void emptyTreeTest() {
+        NumericIntervalTree tree = new NumericIntervalTree();
+        assertTrue(tree.isEmpty());
+        assertEquals(-1, tree.height());
+        assertTrue(tree.containing(0).isEmpty());
+        assertFalse(tree.overlapsAny(0, 1));
+        assertFalse(tree.remove(0, 1));
+    }
+
+    /**
+     * Verifies overlap and stabbing queries against a scan,
+     * before and after removals.
+     */
+    @Test
+    public void randomIntervalsTest() {
+        Random random = new Random(SEED);
+        NumericIntervalTree tree = new NumericIntervalTree();
+        for (int i = 0; i < RANDOM_SIZE; i++) {
+            long low = random.nextInt(RANDOM_RANGE);
+            tree.insert(low, low + random.nextInt(MAX_LENGTH));
+        }
+        assertEquals(RANDOM_SIZE, tree.size());
+        assertBalanced(tree);
+        for (int round = 0; round < 2; round++) {
+            List<NumericIntervalTree.Interval> all = tree.intervals();
+            for (int i = 0; i < QUERIES; i++) {
+                long low = random.nextInt(RANDOM_RANGE);
+                long high = low + random.nextInt(MAX_LENGTH);
+                List<NumericIntervalTree.Interval> expected
+                        = scan(all, low, high);
+                assertEquals(expected, tree.overlapping(low, high));
+                assertEquals(!expected.isEmpty(),
+                             tree.overlapsAny(low, high));
+                assertEquals(scan(all, low, low), tree.containing(low));
+            }
+            for (int i = 0; i < RANDOM_SIZE / 2; i++) {
+                NumericIntervalTree.Interval interval
+                        = all.get(random.nextInt(all.size()));
+                tree.remove(interval.getLow(), interval.getHigh());
+            }
+            assertBalanced(tree);
+        }
+    }
+
+    /**
+     * Verifies intervals with endpoints of mixed types.
+     */
+    @Test
+    public void mixedTypesTest() {
+        NumericIntervalTree tree = new NumericIntervalTree();
+        tree.insert(1.5, 2);
+        tree.insert(0, 1L);
+        tree.insert(2.5f, 2.5f);
+        tree.insert(1, 1);
+        assertEquals(2, tree.containing(1.0).size());
+        assertEquals(1, tree.containing(2.5).size());
+        assertFalse(tree.overlapsAny(2.1, 2.4));
+        assertTrue(tree.remove(1.0, 1.0));
+        assertFalse(tree.remove(1.0, 1.0));
+        assertEquals("[[0, 1], [1.5, 2], [2.5, 2.5]]",
+                     tree.intervals().toString());
+    }
+
+    /**
+     * Verifies exception for an interval whose low exceeds its high.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidIntervalException() {
+        new NumericIntervalTree().insert(2, 1);
+    }
+}
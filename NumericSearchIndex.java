@@ -0,0 +1,220 @@
+// NumericSearchIndex.java
+import java.util.ArrayList;
+import java.util.List;
+/**
+ * Read-only search index over the values of a binary search tree.
+ * <p>
+ * The values are copied, in order, into a contiguous array using the
+ * Eytzinger (level order) layout: the root of a balanced search tree
+ * over the values is at index 1 and the children of index k are at
+ * 2k and 2k + 1.
+ * The first levels of every search then share the same few cache lines,
+ * and the search descends by index arithmetic alone,
+ * without following references or branching on comparisons,
+ * so lookups cost far fewer cache misses than walking the nodes of the
+ * original tree.
+ * </p>
+ * <p>
+ * If every value is a Byte, Short, Integer or Long,
+ * values are compared exactly as longs.
+ * Otherwise all values are compared by their double values,
+ * so very large integral values and other Number types may compare
+ * equal to nearby values.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public final class NumericSearchIndex {
+
+    /** Largest number of values, so that indices cannot overflow. */
+    private static final int MAX_SIZE = 1 << (Integer.SIZE - 2);
+
+    /** Smallest double too large to be a long. */
+    private static final double LONG_LIMIT = 0x1p63;
+
+    /** Number of values. */
+    private final int size;
+
+    /** Keys in Eytzinger order, starting at index 1. */
+    private final long[] keys;
+
+    /** Values in Eytzinger order, starting at index 1. */
+    private final Number[] values;
+
+    /** Whether keys are exact long values rather than double keys. */
+    private final boolean integral;
+
+    /**
+     * Constructs an index over the values of a binary search tree.
+     * Later changes to the tree are not reflected in the index.
+     * @param tree the tree to index, whose inorder values
+     *        must be in nondecreasing order; may be empty
+     * @throws IllegalArgumentException if tree is null or its values
+     *         are not in binary search tree order
+     */
+    public NumericSearchIndex(final NumericBinaryTree tree)
+        throws IllegalArgumentException {
+        if (tree == null) {
+            throw new IllegalArgumentException("null tree");
+        }
+        List<Number> sorted = new ArrayList<Number>();
+        for (NumericBinaryTree node : tree.inorderNodes()) {
+            sorted.add(node.getValue());
+        }
+        if (sorted.size() > MAX_SIZE) {
+            throw new IllegalArgumentException("Too many values");
+        }
+        boolean allIntegral = true;
+        for (Number value : sorted) {
+            allIntegral &= isIntegral(value);
+        }
+        this.integral = allIntegral;
+        this.size = sorted.size();
+        long[] sortedKeys = new long[this.size];
+        for (int i = 0; i < this.size; i++) {
+            sortedKeys[i] = keyOf(sorted.get(i));
+            if (i > 0 && sortedKeys[i] < sortedKeys[i - 1]) {
+                throw new IllegalArgumentException(
+                        "Not a search tree at " + sorted.get(i));
+            }
+        }
+        this.keys = new long[this.size + 1];
+        this.values = new Number[this.size + 1];
+        layout(sorted, sortedKeys, 1, 0);
+    }
+
+    /**
+     * Places sorted values into Eytzinger order by an inorder walk
+     * of the implicit tree; the recursion depth is logarithmic.
+     * @param sorted values in order
+     * @param sortedKeys keys of the values
+     * @param index the implicit node to fill
+     * @param next the position of the next unplaced value
+     * @return the position of the next unplaced value after the subtree
+     */
+    private int layout(final List<Number> sorted, final long[] sortedKeys,
+                       final int index, final int next) {
+        if (index > this.size) {
+            return next;
+        }
+        int position = layout(sorted, sortedKeys, 2 * index, next);
+        this.keys[index] = sortedKeys[position];
+        this.values[index] = sorted.get(position);
+        return layout(sorted, sortedKeys, 2 * index + 1, position + 1);
+    }
+
+    /**
+     * Determines whether a value is compared exactly as a long.
+     * @param value the value
+     * @return true for Byte, Short, Integer and Long
+     */
+    private static boolean isIntegral(final Number value) {
+        return value instanceof Long || value instanceof Integer
+               || value instanceof Short || value instanceof Byte;
+    }
+
+    /**
+     * Converts a value held in the index to its key.
+     * @param value the value
+     * @return the key
+     */
+    private long keyOf(final Number value) {
+        if (this.integral) {
+            return value.longValue();
+        }
+        return doubleKey(value.doubleValue());
+    }
+
+    /**
+     * Converts a double to a long that orders in the same way,
+     * treating negative zero as zero.
+     * @param value the double
+     * @return the key
+     */
+    private static long doubleKey(final double value) {
+        long bits = Double.doubleToLongBits(value + 0.0);
+        return bits ^ ((bits >> (Long.SIZE - 1)) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Compares two longs without branching.
+     * @param a the first long
+     * @param b the second long
+     * @return 1 if a is less than b; 0 otherwise
+     */
+    private static int lessThan(final long a, final long b) {
+        long difference = a - b;
+        return (int) ((difference ^ ((a ^ b) & (difference ^ a)))
+                      >>> (Long.SIZE - 1));
+    }
+
+    /**
+     * Finds the first key in order that is not less than a key.
+     * @param key the key sought
+     * @return the index of that key; 0 if every key is less
+     */
+    private int lowerBound(final long key) {
+        int k = 1;
+        while (k <= this.size) {
+            k = 2 * k + lessThan(this.keys[k], key);
+        }
+        // Undo the right turns taken after the last left turn.
+        return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    /**
+     * Returns the number of values in this index.
+     * @return the number of values
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Determines whether the index holds a value numerically equal
+     * to a value.
+     * @param value the value sought
+     * @return true if such a value is present
+     * @throws IllegalArgumentException if value is null
+     */
+    public boolean contains(final Number value)
+        throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException("null value");
+        }
+        if (this.integral && !isIntegral(value)) {
+            double d = value.doubleValue();
+            if (d != Math.rint(d) || Math.abs(d) >= LONG_LIMIT) {
+                return false;
+            }
+        }
+        long key = keyOf(value);
+        int index = lowerBound(key);
+        return index != 0 && this.keys[index] == key;
+    }
+
+    /**
+     * Returns the least value greater than or equal to a value.
+     * @param value the value sought
+     * @return the least such value held; null if there is none
+     * @throws IllegalArgumentException if value is null
+     */
+    public Number ceiling(final Number value)
+        throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException("null value");
+        }
+        long key;
+        if (this.integral && !isIntegral(value)) {
+            double d = Math.ceil(value.doubleValue());
+            if (Double.isNaN(d) || d >= LONG_LIMIT) {
+                return null;
+            }
+            // Values below the range of long saturate to Long.MIN_VALUE.
+            key = (long) d;
+        } else {
+            key = keyOf(value);
+        }
+        return this.values[lowerBound(key)];
+    }
+}
@@ -0,0 +1,150 @@
+// NumericSearchIndexTest.java
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Tests for NumericSearchIndex.
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public class NumericSearchIndexTest {
+    /** Number of values in generated random trees. */
+    private static final int RANDOM_SIZE = 3000;
+    /** Range of generated random values. */
+    private static final int RANDOM_RANGE = 10000;
+    /** Seed for generated random trees. */
+    private static final long SEED = 2016081718L;
+
+    /**
+     * Generates a balanced search tree of the integers in a range.
+     * @param first the least value
+     * @param count the number of values
+     * @return testing tree; null if count is zero
+     */
+    private NumericBinaryTree generateBalancedTree(final long first,
+                                                   final int count) {
+        if (count == 0) {
+            return null;
+        }
+        int leftCount = count / 2;
+        return new NumericBinaryTree(first + leftCount,
+                generateBalancedTree(first, leftCount),
+                generateBalancedTree(first + leftCount + 1,
+                                     count - leftCount - 1));
+    }
+
+    /**
+     * Inserts a value into a search tree, sending ties to the right.
+     * @param root the nonempty root of the tree
+     * @param value the value to insert
+     */
+    private void insert(final NumericBinaryTree root, final int value) {
+        NumericBinaryTree node = root;
+        while (true) {
+            if (value < node.getValue().intValue()) {
+                if (node.getLeftChild() == null) {
+                    node.setLeftChild(new NumericBinaryTree(value));
+                    return;
+                }
+                node = node.getLeftChild();
+            } else {
+                if (node.getRightChild() == null) {
+                    node.setRightChild(new NumericBinaryTree(value));
+                    return;
+                }
+                node = node.getRightChild();
+            }
+        }
+    }
+
+    /**
+     * Verifies the empty index.
+     */
+    @Test
+    public void emptyIndexTest() {
+        NumericSearchIndex index
+                = new NumericSearchIndex(new NumericBinaryTree());
+        assertEquals(0, index.size());
+        assertFalse(index.contains(0));
+        assertNull(index.ceiling(0));
+    }
+
+    /**
+     * Verifies lookups in a random search tree against a TreeSet.
+     */
+    @Test
+    public void randomTreeTest() {
+        Random random = new Random(SEED);
+        TreeSet<Integer> expected = new TreeSet<Integer>();
+        int first = random.nextInt(RANDOM_RANGE);
+        NumericBinaryTree nbt = new NumericBinaryTree(first);
+        expected.add(first);
+        for (int i = 1; i < RANDOM_SIZE; i++) {
+            int value = random.nextInt(RANDOM_RANGE);
+            insert(nbt, value);
+            expected.add(value);
+        }
+        NumericSearchIndex index = new NumericSearchIndex(nbt);
+        assertEquals(RANDOM_SIZE, index.size());
+        for (int key = -1; key <= RANDOM_RANGE; key++) {
+            assertEquals(expected.contains(key), index.contains(key));
+            assertEquals(expected.ceiling(key), index.ceiling(key));
+        }
+    }
+
+    /**
+     * Verifies lookups with keys of other types in an integral index.
+     */
+    @Test
+    public void mixedKeyTest() {
+        NumericSearchIndex index
+                = new NumericSearchIndex(generateBalancedTree(-5, 11));
+        assertTrue(index.contains(3.0));
+        assertTrue(index.contains((byte) -5));
+        assertFalse(index.contains(2.5));
+        assertFalse(index.contains(Double.NaN));
+        assertFalse(index.contains(1e300));
+        assertEquals(3L, index.ceiling(2.5));
+        assertEquals(-5L, index.ceiling(Double.NEGATIVE_INFINITY));
+        assertNull(index.ceiling(5.5));
+        assertNull(index.ceiling(Long.MAX_VALUE));
+    }
+
+    /**
+     * Verifies lookups in an index of floating-point values.
+     */
+    @Test
+    public void floatingPointTest() {
+        NumericBinaryTree nbt = new NumericBinaryTree(0.0,
+                new NumericBinaryTree(-2.5f,
+                        new NumericBinaryTree(Double.NEGATIVE_INFINITY),
+                        null),
+                new NumericBinaryTree(1,
+                        null,
+                        new NumericBinaryTree(Double.MAX_VALUE)));
+        NumericSearchIndex index = new NumericSearchIndex(nbt);
+        assertTrue(index.contains(-0.0));
+        assertTrue(index.contains(-2.5));
+        assertTrue(index.contains(1L));
+        assertFalse(index.contains(-1));
+        assertEquals(-2.5f, index.ceiling(-3));
+        assertEquals(1, index.ceiling(0.5));
+        assertEquals(Double.NEGATIVE_INFINITY,
+                     index.ceiling(-Double.MAX_VALUE * 2));
+        assertNull(index.ceiling(Double.POSITIVE_INFINITY));
+    }
+
+    /**
+     * Verifies exception for a tree not in search order.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void unorderedTreeException() {
+        new NumericSearchIndex(new NumericBinaryTree(1,
+                new NumericBinaryTree(2), null));
+    }
+}
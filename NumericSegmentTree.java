@@ -0,0 +1,394 @@
+// NumericSegmentTree.java
+import java.util.List;
+/**
+ * Range-update and range-query engine over the inorder values of a
+ * NumericBinaryTree.
+ * <p>
+ * Values are addressed by their inorder position, counting from 0,
+ * and ranges are given as a first position, inclusive,
+ * and a last position, exclusive.
+ * A segment tree records the sum, minimum and maximum of each
+ * aligned range of positions; additions to a range are recorded
+ * at the O(log n) segments covering it and pushed toward the
+ * individual values only when a later operation needs them,
+ * so both updates and queries take time proportional to log n.
+ * </p>
+ * <p>
+ * Arithmetic is performed on double values.
+ * Values never changed by an addition keep their original objects
+ * when written back to a tree.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public final class NumericSegmentTree {
+
+    /** Number of segment tree slots allocated per value. */
+    private static final int SLOTS_PER_VALUE = 4;
+
+    /** Number of values. */
+    private final int size;
+
+    /** Original values in inorder. */
+    private final Number[] originals;
+
+    /** Sum of each segment. */
+    private final double[] sums;
+
+    /** Minimum of each segment. */
+    private final double[] mins;
+
+    /** Maximum of each segment. */
+    private final double[] maxes;
+
+    /** Addition pending for the children of each segment. */
+    private final double[] pending;
+
+    /** Whether each segment has had any addition applied. */
+    private final boolean[] changed;
+
+    /**
+     * Constructs an engine over the inorder values of a tree.
+     * Later changes to the tree are not reflected in the engine.
+     * @param tree the tree; may be empty
+     * @throws IllegalArgumentException if tree is null
+     */
+    public NumericSegmentTree(final NumericBinaryTree tree)
+        throws IllegalArgumentException {
+        if (tree == null) {
+            throw new IllegalArgumentException("null tree");
+        }
+        List<NumericBinaryTree> nodes = tree.inorderNodes();
+        this.size = nodes.size();
+        this.originals = new Number[this.size];
+        for (int i = 0; i < this.size; i++) {
+            this.originals[i] = nodes.get(i).getValue();
+        }
+        int slots = Math.max(1, SLOTS_PER_VALUE * this.size);
+        this.sums = new double[slots];
+        this.mins = new double[slots];
+        this.maxes = new double[slots];
+        this.pending = new double[slots];
+        this.changed = new boolean[slots];
+        if (this.size > 0) {
+            build(1, 0, this.size);
+        }
+    }
+
+    /**
+     * Returns the number of values.
+     * @return the number of values
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Adds an amount to every value in a range of positions.
+     * @param from the first position, inclusive
+     * @param to the last position, exclusive
+     * @param delta the amount to add
+     * @throws IllegalArgumentException if the range is invalid
+     */
+    public void add(final int from, final int to, final double delta)
+        throws IllegalArgumentException {
+        checkRange(from, to);
+        if (from < to) {
+            add(1, 0, this.size, from, to, delta);
+        }
+    }
+
+    /**
+     * Returns the value at a position.
+     * @param index the position
+     * @return the value, as a double
+     * @throws IllegalArgumentException if there is no such position
+     */
+    public double get(final int index) throws IllegalArgumentException {
+        checkRange(index, index + 1);
+        return sum(index, index + 1);
+    }
+
+    /**
+     * Sums the values in a range of positions.
+     * @param from the first position, inclusive
+     * @param to the last position, exclusive
+     * @return the sum; 0 if the range is empty
+     * @throws IllegalArgumentException if the range is invalid
+     */
+    public double sum(final int from, final int to)
+        throws IllegalArgumentException {
+        checkRange(from, to);
+        if (from == to) {
+            return 0;
+        }
+        return query(1, 0, this.size, from, to, this.sums);
+    }
+
+    /**
+     * Finds the least value in a nonempty range of positions.
+     * @param from the first position, inclusive
+     * @param to the last position, exclusive
+     * @return the least value
+     * @throws IllegalArgumentException if the range is invalid or empty
+     */
+    public double min(final int from, final int to)
+        throws IllegalArgumentException {
+        checkNonemptyRange(from, to);
+        return query(1, 0, this.size, from, to, this.mins);
+    }
+
+    /**
+     * Finds the greatest value in a nonempty range of positions.
+     * @param from the first position, inclusive
+     * @param to the last position, exclusive
+     * @return the greatest value
+     * @throws IllegalArgumentException if the range is invalid or empty
+     */
+    public double max(final int from, final int to)
+        throws IllegalArgumentException {
+        checkNonemptyRange(from, to);
+        return query(1, 0, this.size, from, to, this.maxes);
+    }
+
+    /**
+     * Writes the current values back into the nodes of a tree in inorder.
+     * Values changed by an addition are written as Doubles;
+     * others keep their original objects.
+     * @param tree a tree with as many nodes as there are values,
+     *        such as the tree from which this engine was built
+     * @throws IllegalArgumentException if tree is null or
+     *         has a different number of nodes
+     */
+    public void writeTo(final NumericBinaryTree tree)
+        throws IllegalArgumentException {
+        if (tree == null || tree.numberOfNodes() != this.size) {
+            throw new IllegalArgumentException("Tree size differs");
+        }
+        Number[] values = currentValues();
+        List<NumericBinaryTree> nodes = tree.inorderNodes();
+        for (int i = 0; i < this.size; i++) {
+            nodes.get(i).setValue(values[i]);
+        }
+    }
+
+    /**
+     * Builds a balanced tree whose inorder values are the current values.
+     * Values changed by an addition are Doubles;
+     * others keep their original objects.
+     * @return the tree; the empty tree if there are no values
+     */
+    public NumericBinaryTree toTree() {
+        if (this.size == 0) {
+            return new NumericBinaryTree();
+        }
+        return balancedTree(currentValues(), 0, this.size);
+    }
+
+    /**
+     * Builds a balanced tree from a range of values.
+     * @param values the values in inorder
+     * @param low the first value to include
+     * @param high one past the last value to include
+     * @return the tree; null if the range is empty
+     */
+    private static NumericBinaryTree balancedTree(final Number[] values,
+                                                  final int low,
+                                                  final int high) {
+        if (low >= high) {
+            return null;
+        }
+        int middle = (low + high) >>> 1;
+        return new NumericBinaryTree(values[middle],
+                balancedTree(values, low, middle),
+                balancedTree(values, middle + 1, high));
+    }
+
+    /**
+     * Resolves all pending additions into the current values.
+     * @return the current values in inorder
+     */
+    private Number[] currentValues() {
+        Number[] values = new Number[this.size];
+        collect(1, 0, this.size, values);
+        return values;
+    }
+
+    /**
+     * Stores the current values of a segment.
+     * @param slot the segment
+     * @param low the first position of the segment
+     * @param high one past the last position of the segment
+     * @param values the current values
+     */
+    private void collect(final int slot, final int low, final int high,
+                         final Number[] values) {
+        if (!this.changed[slot]) {
+            System.arraycopy(this.originals, low, values, low, high - low);
+            return;
+        }
+        if (high - low == 1) {
+            values[low] = this.sums[slot];
+            return;
+        }
+        pushDown(slot, low, high);
+        int middle = (low + high) >>> 1;
+        collect(2 * slot, low, middle, values);
+        collect(2 * slot + 1, middle, high, values);
+    }
+
+    /**
+     * Initializes a segment from the original values.
+     * @param slot the segment
+     * @param low the first position of the segment
+     * @param high one past the last position of the segment
+     */
+    private void build(final int slot, final int low, final int high) {
+        if (high - low == 1) {
+            double value = this.originals[low].doubleValue();
+            this.sums[slot] = value;
+            this.mins[slot] = value;
+            this.maxes[slot] = value;
+            return;
+        }
+        int middle = (low + high) >>> 1;
+        build(2 * slot, low, middle);
+        build(2 * slot + 1, middle, high);
+        pullUp(slot);
+    }
+
+    /**
+     * Adds an amount to the values of a segment within a range.
+     * @param slot the segment
+     * @param low the first position of the segment
+     * @param high one past the last position of the segment
+     * @param from the first position of the range
+     * @param to one past the last position of the range
+     * @param delta the amount to add
+     */
+    private void add(final int slot, final int low, final int high,
+                     final int from, final int to, final double delta) {
+        if (from <= low && high <= to) {
+            apply(slot, high - low, delta);
+            return;
+        }
+        pushDown(slot, low, high);
+        int middle = (low + high) >>> 1;
+        if (from < middle) {
+            add(2 * slot, low, middle, from, to, delta);
+        }
+        if (middle < to) {
+            add(2 * slot + 1, middle, high, from, to, delta);
+        }
+        pullUp(slot);
+        this.changed[slot] = true;
+    }
+
+    /**
+     * Combines values of a segment within a range.
+     * @param slot the segment
+     * @param low the first position of the segment
+     * @param high one past the last position of the segment
+     * @param from the first position of the range
+     * @param to one past the last position of the range
+     * @param aggregate the segment aggregates to combine:
+     *        sums, mins or maxes
+     * @return the combined value
+     */
+    private double query(final int slot, final int low, final int high,
+                         final int from, final int to,
+                         final double[] aggregate) {
+        if (from <= low && high <= to) {
+            return aggregate[slot];
+        }
+        pushDown(slot, low, high);
+        int middle = (low + high) >>> 1;
+        if (to <= middle) {
+            return query(2 * slot, low, middle, from, to, aggregate);
+        }
+        if (middle <= from) {
+            return query(2 * slot + 1, middle, high, from, to, aggregate);
+        }
+        double left = query(2 * slot, low, middle, from, to, aggregate);
+        double right = query(2 * slot + 1, middle, high, from, to,
+                             aggregate);
+        if (aggregate == this.mins) {
+            return Math.min(left, right);
+        }
+        if (aggregate == this.maxes) {
+            return Math.max(left, right);
+        }
+        return left + right;
+    }
+
+    /**
+     * Adds an amount to every value of a whole segment,
+     * deferring the addition to its children.
+     * @param slot the segment
+     * @param length the number of positions in the segment
+     * @param delta the amount to add
+     */
+    private void apply(final int slot, final int length,
+                       final double delta) {
+        this.sums[slot] += delta * length;
+        this.mins[slot] += delta;
+        this.maxes[slot] += delta;
+        this.pending[slot] += delta;
+        this.changed[slot] = true;
+    }
+
+    /**
+     * Passes the pending addition of a segment to its children.
+     * @param slot the segment, which has children
+     * @param low the first position of the segment
+     * @param high one past the last position of the segment
+     */
+    private void pushDown(final int slot, final int low, final int high) {
+        if (this.pending[slot] != 0) {
+            int middle = (low + high) >>> 1;
+            apply(2 * slot, middle - low, this.pending[slot]);
+            apply(2 * slot + 1, high - middle, this.pending[slot]);
+            this.pending[slot] = 0;
+        }
+    }
+
+    /**
+     * Recomputes the aggregates of a segment from its children.
+     * @param slot the segment, which has children
+     */
+    private void pullUp(final int slot) {
+        int left = 2 * slot;
+        int right = left + 1;
+        this.sums[slot] = this.sums[left] + this.sums[right];
+        this.mins[slot] = Math.min(this.mins[left], this.mins[right]);
+        this.maxes[slot] = Math.max(this.maxes[left], this.maxes[right]);
+    }
+
+    /**
+     * Checks that a range of positions is valid.
+     * @param from the first position, inclusive
+     * @param to the last position, exclusive
+     * @throws IllegalArgumentException if the range is invalid
+     */
+    private void checkRange(final int from, final int to)
+        throws IllegalArgumentException {
+        if (from < 0 || to > this.size || from > to) {
+            throw new IllegalArgumentException(
+                    "Invalid range " + from + " to " + to);
+        }
+    }
+
+    /**
+     * Checks that a range of positions is valid and nonempty.
+     * @param from the first position, inclusive
+     * @param to the last position, exclusive
+     * @throws IllegalArgumentException if the range is invalid or empty
+     */
+    private void checkNonemptyRange(final int from, final int to)
+        throws IllegalArgumentException {
+        checkRange(from, to);
+        if (from == to) {
+            throw new IllegalArgumentException("Empty range");
+        }
+    }
+}
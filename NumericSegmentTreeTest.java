@@ -0,0 +1,135 @@
+// NumericSegmentTreeTest.java
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for NumericSegmentTree.
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public class NumericSegmentTreeTest {
+    /** Number of values in generated random trees. */
+    private static final int RANDOM_SIZE = 1000;
+    /** Range of generated random values. */
+    private static final int RANDOM_RANGE = 100;
+    /** Number of operations applied to generated random trees. */
+    private static final int OPERATIONS = 2000;
+    /** Seed for generated random trees. */
+    private static final long SEED = 2016081718L;
+    /** Tolerance for comparing sums of values. */
+    private static final double TOLERANCE = 1e-6;
+
+    /**
+     * Generates a right-leaning tree of random integers.
+     * @param random the source of values
+     * @param values receives the values in inorder
+     * @return testing tree
+     */
+    private NumericBinaryTree generateTree(final Random random,
+                                           final double[] values) {
+        NumericBinaryTree nbt = null;
+        for (int i = values.length - 1; i >= 0; i--) {
+            int value = random.nextInt(RANDOM_RANGE);
+            values[i] = value;
+            nbt = new NumericBinaryTree(value, null, nbt);
+        }
+        return nbt;
+    }
+
+    /**
+     * Verifies updates and queries against direct computation.
+     */
+    @Test
+    public void randomOperationsTest() {
+        Random random = new Random(SEED);
+        double[] values = new double[RANDOM_SIZE];
+        NumericBinaryTree nbt = generateTree(random, values);
+        NumericSegmentTree st = new NumericSegmentTree(nbt);
+        assertEquals(RANDOM_SIZE, st.size());
+        for (int op = 0; op < OPERATIONS; op++) {
+            int from = random.nextInt(RANDOM_SIZE);
+            int to = from + 1 + random.nextInt(RANDOM_SIZE - from);
+            if (random.nextBoolean()) {
+                double delta = random.nextInt(RANDOM_RANGE) - RANDOM_RANGE / 2;
+                st.add(from, to, delta);
+                for (int i = from; i < to; i++) {
+                    values[i] += delta;
+                }
+            } else {
+                double sum = 0;
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                for (int i = from; i < to; i++) {
+                    sum += values[i];
+                    min = Math.min(min, values[i]);
+                    max = Math.max(max, values[i]);
+                }
+                assertEquals(sum, st.sum(from, to), TOLERANCE);
+                assertEquals(min, st.min(from, to), 0);
+                assertEquals(max, st.max(from, to), 0);
+                assertEquals(values[from], st.get(from), 0);
+            }
+        }
+        assertEquals(0, st.sum(RANDOM_SIZE, RANDOM_SIZE), 0);
+        st.writeTo(nbt);
+        List<Number> written = nbt.inorderValues();
+        List<Number> built = st.toTree().inorderValues();
+        for (int i = 0; i < RANDOM_SIZE; i++) {
+            assertEquals(values[i], written.get(i).doubleValue(), 0);
+            assertEquals(values[i], built.get(i).doubleValue(), 0);
+        }
+    }
+
+    /**
+     * Verifies that unchanged values keep their original objects.
+     */
+    @Test
+    public void unchangedValuesTest() {
+        Number first = Long.MAX_VALUE;
+        Number last = new java.math.BigDecimal("0.1");
+        NumericBinaryTree nbt = new NumericBinaryTree(2,
+                new NumericBinaryTree(first), new NumericBinaryTree(last));
+        NumericSegmentTree st = new NumericSegmentTree(nbt);
+        st.add(1, 2, 0.5);
+        NumericBinaryTree result = st.toTree();
+        assertSame(first, result.getLeftChild().getValue());
+        assertSame(last, result.getRightChild().getValue());
+        assertEquals(2.5, result.getValue());
+        st.writeTo(nbt);
+        assertSame(first, nbt.getLeftChild().getValue());
+        assertEquals(2.5, nbt.getValue());
+    }
+
+    /**
+     * Verifies the engine over an empty tree.
+     */
+    @Test
+    public void emptyTreeTest() {
+        NumericSegmentTree st = new NumericSegmentTree(new NumericBinaryTree());
+        assertEquals(0, st.size());
+        st.add(0, 0, 1);
+        assertEquals(0, st.sum(0, 0), 0);
+        assertTrue(st.toTree().isEmpty());
+    }
+
+    /**
+     * Verifies exception for a range beyond the values.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRangeException() {
+        new NumericSegmentTree(new NumericBinaryTree(1)).sum(0, 2);
+    }
+
+    /**
+     * Verifies exception for writing to a tree of another size.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void writeToMismatchException() {
+        new NumericSegmentTree(new NumericBinaryTree(1))
+                .writeTo(new NumericBinaryTree());
+    }
+}
@@ -0,0 +1,404 @@
+// ParallelTreeTasks.java
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.UnaryOperator;
+/**
+ * Fork/join tasks behind the parallel operations of NumericBinaryTree.
+ * <p>
+ * Tasks fork the left and right subtrees of nodes near the root
+ * and finish deeper subtrees, or any subtree once the pool already
+ * has surplus queued work, with the sequential operation.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+final class ParallelTreeTasks {
+
+    /**
+     * Additional fork levels beyond one per processor doubling;
+     *   over-decomposition that keeps cores busy on unbalanced trees.
+     */
+    private static final int EXTRA_FORK_LEVELS = 4;
+
+    /**
+     * Queued-task surplus above which parallel tasks stop forking
+     *   and finish their subtree sequentially.
+     */
+    private static final int SURPLUS_TASK_LIMIT = 3;
+
+    /** Metric kind: height. */
+    static final int HEIGHT = 0;
+    /** Metric kind: number of nodes. */
+    static final int NODES = 1;
+    /** Metric kind: number of leaves. */
+    static final int LEAVES = 2;
+
+    /** Prevents instantiation of utility class. */
+    private ParallelTreeTasks() {
+    }
+
+    /**
+     * Computes a recursive metric of a non-empty tree in parallel.
+     * @param tree the non-empty tree to measure
+     * @param metric the metric kind to compute
+     * @return the metric of the tree
+     */
+    static int metric(final NumericBinaryTree tree, final int metric) {
+        return ForkJoinPool.commonPool().invoke(
+                new MetricTask(tree, metric, forkDepth()));
+    }
+
+    /**
+     * Compares two trees for shape and contents in parallel.
+     * @param first first tree for comparison
+     * @param second second tree for comparison
+     * @return true if and only if the trees are equal
+     */
+    static boolean equal(final NumericBinaryTree first,
+                         final NumericBinaryTree second) {
+        return ForkJoinPool.commonPool().invoke(
+                new EqualityTask(first, second, forkDepth()));
+    }
+
+    /**
+     * Replaces every value of a non-empty tree in parallel,
+     *   without recording a change of its ancestors.
+     * @param tree the non-empty tree whose values to replace
+     * @param function the function of each value
+     */
+    static void replaceAll(final NumericBinaryTree tree,
+                           final UnaryOperator<Number> function) {
+        ForkJoinPool.commonPool().invoke(
+                new ReplaceTask(tree, function, forkDepth()));
+    }
+
+    /**
+     * Copies a non-empty tree in parallel,
+     *   replacing every value by a function of it.
+     * @param tree the non-empty tree to copy
+     * @param function the function of each value
+     * @return the copy
+     */
+    static NumericBinaryTree mapValues(final NumericBinaryTree tree,
+                                       final UnaryOperator<Number> function) {
+        return ForkJoinPool.commonPool().invoke(
+                new MapTask(tree, function, forkDepth()));
+    }
+
+    /**
+     * Determines how many tree levels parallel tasks may fork,
+     *   based on the parallelism of the common pool.
+     * @return number of levels at which subtrees are forked
+     */
+    static int forkDepth() {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int levels = 0;
+        while ((1 << levels) < parallelism) {
+            levels++;
+        }
+        return levels + EXTRA_FORK_LEVELS;
+    }
+
+    /**
+     * Decides whether a parallel task should stop forking.
+     * @param depth the remaining number of fork levels
+     * @return true if the task should finish sequentially
+     */
+    static boolean sequentialCutoff(final int depth) {
+        return depth <= 0
+            || RecursiveTask.getSurplusQueuedTaskCount() > SURPLUS_TASK_LIMIT;
+    }
+
+    /**
+     * Fork/join task computing a recursive metric of a non-empty tree.
+     */
+    private static final class MetricTask extends RecursiveTask<Integer> {
+        /** Serialization version indicator. */
+        private static final long serialVersionUID = 2016081718L;
+
+        /** Non-empty tree to be measured. */
+        private final NumericBinaryTree tree;
+        /** Metric kind to compute. */
+        private final int kind;
+        /** Remaining number of fork levels. */
+        private final int depth;
+
+        /**
+         * Constructs a task measuring a tree.
+         * @param nbt the non-empty tree to measure
+         * @param metric the metric kind to compute
+         * @param forkLevels remaining number of fork levels
+         */
+        MetricTask(final NumericBinaryTree nbt,
+                   final int metric, final int forkLevels) {
+            this.tree = nbt;
+            this.kind = metric;
+            this.depth = forkLevels;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (sequentialCutoff(this.depth)) {
+                return sequential(this.tree);
+            }
+            NumericBinaryTree left = this.tree.getLeftChild();
+            NumericBinaryTree right = this.tree.getRightChild();
+            if (left == null && right == null) {
+                return combine(-1, 0, -1, 0);
+            }
+            MetricTask leftTask = null;
+            if (left != null) {
+                leftTask = new MetricTask(left, this.kind, this.depth - 1);
+                leftTask.fork();
+            }
+            int rightMetric = 0;
+            int rightHeight = -1;
+            if (right != null) {
+                rightMetric = new MetricTask(
+                        right, this.kind, this.depth - 1).compute();
+                rightHeight = rightMetric;
+            }
+            int leftMetric = 0;
+            int leftHeight = -1;
+            if (leftTask != null) {
+                leftMetric = leftTask.join();
+                leftHeight = leftMetric;
+            }
+            return combine(leftHeight, leftMetric, rightHeight, rightMetric);
+        }
+
+        /**
+         * Combines child metrics into the metric of the task's tree.
+         * @param leftHeight metric of left child as height; -1 if empty
+         * @param leftMetric metric of left child as count; 0 if empty
+         * @param rightHeight metric of right child as height; -1 if empty
+         * @param rightMetric metric of right child as count; 0 if empty
+         * @return the metric of the task's tree
+         */
+        private int combine(final int leftHeight, final int leftMetric,
+                            final int rightHeight, final int rightMetric) {
+            switch (this.kind) {
+                case HEIGHT:
+                    return 1 + Math.max(leftHeight, rightHeight);
+                case NODES:
+                    return 1 + leftMetric + rightMetric;
+                default:
+                    if (leftHeight < 0 && rightHeight < 0) {
+                        return 1;
+                    }
+                    return leftMetric + rightMetric;
+            }
+        }
+
+        /**
+         * Computes the metric without further forking.
+         * @param nbt the non-empty tree to measure
+         * @return the metric of the tree
+         */
+        private int sequential(final NumericBinaryTree nbt) {
+            switch (this.kind) {
+                case HEIGHT:
+                    return nbt.height();
+                case NODES:
+                    return countNodes(nbt);
+                default:
+                    return nbt.numberOfLeaves();
+            }
+        }
+
+        /**
+         * Counts the nodes of a tree without recursion, visiting each
+         * node as the parallel path does rather than reading the
+         * cached subtree sizes.
+         * @param nbt the non-empty tree to count
+         * @return the number of nodes of the tree
+         */
+        private static int countNodes(final NumericBinaryTree nbt) {
+            int count = 0;
+            ArrayDeque<NumericBinaryTree> pending
+                    = new ArrayDeque<NumericBinaryTree>();
+            pending.push(nbt);
+            while (!pending.isEmpty()) {
+                NumericBinaryTree node = pending.pop();
+                count++;
+                if (node.getLeftChild() != null) {
+                    pending.push(node.getLeftChild());
+                }
+                if (node.getRightChild() != null) {
+                    pending.push(node.getRightChild());
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Fork/join task comparing two trees for shape and contents.
+     */
+    private static final class EqualityTask extends RecursiveTask<Boolean> {
+        /** Serialization version indicator. */
+        private static final long serialVersionUID = 2016081718L;
+
+        /** First tree for comparison. */
+        private final NumericBinaryTree first;
+        /** Second tree for comparison. */
+        private final NumericBinaryTree second;
+        /** Remaining number of fork levels. */
+        private final int depth;
+
+        /**
+         * Constructs a task comparing two trees.
+         * @param nbt1 first tree for comparison; null if no such tree
+         * @param nbt2 second tree for comparison; null if no such tree
+         * @param forkLevels remaining number of fork levels
+         */
+        EqualityTask(final NumericBinaryTree nbt1,
+                     final NumericBinaryTree nbt2, final int forkLevels) {
+            this.first = nbt1;
+            this.second = nbt2;
+            this.depth = forkLevels;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (this.first == this.second) {
+                return true;
+            }
+            if (this.first == null || this.second == null) {
+                return false;
+            }
+            if (sequentialCutoff(this.depth)
+                || this.first.isEmpty() || this.second.isEmpty()) {
+                return this.first.equals(this.second);
+            }
+            NumericBinaryTree left1 = this.first.getLeftChild();
+            NumericBinaryTree left2 = this.second.getLeftChild();
+            NumericBinaryTree right1 = this.first.getRightChild();
+            NumericBinaryTree right2 = this.second.getRightChild();
+            if (!this.first.getValue().equals(this.second.getValue())
+                || (left1 == null) != (left2 == null)
+                || (right1 == null) != (right2 == null)) {
+                return false;
+            }
+            EqualityTask leftTask
+                    = new EqualityTask(left1, left2, this.depth - 1);
+            leftTask.fork();
+            boolean rightEqual = new EqualityTask(right1, right2,
+                                                  this.depth - 1).compute();
+            boolean leftEqual = leftTask.join();
+            return leftEqual && rightEqual;
+        }
+    }
+
+    /**
+     * Fork/join task replacing the values of a non-empty tree.
+     */
+    private static final class ReplaceTask extends RecursiveAction {
+        /** Serialization version indicator. */
+        private static final long serialVersionUID = 2016081718L;
+
+        /** Non-empty tree whose values to replace. */
+        private final NumericBinaryTree tree;
+        /** Function of each value. */
+        private final UnaryOperator<Number> function;
+        /** Remaining number of fork levels. */
+        private final int depth;
+
+        /**
+         * Constructs a task replacing the values of a tree.
+         * @param nbt the non-empty tree whose values to replace
+         * @param replacement the function of each value
+         * @param forkLevels remaining number of fork levels
+         */
+        ReplaceTask(final NumericBinaryTree nbt,
+                    final UnaryOperator<Number> replacement,
+                    final int forkLevels) {
+            this.tree = nbt;
+            this.function = replacement;
+            this.depth = forkLevels;
+        }
+
+        @Override
+        protected void compute() {
+            if (sequentialCutoff(this.depth)) {
+                TreeTransforms.replaceSequentially(this.tree, this.function);
+                return;
+            }
+            this.tree.replaceValue(this.function);
+            NumericBinaryTree left = this.tree.getLeftChild();
+            NumericBinaryTree right = this.tree.getRightChild();
+            ReplaceTask leftTask = null;
+            if (left != null) {
+                leftTask = new ReplaceTask(left, this.function,
+                                           this.depth - 1);
+                leftTask.fork();
+            }
+            if (right != null) {
+                new ReplaceTask(right, this.function,
+                                this.depth - 1).compute();
+            }
+            if (leftTask != null) {
+                leftTask.join();
+            }
+        }
+    }
+
+    /**
+     * Fork/join task copying a non-empty tree with replaced values.
+     */
+    private static final class MapTask
+            extends RecursiveTask<NumericBinaryTree> {
+        /** Serialization version indicator. */
+        private static final long serialVersionUID = 2016081718L;
+
+        /** Non-empty tree to copy. */
+        private final NumericBinaryTree tree;
+        /** Function of each value. */
+        private final UnaryOperator<Number> function;
+        /** Remaining number of fork levels. */
+        private final int depth;
+
+        /**
+         * Constructs a task copying a tree.
+         * @param nbt the non-empty tree to copy
+         * @param replacement the function of each value
+         * @param forkLevels remaining number of fork levels
+         */
+        MapTask(final NumericBinaryTree nbt,
+                final UnaryOperator<Number> replacement,
+                final int forkLevels) {
+            this.tree = nbt;
+            this.function = replacement;
+            this.depth = forkLevels;
+        }
+
+        @Override
+        protected NumericBinaryTree compute() {
+            if (sequentialCutoff(this.depth)) {
+                return TreeTransforms.copySequentially(this.tree,
+                                                       this.function);
+            }
+            NumericBinaryTree left = this.tree.getLeftChild();
+            NumericBinaryTree right = this.tree.getRightChild();
+            MapTask leftTask = null;
+            if (left != null) {
+                leftTask = new MapTask(left, this.function, this.depth - 1);
+                leftTask.fork();
+            }
+            NumericBinaryTree rightCopy = null;
+            if (right != null) {
+                rightCopy = new MapTask(right, this.function,
+                                        this.depth - 1).compute();
+            }
+            NumericBinaryTree leftCopy = null;
+            if (leftTask != null) {
+                leftCopy = leftTask.join();
+            }
+            return new NumericBinaryTree(
+                    TreeTransforms.mapped(this.function, this.tree.getValue()),
+                    leftCopy, rightCopy);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+// SearchTreeBatch.java
+import java.util.ArrayDeque;
+import java.util.Arrays;
+/**
+ * Batched operations on NumericBinaryTree used as a binary search tree.
+ * <p>
+ * Each operation sorts its keys and then walks the tree once,
+ * carrying at every node only the keys that can be affected
+ * by its subtree.
+ * Keys sharing a path from the root therefore share the work
+ * of walking it, and each node is visited at most once per batch
+ * however many keys pass through it.
+ * Values less than the value of a node are in its left subtree
+ * and all other values are in its right subtree.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+final class SearchTreeBatch {
+
+    /** Prevents instantiation of utility class. */
+    private SearchTreeBatch() {
+    }
+
+    /**
+     * Determines for each key whether the tree holds
+     * a numerically equal value.
+     * @param tree the search tree; may be empty
+     * @param keys the keys sought
+     * @return for each key, whether it is present
+     */
+    static boolean[] containsAll(final NumericBinaryTree tree,
+                                 final long[] keys) {
+        long[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        boolean[] found = new boolean[sorted.length];
+        ArrayDeque<Span> pending = new ArrayDeque<Span>();
+        pushSpan(pending, tree, 0, sorted.length);
+        while (!pending.isEmpty()) {
+            Span span = pending.pop();
+            Number value = span.node.getValue();
+            int equal = partition(sorted, span.low, span.high, value, false);
+            int greater = partition(sorted, equal, span.high, value, true);
+            for (int i = equal; i < greater; i++) {
+                found[i] = true;
+            }
+            pushSpan(pending, span.node.getRightChild(), greater, span.high);
+            pushSpan(pending, span.node.getLeftChild(), span.low, equal);
+        }
+        boolean[] result = new boolean[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            result[i] = found[Arrays.binarySearch(sorted, keys[i])];
+        }
+        return result;
+    }
+
+    /**
+     * Inserts values into the tree.
+     * Values reaching the same empty child are attached
+     * as a balanced subtree, so the resulting shape may differ from
+     * that of inserting the values one at a time.
+     * @param tree the search tree; may be empty
+     * @param values the values to insert
+     */
+    static void insertAll(final NumericBinaryTree tree,
+                          final double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        if (sorted.length == 0) {
+            return;
+        }
+        if (tree.isEmpty()) {
+            tree.assign(balancedTree(sorted, 0, sorted.length));
+            return;
+        }
+        ArrayDeque<Span> pending = new ArrayDeque<Span>();
+        pushSpan(pending, tree, 0, sorted.length);
+        while (!pending.isEmpty()) {
+            Span span = pending.pop();
+            NumericBinaryTree node = span.node;
+            int right = partition(sorted, span.low, span.high,
+                                  node.getValue());
+            if (node.getLeftChild() == null) {
+                node.setLeftChild(balancedTree(sorted, span.low, right));
+            } else {
+                pushSpan(pending, node.getLeftChild(), span.low, right);
+            }
+            if (node.getRightChild() == null) {
+                node.setRightChild(balancedTree(sorted, right, span.high));
+            } else {
+                pushSpan(pending, node.getRightChild(), right, span.high);
+            }
+        }
+    }
+
+    /**
+     * Pushes a span of keys to be resolved within a subtree,
+     * unless the span or the subtree is empty.
+     * @param pending the stack of spans
+     * @param node the subtree; null if no such subtree
+     * @param low the first key of the span
+     * @param high one past the last key of the span
+     */
+    private static void pushSpan(final ArrayDeque<Span> pending,
+                                 final NumericBinaryTree node,
+                                 final int low, final int high) {
+        if (node != null && !node.isEmpty() && low < high) {
+            pending.push(new Span(node, low, high));
+        }
+    }
+
+    /**
+     * Finds the first of the sorted keys not less than,
+     * or greater than, a value.
+     * @param keys the sorted keys
+     * @param low the first key to search
+     * @param high one past the last key to search
+     * @param value the value
+     * @param strict true to find the first key greater than value;
+     *        false to find the first key not less than value
+     * @return the index found; high if there is no such key
+     */
+    private static int partition(final long[] keys, final int low,
+                                 final int high, final Number value,
+                                 final boolean strict) {
+        int first = low;
+        int last = high;
+        while (first < last) {
+            int middle = (first + last) >>> 1;
+            int order = NumericComparator.compareLong(keys[middle], value);
+            if (order > 0 || (order == 0 && !strict)) {
+                last = middle;
+            } else {
+                first = middle + 1;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Finds the first of the sorted values not less than a value.
+     * @param values the sorted values
+     * @param low the first value to search
+     * @param high one past the last value to search
+     * @param value the value
+     * @return the index found; high if there is no such value
+     */
+    private static int partition(final double[] values, final int low,
+                                 final int high, final Number value) {
+        int first = low;
+        int last = high;
+        while (first < last) {
+            int middle = (first + last) >>> 1;
+            if (NumericComparator.compareDouble(values[middle], value) >= 0) {
+                last = middle;
+            } else {
+                first = middle + 1;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Builds a balanced search tree from sorted values.
+     * Equal values are placed in right subtrees.
+     * @param sorted the sorted values
+     * @param low the first value to include
+     * @param high one past the last value to include
+     * @return the tree; null if there are no values
+     */
+    private static NumericBinaryTree balancedTree(final double[] sorted,
+                                                  final int low,
+                                                  final int high) {
+        if (low >= high) {
+            return null;
+        }
+        int middle = (low + high) >>> 1;
+        // Move the root to the first of equal values.
+        while (middle > low && (sorted[middle - 1] == sorted[middle]
+               || Double.compare(sorted[middle - 1], sorted[middle]) == 0)) {
+            middle--;
+        }
+        return new NumericBinaryTree(sorted[middle],
+                balancedTree(sorted, low, middle),
+                balancedTree(sorted, middle + 1, high));
+    }
+
+    /**
+     * A subtree and the span of sorted keys to resolve within it.
+     */
+    private static final class Span {
+        /** The non-empty subtree. */
+        private final NumericBinaryTree node;
+        /** The first key of the span. */
+        private final int low;
+        /** One past the last key of the span. */
+        private final int high;
+
+        /**
+         * Constructs a span.
+         * @param subtree the non-empty subtree
+         * @param first the first key of the span
+         * @param end one past the last key of the span
+         */
+        Span(final NumericBinaryTree subtree, final int first,
+             final int end) {
+            this.node = subtree;
+            this.low = first;
+            this.high = end;
+        }
+    }
+}
@@ -0,0 +1,426 @@
+// SubtreeIndex.java
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+/**
+ * Index of the subtrees of a tree for finding occurrences of patterns.
+ * <p>
+ * Each subtree is numbered by its structure: subtrees that are equal,
+ * with equal values at respective nodes, share a number,
+ * assigned from the value of the root and the numbers of the children.
+ * Subtrees are also numbered by shape alone, ignoring values.
+ * A pattern without wildcards is numbered the same way and its
+ * occurrences are listed directly, in time proportional to the size of
+ * the pattern plus the number of occurrences.
+ * </p>
+ * <p>
+ * A pattern may give {@link #ANY} as the value of a node
+ * to match any value there.
+ * Such a pattern is compared only with subtrees of its shape,
+ * and the parts of it without wildcards are compared by number
+ * rather than node by node.
+ * </p>
+ * <p>
+ * The index is rebuilt before the next search whenever the version
+ * of the tree has advanced since it was built;
+ * changes to other trees, such as patterns, leave the index current.
+ * A subtree shared with another tree, which validation rules out,
+ * may be changed through that tree without the index being rebuilt.
+ * Searches may run concurrently; a rebuild is performed by one thread
+ * while the others wait.
+ * The tree must not be modified during a search.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public final class SubtreeIndex {
+
+    /** Pattern value matching any value. */
+    public static final Number ANY = new Wildcard();
+
+    /** Number standing for an empty child. */
+    private static final int NONE = -1;
+
+    /** Number standing for a pattern subtree containing a wildcard. */
+    private static final int WILD = -2;
+
+    /** Multiplier combining key hashes. */
+    private static final int HASH_MULTIPLIER = 31;
+
+    /** The indexed tree. */
+    private final NumericBinaryTree tree;
+
+    /** Tables for the current contents of the tree. */
+    private volatile Table table;
+
+    /** Number of times the tables have been built. */
+    private long builds;
+
+    /**
+     * Constructs an index over a tree.
+     * @param tree the tree to index; may be empty
+     * @throws IllegalArgumentException if tree is null
+     */
+    public SubtreeIndex(final NumericBinaryTree tree)
+        throws IllegalArgumentException {
+        if (tree == null) {
+            throw new IllegalArgumentException("null tree");
+        }
+        this.tree = tree;
+        rebuild();
+    }
+
+    /**
+     * Finds the subtrees of the indexed tree matching a pattern.
+     * A subtree matches if it has the shape of the pattern and
+     * equal values at respective nodes, except where the pattern
+     * has the value {@link #ANY}.
+     * @param pattern the pattern; may be empty
+     * @return the matching subtrees, in postorder;
+     *         the empty list if pattern is empty
+     * @throws IllegalArgumentException if pattern is null
+     */
+    public List<NumericBinaryTree> occurrences(
+            final NumericBinaryTree pattern) throws IllegalArgumentException {
+        if (pattern == null) {
+            throw new IllegalArgumentException("null pattern");
+        }
+        List<NumericBinaryTree> none = Collections.emptyList();
+        if (pattern.isEmpty()) {
+            return none;
+        }
+        Table current = current();
+        Map<NumericBinaryTree, Integer> exact
+                = new IdentityHashMap<NumericBinaryTree, Integer>();
+        Map<NumericBinaryTree, Integer> shapes
+                = new IdentityHashMap<NumericBinaryTree, Integer>();
+        for (NumericBinaryTree node : pattern) {
+            NumericBinaryTree left = node.getLeftChild();
+            NumericBinaryTree right = node.getRightChild();
+            Integer shape = current.shapes.get(new Key(null,
+                    numberOf(shapes, left), numberOf(shapes, right)));
+            if (shape == null) {
+                // No subtree has the shape of this part of the pattern.
+                return none;
+            }
+            shapes.put(node, shape);
+            int leftNumber = numberOf(exact, left);
+            int rightNumber = numberOf(exact, right);
+            Integer number = WILD;
+            if (node.getValue() != ANY
+                && leftNumber != WILD && rightNumber != WILD) {
+                number = current.exact.get(
+                        new Key(node.getValue(), leftNumber, rightNumber));
+                if (number == null) {
+                    // This part of the pattern occurs nowhere.
+                    return none;
+                }
+            }
+            exact.put(node, number);
+        }
+        int number = exact.get(pattern);
+        if (number != WILD) {
+            return Collections.unmodifiableList(current.byExact.get(number));
+        }
+        List<NumericBinaryTree> matches = new ArrayList<NumericBinaryTree>();
+        for (NumericBinaryTree candidate
+                 : current.byShape.get(shapes.get(pattern))) {
+            if (current.matches(exact, pattern, candidate)) {
+                matches.add(candidate);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the number of distinct subtrees of the indexed tree,
+     * counting equal subtrees once.
+     * @return the number of distinct subtrees
+     */
+    public int distinctSubtrees() {
+        return current().byExact.size();
+    }
+
+    /**
+     * Determines whether the index must be rebuilt before the next search
+     * because the tree has been modified since it was built.
+     * @return true if the index is out of date
+     */
+    public boolean isStale() {
+        return this.table.stamp != this.tree.version();
+    }
+
+    /**
+     * Rebuilds the index from the current contents of the tree.
+     */
+    public synchronized void rebuild() {
+        this.table = new Table(this.tree);
+        this.builds++;
+    }
+
+    /**
+     * Returns the number of times the index has been built,
+     * including construction.
+     * @return the number of builds
+     */
+    public synchronized long buildCount() {
+        return this.builds;
+    }
+
+    /**
+     * Returns the tables, first rebuilding them if out of date.
+     * @return tables for the current contents of the tree
+     */
+    private Table current() {
+        Table current = this.table;
+        if (current.stamp == this.tree.version()) {
+            return current;
+        }
+        synchronized (this) {
+            if (isStale()) {
+                rebuild();
+            }
+            return this.table;
+        }
+    }
+
+    /**
+     * Returns the number of a child.
+     * @param numbers numbers of the subtrees numbered so far
+     * @param child the child; null if empty
+     * @return the number of the child; NONE if empty
+     */
+    private static int numberOf(final Map<NumericBinaryTree, Integer> numbers,
+                                final NumericBinaryTree child) {
+        if (child == null) {
+            return NONE;
+        }
+        return numbers.get(child);
+    }
+
+    /**
+     * Numbers and occurrences of the subtrees of one version of a tree.
+     */
+    private static final class Table {
+
+        /** Version of the tree when built. */
+        private final long stamp;
+
+        /** Numbers of distinct subtrees by value and child numbers. */
+        private final Map<Key, Integer> exact = new HashMap<Key, Integer>();
+
+        /** Numbers of distinct shapes by child shape numbers. */
+        private final Map<Key, Integer> shapes = new HashMap<Key, Integer>();
+
+        /** Number of each subtree. */
+        private final Map<NumericBinaryTree, Integer> numbers
+                = new IdentityHashMap<NumericBinaryTree, Integer>();
+
+        /** Occurrences of each distinct subtree, in postorder. */
+        private final List<List<NumericBinaryTree>> byExact
+                = new ArrayList<List<NumericBinaryTree>>();
+
+        /** Occurrences of each distinct shape, in postorder. */
+        private final List<List<NumericBinaryTree>> byShape
+                = new ArrayList<List<NumericBinaryTree>>();
+
+        /**
+         * Numbers the subtrees of a tree.
+         * @param tree the tree; may be empty
+         */
+        Table(final NumericBinaryTree tree) {
+            this.stamp = tree.version();
+            Map<NumericBinaryTree, Integer> shapeNumbers
+                    = new IdentityHashMap<NumericBinaryTree, Integer>();
+            for (NumericBinaryTree node : tree) {
+                NumericBinaryTree left = node.getLeftChild();
+                NumericBinaryTree right = node.getRightChild();
+                Key shape = new Key(null, numberOf(shapeNumbers, left),
+                                    numberOf(shapeNumbers, right));
+                shapeNumbers.put(node, add(this.shapes, this.byShape,
+                                           shape, node));
+                Key key = new Key(node.getValue(),
+                                  numberOf(this.numbers, left),
+                                  numberOf(this.numbers, right));
+                this.numbers.put(node, add(this.exact, this.byExact,
+                                           key, node));
+            }
+        }
+
+        /**
+         * Records an occurrence under a key, numbering the key if new.
+         * @param keys numbers by key
+         * @param occurrences occurrences by number
+         * @param key the key
+         * @param node the occurrence
+         * @return the number of the key
+         */
+        private static int add(final Map<Key, Integer> keys,
+                               final List<List<NumericBinaryTree>> occurrences,
+                               final Key key, final NumericBinaryTree node) {
+            Integer number = keys.get(key);
+            if (number == null) {
+                number = occurrences.size();
+                keys.put(key, number);
+                occurrences.add(new ArrayList<NumericBinaryTree>());
+            }
+            occurrences.get(number).add(node);
+            return number;
+        }
+
+        /**
+         * Compares a pattern containing wildcards with a subtree
+         * of the same shape.
+         * @param patternNumbers numbers of the subtrees of the pattern;
+         *        WILD for those containing wildcards
+         * @param pattern the pattern
+         * @param candidate the subtree
+         * @return true if the subtree matches the pattern
+         */
+        private boolean matches(
+                final Map<NumericBinaryTree, Integer> patternNumbers,
+                final NumericBinaryTree pattern,
+                final NumericBinaryTree candidate) {
+            ArrayDeque<NumericBinaryTree> pending
+                    = new ArrayDeque<NumericBinaryTree>();
+            pending.push(pattern);
+            pending.push(candidate);
+            while (!pending.isEmpty()) {
+                NumericBinaryTree node = pending.pop();
+                NumericBinaryTree part = pending.pop();
+                int number = patternNumbers.get(part);
+                if (number != WILD) {
+                    if (this.numbers.get(node) != number) {
+                        return false;
+                    }
+                    continue;
+                }
+                if (part.getValue() != ANY
+                    && !part.getValue().equals(node.getValue())) {
+                    return false;
+                }
+                // Equal shapes ensure that the children correspond.
+                if (part.getLeftChild() != null) {
+                    pending.push(part.getLeftChild());
+                    pending.push(node.getLeftChild());
+                }
+                if (part.getRightChild() != null) {
+                    pending.push(part.getRightChild());
+                    pending.push(node.getRightChild());
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Root value and child numbers of a subtree.
+     */
+    private static final class Key {
+
+        /** Value of the root; null when numbering shapes. */
+        private final Number value;
+
+        /** Number of the left child. */
+        private final int left;
+
+        /** Number of the right child. */
+        private final int right;
+
+        /**
+         * Constructs a key.
+         * @param value the value of the root; null for a shape
+         * @param left the number of the left child
+         * @param right the number of the right child
+         */
+        Key(final Number value, final int left, final int right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Compares values by equals and child numbers.
+         * @param obj the other key
+         * @return true if the keys describe equal subtrees
+         */
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            boolean sameValue;
+            if (this.value == null) {
+                sameValue = other.value == null;
+            } else {
+                sameValue = this.value.equals(other.value);
+            }
+            return sameValue
+                && this.left == other.left && this.right == other.right;
+        }
+
+        /**
+         * Returns a hash code from the value and child numbers.
+         * @return the hash code
+         */
+        @Override
+        public int hashCode() {
+            int code = 0;
+            if (this.value != null) {
+                code = this.value.hashCode();
+            }
+            code = code * HASH_MULTIPLIER + this.left;
+            return code * HASH_MULTIPLIER + this.right;
+        }
+    }
+
+    /**
+     * Pattern value matching any value.
+     */
+    private static final class Wildcard extends Number {
+        /** Serialization version indicator. */
+        private static final long serialVersionUID = 2016081718L;
+
+        @Override
+        public int intValue() {
+            return 0;
+        }
+
+        @Override
+        public long longValue() {
+            return 0;
+        }
+
+        @Override
+        public float floatValue() {
+            return Float.NaN;
+        }
+
+        @Override
+        public double doubleValue() {
+            return Double.NaN;
+        }
+
+        /**
+         * Describes the wildcard.
+         * @return an asterisk
+         */
+        @Override
+        public String toString() {
+            return "*";
+        }
+
+        /**
+         * Keeps the wildcard unique when deserialized.
+         * @return the wildcard
+         */
+        private Object readResolve() {
+            return ANY;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+// SubtreeIndexTest.java
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for SubtreeIndex.
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public class SubtreeIndexTest {
+    /** Number of random trees compared with the nested-loop search. */
+    private static final int TRIALS = 20;
+    /** Number of nodes in each random tree. */
+    private static final int RANDOM_SIZE = 200;
+    /** Number of distinct values in random trees. */
+    private static final int VALUE_RANGE = 3;
+    /** Seed for the random trees. */
+    private static final long SEED = 2016081718L;
+    /** Number of distinct subtrees in the distinct subtrees test. */
+    private static final int NUM_DISTINCT = 3;
+
+    /**
+     * Generates a tree of random shape and values.
+     * @param random the source of randomness
+     * @param count the number of nodes
+     * @return testing tree; null if count is zero
+     */
+    private NumericBinaryTree generateRandomTree(final Random random,
+                                                 final int count) {
+        if (count == 0) {
+            return null;
+        }
+        int leftCount = random.nextInt(count);
+        return new NumericBinaryTree(random.nextInt(VALUE_RANGE),
+                generateRandomTree(random, leftCount),
+                generateRandomTree(random, count - leftCount - 1));
+    }
+
+    /**
+     * Finds matches by comparing the pattern with every subtree.
+     * @param nbt the tree searched
+     * @param pattern the pattern
+     * @return matching subtrees, in postorder
+     */
+    private List<NumericBinaryTree> nestedLoopSearch(
+            final NumericBinaryTree nbt, final NumericBinaryTree pattern) {
+        List<NumericBinaryTree> matches = new ArrayList<NumericBinaryTree>();
+        for (NumericBinaryTree node : nbt) {
+            if (matches(pattern, node)) {
+                matches.add(node);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Compares a pattern with a subtree, node by node.
+     * @param pattern the pattern; null if empty
+     * @param node the subtree; null if empty
+     * @return true if the subtree matches the pattern
+     */
+    private boolean matches(final NumericBinaryTree pattern,
+                            final NumericBinaryTree node) {
+        if (pattern == null || node == null) {
+            return pattern == node;
+        }
+        return (pattern.getValue() == SubtreeIndex.ANY
+                || pattern.getValue().equals(node.getValue()))
+            && matches(pattern.getLeftChild(), node.getLeftChild())
+            && matches(pattern.getRightChild(), node.getRightChild());
+    }
+
+    /**
+     * Verifies exact and wildcard searches against the nested-loop search.
+     */
+    @Test
+    public void agreesWithNestedLoopTest() {
+        Random random = new Random(SEED);
+        List<NumericBinaryTree> patterns = new ArrayList<NumericBinaryTree>();
+        patterns.add(new NumericBinaryTree(0));
+        patterns.add(new NumericBinaryTree(1, new NumericBinaryTree(0),
+                                           null));
+        patterns.add(new NumericBinaryTree(SubtreeIndex.ANY,
+                                           new NumericBinaryTree(2),
+                                           new NumericBinaryTree(1)));
+        patterns.add(new NumericBinaryTree(2, null,
+                new NumericBinaryTree(SubtreeIndex.ANY,
+                                      new NumericBinaryTree(0), null)));
+        for (int trial = 0; trial < TRIALS; trial++) {
+            NumericBinaryTree nbt = generateRandomTree(random, RANDOM_SIZE);
+            SubtreeIndex index = new SubtreeIndex(nbt);
+            for (NumericBinaryTree pattern : patterns) {
+                assertEquals(nestedLoopSearch(nbt, pattern),
+                             index.occurrences(pattern));
+            }
+        }
+    }
+
+    /**
+     * Verifies that equal subtrees share a number.
+     */
+    @Test
+    public void distinctSubtreesTest() {
+        NumericBinaryTree nbt = new NumericBinaryTree(0,
+                new NumericBinaryTree(1, new NumericBinaryTree(2), null),
+                new NumericBinaryTree(1, new NumericBinaryTree(2), null));
+        SubtreeIndex index = new SubtreeIndex(nbt);
+        assertEquals(NUM_DISTINCT, index.distinctSubtrees());
+        List<NumericBinaryTree> found = index.occurrences(
+                new NumericBinaryTree(1, new NumericBinaryTree(2), null));
+        assertEquals(2, found.size());
+        assertSame(nbt.getRightChild(), found.get(1));
+        assertTrue(index.occurrences(new NumericBinaryTree(2L)).isEmpty());
+    }
+
+    /**
+     * Verifies that the index is rebuilt after the tree changes.
+     */
+    @Test
+    public void rebuildAfterChangeTest() {
+        NumericBinaryTree nbt = new NumericBinaryTree(0,
+                new NumericBinaryTree(1), null);
+        SubtreeIndex index = new SubtreeIndex(nbt);
+        NumericBinaryTree pattern = new NumericBinaryTree(1);
+        assertEquals(1, index.occurrences(pattern).size());
+        pattern.setValue(1);
+        assertEquals(1, index.occurrences(pattern).size());
+        assertEquals(1, index.buildCount());
+        nbt.setRightChild(new NumericBinaryTree(1));
+        assertEquals(2, index.occurrences(pattern).size());
+        assertEquals(2, index.buildCount());
+    }
+
+    /**
+     * Verifies exception for a null pattern.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void nullPatternException() {
+        new SubtreeIndex(new NumericBinaryTree()).occurrences(null);
+    }
+}
@@ -0,0 +1,107 @@
+// SubtreeIterator.java
+import java.util.ArrayDeque;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+/**
+ * Lazy, fail-fast postorder iterator over the nodes of a tree.
+ * <p>
+ * The iterator holds the path from the root to the next node,
+ * each node with its modification count when its children were read.
+ * A node's children are read again only after checking that count,
+ * so a change to a node still on the path is reported by
+ * ConcurrentModificationException instead of silently skipping
+ * or repeating nodes.
+ * Changes to nodes already returned do not affect the iteration.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ * @see NumericBinaryTree#iterator()
+ */
+final class SubtreeIterator implements Iterator<NumericBinaryTree> {
+
+    /** Nodes on the path to the next node; the next node on top. */
+    private final ArrayDeque<NumericBinaryTree> path
+            = new ArrayDeque<NumericBinaryTree>();
+
+    /** Modification counts of the nodes on the path, in the same order. */
+    private final ArrayDeque<Integer> counts = new ArrayDeque<Integer>();
+
+    /**
+     * Constructs an iterator over a tree.
+     * @param tree the tree; may be empty
+     */
+    SubtreeIterator(final NumericBinaryTree tree) {
+        if (!tree.isEmpty()) {
+            descend(tree);
+        }
+    }
+
+    /**
+     * Determines whether there is another node.
+     * @return true if there is another node
+     */
+    @Override
+    public boolean hasNext() {
+        return !this.path.isEmpty();
+    }
+
+    /**
+     * Returns the next node in postorder.
+     * @return the next node
+     * @throws NoSuchElementException if there are no more nodes
+     * @throws ConcurrentModificationException if a node
+     *         on the path has been modified
+     */
+    @Override
+    public NumericBinaryTree next()
+        throws NoSuchElementException, ConcurrentModificationException {
+        if (this.path.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        NumericBinaryTree node = this.path.pop();
+        check(node, this.counts.pop());
+        if (!this.path.isEmpty()) {
+            NumericBinaryTree parent = this.path.peek();
+            check(parent, this.counts.peek());
+            NumericBinaryTree right = parent.getRightChild();
+            if (right != null && right != node) {
+                descend(right);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Pushes the path from a node to the first node of its subtree
+     * in postorder, preferring left children.
+     * @param tree a nonempty tree
+     */
+    private void descend(final NumericBinaryTree tree) {
+        NumericBinaryTree node = tree;
+        while (node != null) {
+            this.path.push(node);
+            this.counts.push(node.modificationCount());
+            NumericBinaryTree left = node.getLeftChild();
+            if (left == null) {
+                node = node.getRightChild();
+            } else {
+                node = left;
+            }
+        }
+    }
+
+    /**
+     * Checks that a node has not been modified.
+     * @param node the node
+     * @param expected its modification count when its children were read
+     * @throws ConcurrentModificationException if it has been modified
+     */
+    private static void check(final NumericBinaryTree node,
+                              final int expected)
+        throws ConcurrentModificationException {
+        if (node.modificationCount() != expected) {
+            throw new ConcurrentModificationException();
+        }
+    }
+}
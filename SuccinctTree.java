@@ -0,0 +1,697 @@
+// SuccinctTree.java
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+/**
+ * Read-only succinct representation of a NumericBinaryTree.
+ * <p>
+ * Nodes are numbered in level order, the root being node 0.
+ * The shape of the tree is a bitvector of 2n bits,
+ * in which bits 2i and 2i + 1 indicate the presence of the
+ * left and right children of node i.
+ * The child recorded at bit p is node rank(p + 1),
+ * the number of set bits up to and including p,
+ * and the parent of node i is select(i) / 2,
+ * the position of the i-th set bit halved.
+ * A small directory of cumulative counts makes rank constant time
+ * and select logarithmic.
+ * </p>
+ * <p>
+ * Values are kept in a bit-packed array,
+ * each value occupying only as many bits as the range of values
+ * requires, so a tree of sequential integers needs a few bytes per node
+ * rather than the tens of bytes of a linked node and its boxed value.
+ * Values of types other than the primitive wrappers are kept aside
+ * and the packed array holds their index.
+ * </p>
+ * <p>
+ * Nodes are identified by their level-order number;
+ * navigation methods return {@link #NONE} where
+ * NumericBinaryTree would return null.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public final class SuccinctTree implements java.io.Serializable {
+
+    /** Node number indicating no such node. */
+    public static final int NONE = -1;
+
+    /** serialVersionUID. */
+    private static final long serialVersionUID = 2016081718L;
+
+    /** Base 2 logarithm of the number of bits in a word. */
+    private static final int WORD_SHIFT = 6;
+
+    /** Mask selecting a bit position within a word. */
+    private static final int WORD_MASK = Long.SIZE - 1;
+
+    /** Base 2 logarithm of the number of bits per rank directory entry. */
+    private static final int BLOCK_SHIFT = 9;
+
+    /** Number of words per rank directory entry. */
+    private static final int WORDS_PER_BLOCK = 1 << (BLOCK_SHIFT - WORD_SHIFT);
+
+    /** Mask selecting the left child bit of every pair in a word. */
+    private static final long LEFT_BITS = 0x5555555555555555L;
+
+    /** Tag indicating that the nodes do not share one value type. */
+    private static final int MIXED = -1;
+
+    /** Number of nodes. */
+    private final int size;
+
+    /** Child presence bits, two per node in level order. */
+    private final long[] shape;
+
+    /** Number of set shape bits preceding each directory block. */
+    private final int[] ranks;
+
+    /** Packed values, offset by {@link #base}. */
+    private final long[] packed;
+
+    /** Number of bits per packed value. */
+    private final int width;
+
+    /** Smallest encoded value, added to every packed value. */
+    private final long base;
+
+    /** Type tag shared by all values; MIXED if they differ. */
+    private final int uniformTag;
+
+    /** Type tag of each value; null unless the tags are MIXED. */
+    private final byte[] tags;
+
+    /** Values not representable in the packed array. */
+    private final Number[] others;
+
+    /**
+     * Constructs a succinct copy of a tree.
+     * Later changes to the tree are not reflected in the copy.
+     * @param tree the tree to copy; may be empty
+     * @throws IllegalArgumentException if tree is null
+     */
+    public SuccinctTree(final NumericBinaryTree tree)
+        throws IllegalArgumentException {
+        if (tree == null) {
+            throw new IllegalArgumentException("null tree");
+        }
+        // First pass: count nodes, types and the range of values.
+        int count = 0;
+        int otherCount = 0;
+        int tag = MIXED;
+        boolean uniform = true;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        ArrayDeque<NumericBinaryTree> queue
+                = new ArrayDeque<NumericBinaryTree>();
+        if (!tree.isEmpty()) {
+            queue.add(tree);
+        }
+        while (!queue.isEmpty()) {
+            NumericBinaryTree node = enqueueChildren(queue);
+            int nodeTag = NumberCodec.tagOf(node.getValue());
+            if (count == 0) {
+                tag = nodeTag;
+            } else if (nodeTag != tag) {
+                uniform = false;
+            }
+            long raw;
+            if (isPacked(nodeTag)) {
+                raw = encode(node.getValue(), nodeTag);
+            } else {
+                raw = otherCount++;
+            }
+            min = Math.min(min, raw);
+            max = Math.max(max, raw);
+            count++;
+        }
+        this.size = count;
+        if (uniform) {
+            this.uniformTag = tag;
+            this.tags = null;
+        } else {
+            this.uniformTag = MIXED;
+            this.tags = new byte[count];
+        }
+        if (count == 0) {
+            this.base = 0;
+            this.width = 0;
+        } else {
+            this.base = min;
+            this.width = Long.SIZE - Long.numberOfLeadingZeros(max - min);
+        }
+        this.shape = new long[wordsFor(2L * count)];
+        this.packed = new long[wordsFor((long) count * this.width)];
+        this.others = new Number[otherCount];
+        // Second pass: fill the shape bits and values in the same order.
+        otherCount = 0;
+        int index = 0;
+        if (!tree.isEmpty()) {
+            queue.add(tree);
+        }
+        while (!queue.isEmpty()) {
+            NumericBinaryTree node = enqueueChildren(queue);
+            if (node.getLeftChild() != null) {
+                setShapeBit(2L * index);
+            }
+            if (node.getRightChild() != null) {
+                setShapeBit(2L * index + 1);
+            }
+            int nodeTag = NumberCodec.tagOf(node.getValue());
+            if (this.tags != null) {
+                this.tags[index] = (byte) nodeTag;
+            }
+            long raw;
+            if (isPacked(nodeTag)) {
+                raw = encode(node.getValue(), nodeTag);
+            } else {
+                this.others[otherCount] = node.getValue();
+                raw = otherCount++;
+            }
+            pack(index, raw - this.base);
+            index++;
+        }
+        this.ranks = buildRanks(this.shape);
+    }
+
+    /**
+     * Removes the next node from a level-order queue,
+     * adding its children to the queue.
+     * @param queue the nonempty queue
+     * @return the node removed
+     */
+    private static NumericBinaryTree enqueueChildren(
+            final ArrayDeque<NumericBinaryTree> queue) {
+        NumericBinaryTree node = queue.remove();
+        if (node.getLeftChild() != null) {
+            queue.add(node.getLeftChild());
+        }
+        if (node.getRightChild() != null) {
+            queue.add(node.getRightChild());
+        }
+        return node;
+    }
+
+    /**
+     * Returns the number of words needed to hold a number of bits.
+     * @param bits the number of bits
+     * @return the number of words
+     */
+    private static int wordsFor(final long bits) {
+        return (int) ((bits + WORD_MASK) >>> WORD_SHIFT);
+    }
+
+    /**
+     * Builds the rank directory of a bitvector.
+     * @param bits the bitvector
+     * @return the number of set bits preceding each block
+     */
+    private static int[] buildRanks(final long[] bits) {
+        int[] directory = new int[bits.length / WORDS_PER_BLOCK + 1];
+        int ones = 0;
+        for (int i = 0; i < bits.length; i++) {
+            if (i % WORDS_PER_BLOCK == 0) {
+                directory[i / WORDS_PER_BLOCK] = ones;
+            }
+            ones += Long.bitCount(bits[i]);
+        }
+        if (bits.length % WORDS_PER_BLOCK == 0) {
+            directory[bits.length / WORDS_PER_BLOCK] = ones;
+        }
+        return directory;
+    }
+
+    /**
+     * Sets a bit of the shape bitvector.
+     * @param position the position of the bit
+     */
+    private void setShapeBit(final long position) {
+        this.shape[(int) (position >>> WORD_SHIFT)] |= 1L << position;
+    }
+
+    /**
+     * Determines whether a bit of the shape bitvector is set.
+     * @param position the position of the bit
+     * @return true if the bit is set
+     */
+    private boolean shapeBit(final long position) {
+        return (this.shape[(int) (position >>> WORD_SHIFT)]
+                & (1L << position)) != 0;
+    }
+
+    /**
+     * Counts the set bits of the shape preceding a position.
+     * @param position the position, at most 2n
+     * @return the number of set bits before position
+     */
+    private int rank(final long position) {
+        int word = (int) (position >>> WORD_SHIFT);
+        int ones = this.ranks[word / WORDS_PER_BLOCK];
+        for (int i = word - word % WORDS_PER_BLOCK; i < word; i++) {
+            ones += Long.bitCount(this.shape[i]);
+        }
+        int offset = (int) (position & WORD_MASK);
+        if (offset != 0) {
+            ones += Long.bitCount(this.shape[word] & (-1L >>> -offset));
+        }
+        return ones;
+    }
+
+    /**
+     * Finds the position of a set bit of the shape.
+     * @param ordinal which set bit to find, counting from 1
+     * @return the position of the set bit
+     */
+    private long select(final int ordinal) {
+        // Last directory block with fewer than ordinal preceding bits.
+        int low = 0;
+        int high = this.ranks.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (this.ranks[middle] < ordinal) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        int remaining = ordinal - this.ranks[low];
+        int word = low * WORDS_PER_BLOCK;
+        int ones = Long.bitCount(this.shape[word]);
+        while (ones < remaining) {
+            remaining -= ones;
+            word++;
+            ones = Long.bitCount(this.shape[word]);
+        }
+        long bits = this.shape[word];
+        for (int i = 1; i < remaining; i++) {
+            bits &= bits - 1;
+        }
+        return ((long) word << WORD_SHIFT)
+               + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Determines whether values of a type are held in the packed array.
+     * @param tag the type tag
+     * @return true for the primitive wrapper types
+     */
+    private static boolean isPacked(final int tag) {
+        return tag <= NumberCodec.DOUBLE;
+    }
+
+    /**
+     * Encodes a primitive wrapper value as a long.
+     * @param value the value
+     * @param tag the type tag of the value
+     * @return the encoded value
+     */
+    private static long encode(final Number value, final int tag) {
+        switch (tag) {
+            case NumberCodec.FLOAT:
+                return Float.floatToRawIntBits(value.floatValue());
+            case NumberCodec.DOUBLE:
+                return Double.doubleToRawLongBits(value.doubleValue());
+            default:
+                return value.longValue();
+        }
+    }
+
+    /**
+     * Decodes a value encoded by {@link #encode(Number, int)}.
+     * @param raw the encoded value
+     * @param tag the type tag of the value
+     * @return the value
+     */
+    private static Number decode(final long raw, final int tag) {
+        switch (tag) {
+            case NumberCodec.BYTE:
+                return Byte.valueOf((byte) raw);
+            case NumberCodec.SHORT:
+                return Short.valueOf((short) raw);
+            case NumberCodec.INTEGER:
+                return Integer.valueOf((int) raw);
+            case NumberCodec.FLOAT:
+                return Float.valueOf(Float.intBitsToFloat((int) raw));
+            case NumberCodec.DOUBLE:
+                return Double.valueOf(Double.longBitsToDouble(raw));
+            default:
+                return Long.valueOf(raw);
+        }
+    }
+
+    /**
+     * Stores a value in the packed array.
+     * @param index the node number
+     * @param offset the value less {@link #base}
+     */
+    private void pack(final int index, final long offset) {
+        if (this.width == 0) {
+            return;
+        }
+        long position = (long) index * this.width;
+        int word = (int) (position >>> WORD_SHIFT);
+        int shift = (int) (position & WORD_MASK);
+        this.packed[word] |= offset << shift;
+        if (shift + this.width > Long.SIZE) {
+            this.packed[word + 1] |= offset >>> (Long.SIZE - shift);
+        }
+    }
+
+    /**
+     * Retrieves a value from the packed array.
+     * @param index the node number
+     * @return the value less {@link #base}
+     */
+    private long unpack(final int index) {
+        if (this.width == 0) {
+            return 0;
+        }
+        long position = (long) index * this.width;
+        int word = (int) (position >>> WORD_SHIFT);
+        int shift = (int) (position & WORD_MASK);
+        long bits = this.packed[word] >>> shift;
+        if (shift + this.width > Long.SIZE) {
+            bits |= this.packed[word + 1] << (Long.SIZE - shift);
+        }
+        return bits & (-1L >>> -this.width);
+    }
+
+    /**
+     * Checks that a node number is valid.
+     * @param node the node number
+     * @throws IllegalArgumentException if there is no such node
+     */
+    private void checkNode(final int node) throws IllegalArgumentException {
+        if (node < 0 || node >= this.size) {
+            throw new IllegalArgumentException("No node " + node);
+        }
+    }
+
+    /**
+     * Empty tree predicate.
+     * @return <code>true</code> if this is an empty tree;
+     *         <code>false</code> otherwise
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Returns the number of nodes in this tree; 0 if empty tree.
+     * @return the number of nodes
+     */
+    public int numberOfNodes() {
+        return this.size;
+    }
+
+    /**
+     * Returns the root of this tree.
+     * @return the root node; NONE if this tree is empty
+     */
+    public int getRoot() {
+        if (this.size == 0) {
+            return NONE;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the value of a node.
+     * @param node the node number
+     * @return the value of the node
+     * @throws IllegalArgumentException if there is no such node
+     */
+    public Number getValue(final int node) throws IllegalArgumentException {
+        checkNode(node);
+        int tag = this.uniformTag;
+        if (this.tags != null) {
+            tag = this.tags[node];
+        }
+        long raw = unpack(node) + this.base;
+        if (isPacked(tag)) {
+            return decode(raw, tag);
+        }
+        return this.others[(int) raw];
+    }
+
+    /**
+     * Returns the left child of a node.
+     * @param node the node number
+     * @return the left child; NONE if no such child
+     * @throws IllegalArgumentException if there is no such node
+     */
+    public int getLeftChild(final int node) throws IllegalArgumentException {
+        checkNode(node);
+        return child(2L * node);
+    }
+
+    /**
+     * Returns the right child of a node.
+     * @param node the node number
+     * @return the right child; NONE if no such child
+     * @throws IllegalArgumentException if there is no such node
+     */
+    public int getRightChild(final int node) throws IllegalArgumentException {
+        checkNode(node);
+        return child(2L * node + 1);
+    }
+
+    /**
+     * Returns the child recorded at a shape position.
+     * @param position the position of the child bit
+     * @return the child; NONE if the bit is clear
+     */
+    private int child(final long position) {
+        if (!shapeBit(position)) {
+            return NONE;
+        }
+        return rank(position + 1);
+    }
+
+    /**
+     * Returns the parent of a node.
+     * @param node the node number
+     * @return the parent; NONE if node is the root
+     * @throws IllegalArgumentException if there is no such node
+     */
+    public int getParent(final int node) throws IllegalArgumentException {
+        checkNode(node);
+        if (node == 0) {
+            return NONE;
+        }
+        return (int) (select(node) >>> 1);
+    }
+
+    /**
+     * Leaf predicate.
+     * @param node the node number
+     * @return <code>true</code> if the node is a leaf;
+     *         <code>false</code> otherwise
+     * @throws IllegalArgumentException if there is no such node
+     */
+    public boolean isLeaf(final int node) throws IllegalArgumentException {
+        checkNode(node);
+        return !shapeBit(2L * node) && !shapeBit(2L * node + 1);
+    }
+
+    /**
+     * Determines the number of leaves of this tree.
+     * @return the number of leaves
+     * @throws java.lang.NullPointerException if this tree is empty
+     */
+    public int numberOfLeaves() throws NullPointerException {
+        if (isEmpty()) {
+            throw new NullPointerException();
+        }
+        int leaves = 0;
+        for (int i = 0; i < this.shape.length; i++) {
+            long word = this.shape[i];
+            leaves += Long.bitCount(~(word | (word >>> 1)) & LEFT_BITS);
+        }
+        // Unused pairs at the end of the last word look like leaves.
+        int used = (int) ((2L * this.size) & WORD_MASK);
+        if (used != 0) {
+            leaves -= (Long.SIZE - used) / 2;
+        }
+        return leaves;
+    }
+
+    /**
+     * Determines the height of this tree,
+     * the number of edges on the longest downward path
+     * between the root and a leaf.
+     * The last node in level order is at the greatest depth,
+     * so the height is found by walking up from it.
+     * @return the height of this tree, -1 if empty
+     */
+    public int height() {
+        int height = -1;
+        for (int node = this.size - 1; node != NONE; node = getParent(node)) {
+            height++;
+        }
+        return height;
+    }
+
+    /**
+     * Returns a list of values in the order in which
+     *   the nodes would be visited using preorder traversal.
+     *   If this tree is empty, returns the empty list.
+     * @return values of all nodes in preorder
+     */
+    public List<Number> preorderValues() {
+        List<Number> values = new ArrayList<Number>(this.size);
+        IntStack pending = new IntStack();
+        if (!isEmpty()) {
+            pending.push(0);
+        }
+        while (!pending.isEmpty()) {
+            int node = pending.pop();
+            values.add(getValue(node));
+            int right = getRightChild(node);
+            if (right != NONE) {
+                pending.push(right);
+            }
+            int left = getLeftChild(node);
+            if (left != NONE) {
+                pending.push(left);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns a list of values in the order in which
+     *   the nodes would be visited using inorder traversal.
+     *   If this tree is empty, returns the empty list.
+     * @return values of all nodes in inorder
+     */
+    public List<Number> inorderValues() {
+        List<Number> values = new ArrayList<Number>(this.size);
+        IntStack pending = new IntStack();
+        int node = getRoot();
+        while (node != NONE || !pending.isEmpty()) {
+            while (node != NONE) {
+                pending.push(node);
+                node = getLeftChild(node);
+            }
+            node = pending.pop();
+            values.add(getValue(node));
+            node = getRightChild(node);
+        }
+        return values;
+    }
+
+    /**
+     * Returns a list of values in the order in which
+     *   the nodes would be visited using postorder traversal.
+     *   If this tree is empty, returns the empty list.
+     * @return values of all nodes in postorder
+     */
+    public List<Number> postorderValues() {
+        // Reverse of a preorder visiting right before left.
+        Number[] values = new Number[this.size];
+        int next = this.size;
+        IntStack pending = new IntStack();
+        if (!isEmpty()) {
+            pending.push(0);
+        }
+        while (!pending.isEmpty()) {
+            int node = pending.pop();
+            values[--next] = getValue(node);
+            int left = getLeftChild(node);
+            if (left != NONE) {
+                pending.push(left);
+            }
+            int right = getRightChild(node);
+            if (right != NONE) {
+                pending.push(right);
+            }
+        }
+        return new ArrayList<Number>(Arrays.asList(values));
+    }
+
+    /**
+     * Returns a list of values in level order.
+     *   If this tree is empty, returns the empty list.
+     * @return values of all nodes in level order
+     */
+    public List<Number> levelorderValues() {
+        List<Number> values = new ArrayList<Number>(this.size);
+        for (int node = 0; node < this.size; node++) {
+            values.add(getValue(node));
+        }
+        return values;
+    }
+
+    /**
+     * Builds a modifiable NumericBinaryTree with the same shape and values.
+     * @return the tree; the empty tree if this tree is empty
+     */
+    public NumericBinaryTree toTree() {
+        if (isEmpty()) {
+            return new NumericBinaryTree();
+        }
+        // Children always follow their parents in level order.
+        NumericBinaryTree[] nodes = new NumericBinaryTree[this.size];
+        for (int node = this.size - 1; node >= 0; node--) {
+            NumericBinaryTree left = null;
+            NumericBinaryTree right = null;
+            int child = getLeftChild(node);
+            if (child != NONE) {
+                left = nodes[child];
+                nodes[child] = null;
+            }
+            child = getRightChild(node);
+            if (child != NONE) {
+                right = nodes[child];
+                nodes[child] = null;
+            }
+            nodes[node] = new NumericBinaryTree(getValue(node), left, right);
+        }
+        return nodes[0];
+    }
+
+    /**
+     * Growable stack of node numbers.
+     */
+    private static final class IntStack {
+
+        /** Initial capacity. */
+        private static final int INITIAL_CAPACITY = 16;
+
+        /** Stack contents. */
+        private int[] elements = new int[INITIAL_CAPACITY];
+
+        /** Number of elements. */
+        private int count;
+
+        /**
+         * Pushes a node number.
+         * @param node the node number
+         */
+        void push(final int node) {
+            if (this.count == this.elements.length) {
+                this.elements = Arrays.copyOf(this.elements, this.count * 2);
+            }
+            this.elements[this.count++] = node;
+        }
+
+        /**
+         * Pops the most recently pushed node number.
+         * @return the node number
+         */
+        int pop() {
+            return this.elements[--this.count];
+        }
+
+        /**
+         * Empty stack predicate.
+         * @return true if the stack is empty
+         */
+        boolean isEmpty() {
+            return this.count == 0;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+// SuccinctTreeTest.java
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for SuccinctTree.
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public class SuccinctTreeTest {
+    /** Number of nodes in generated random trees. */
+    private static final int RANDOM_SIZE = 5000;
+    /** Seed for generated random trees. */
+    private static final long SEED = 2016081718L;
+    /** Height of generated deep test tree. */
+    private static final int DEEP_HEIGHT = 3000;
+
+    /**
+     * Generates a tree of random shape and values.
+     * @param count the number of nodes
+     * @return testing tree
+     */
+    private NumericBinaryTree generateRandomTree(final int count) {
+        Random random = new Random(SEED);
+        NumericBinaryTree[] nodes = new NumericBinaryTree[count];
+        nodes[0] = new NumericBinaryTree(random.nextInt());
+        for (int i = 1; i < count; i++) {
+            nodes[i] = new NumericBinaryTree(random.nextInt());
+            // Attach to a random earlier node with a free child.
+            while (true) {
+                NumericBinaryTree parent = nodes[random.nextInt(i)];
+                if (random.nextBoolean()) {
+                    if (parent.getLeftChild() == null) {
+                        parent.setLeftChild(nodes[i]);
+                        break;
+                    }
+                } else if (parent.getRightChild() == null) {
+                    parent.setRightChild(nodes[i]);
+                    break;
+                }
+            }
+        }
+        return nodes[0];
+    }
+
+    /**
+     * Generates a tree holding values of many types.
+     * @return testing tree
+     */
+    private NumericBinaryTree generateMixedTree() {
+        return new NumericBinaryTree(Long.MIN_VALUE,
+                new NumericBinaryTree((byte) -7,
+                        new NumericBinaryTree((short) 300),
+                        new NumericBinaryTree(Long.MAX_VALUE,
+                                null,
+                                new NumericBinaryTree(Float.NaN))),
+                new NumericBinaryTree(-0.0,
+                        new NumericBinaryTree(new BigInteger("123456789"
+                                + "012345678901234567890")),
+                        new NumericBinaryTree(new BigDecimal("-3.14159"),
+                                new NumericBinaryTree(1.5f), null)));
+    }
+
+    /**
+     * Verifies that values and their types match the original.
+     * @param expected the original values
+     * @param actual the values of the succinct tree
+     */
+    private void assertSameValues(final List<Number> expected,
+                                  final List<Number> actual) {
+        assertEquals(expected, actual);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getClass(),
+                         actual.get(i).getClass());
+        }
+    }
+
+    /**
+     * Verifies the empty tree.
+     */
+    @Test
+    public void emptyTreeTest() {
+        SuccinctTree st = new SuccinctTree(new NumericBinaryTree());
+        assertTrue(st.isEmpty());
+        assertEquals(0, st.numberOfNodes());
+        assertEquals(SuccinctTree.NONE, st.getRoot());
+        assertEquals(-1, st.height());
+        assertTrue(st.preorderValues().isEmpty());
+        assertTrue(st.toTree().isEmpty());
+    }
+
+    /**
+     * Verifies exception for number of leaves of the empty tree.
+     */
+    @Test(expected = NullPointerException.class)
+    public void emptyTreeNumberOfLeavesException() {
+        new SuccinctTree(new NumericBinaryTree()).numberOfLeaves();
+    }
+
+    /**
+     * Verifies exception for a node that does not exist.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void missingNodeException() {
+        new SuccinctTree(new NumericBinaryTree(1)).getValue(1);
+    }
+
+    /**
+     * Verifies navigation, metrics and traversals against the original.
+     */
+    @Test
+    public void randomTreeTest() {
+        NumericBinaryTree nbt = generateRandomTree(RANDOM_SIZE);
+        SuccinctTree st = new SuccinctTree(nbt);
+        assertEquals(nbt.numberOfNodes(), st.numberOfNodes());
+        assertEquals(nbt.numberOfLeaves(), st.numberOfLeaves());
+        assertEquals(nbt.height(), st.height());
+        assertEquals(nbt.preorderValues(), st.preorderValues());
+        assertEquals(nbt.inorderValues(), st.inorderValues());
+        assertEquals(nbt.postorderValues(), st.postorderValues());
+        assertEquals(nbt, st.toTree());
+        for (int node = 1; node < st.numberOfNodes(); node++) {
+            int parent = st.getParent(node);
+            assertTrue(st.getLeftChild(parent) == node
+                       || st.getRightChild(parent) == node);
+        }
+        assertEquals(SuccinctTree.NONE, st.getParent(st.getRoot()));
+    }
+
+    /**
+     * Verifies navigation of a tree through its node numbers.
+     */
+    @Test
+    public void navigationTest() {
+        NumericBinaryTree nbt = generateMixedTree();
+        SuccinctTree st = new SuccinctTree(nbt);
+        int root = st.getRoot();
+        assertEquals(Long.MIN_VALUE, st.getValue(root));
+        int left = st.getLeftChild(root);
+        int right = st.getRightChild(root);
+        assertEquals((byte) -7, st.getValue(left));
+        assertEquals(-0.0, st.getValue(right));
+        int leftRight = st.getRightChild(left);
+        assertEquals(SuccinctTree.NONE, st.getLeftChild(leftRight));
+        assertFalse(st.isLeaf(leftRight));
+        assertTrue(st.isLeaf(st.getRightChild(leftRight)));
+        assertEquals(left, st.getParent(leftRight));
+        assertEquals(root, st.getParent(right));
+        assertEquals(SuccinctTree.NONE,
+                     st.getRightChild(st.getRightChild(right)));
+    }
+
+    /**
+     * Verifies that values of every type are preserved.
+     */
+    @Test
+    public void mixedTypesTest() {
+        NumericBinaryTree nbt = generateMixedTree();
+        SuccinctTree st = new SuccinctTree(nbt);
+        assertSameValues(nbt.preorderValues(), st.preorderValues());
+        assertSameValues(nbt.inorderValues(), st.inorderValues());
+        assertEquals(nbt.toString(), st.toTree().toString());
+    }
+
+    /**
+     * Verifies that a degenerate tree needs no recursion.
+     */
+    @Test
+    public void deepTreeTest() {
+        NumericBinaryTree nbt = new NumericBinaryTree(0.5);
+        for (int i = 1; i <= DEEP_HEIGHT; i++) {
+            nbt = new NumericBinaryTree(i + 0.5, nbt, null);
+        }
+        SuccinctTree st = new SuccinctTree(nbt);
+        assertEquals(DEEP_HEIGHT, st.height());
+        assertEquals(1, st.numberOfLeaves());
+        List<Number> inorder = st.inorderValues();
+        assertEquals(0.5, inorder.get(0));
+        assertEquals(DEEP_HEIGHT + 0.5, inorder.get(DEEP_HEIGHT));
+        assertEquals(DEEP_HEIGHT + 1, st.postorderValues().size());
+    }
+}
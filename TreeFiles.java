@@ -0,0 +1,295 @@
+// TreeFiles.java
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+/**
+ * File operations behind the save and restore methods
+ * of NumericBinaryTree.
+ * <p>
+ * Saves verify the written file by reading it back;
+ * reads accept both serialized and compact files.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+final class TreeFiles {
+
+    /** Prevents instantiation of utility class. */
+    private TreeFiles() {
+    }
+
+    /**
+     * Returns the file name to use for a requested file name.
+     * @param filename the requested file name; may be null
+     * @return filename, or the default file name if null
+     */
+    static String fileName(final String filename) {
+        if (filename == null) {
+            return NumericBinaryTree.SERIAL_FILENAME;
+        }
+        return filename;
+    }
+
+    /**
+     * Serializes a tree to a file and verifies it by reading it back.
+     * @param tree the tree to save
+     * @param filename the name of the file; if null, uses default file name
+     * @return <code>true</code> if successful save;
+     *         <code>false</code> otherwise
+     * @throws java.io.IOException if unexpected IO error
+     */
+    static boolean save(final NumericBinaryTree tree, final String filename)
+        throws IOException {
+        boolean success = true;
+        String treeFileName = fileName(filename);
+        // Serialize the tree.
+        try {
+            OutputStream file = new FileOutputStream(treeFileName);
+            OutputStream buffer = new BufferedOutputStream(file);
+            ObjectOutput output = new ObjectOutputStream(buffer);
+            try {
+                output.writeObject(tree);
+            } finally {
+                output.close();
+            }
+        } catch (IOException ex) {
+            System.err.println("Unsuccessful save. " + ex);
+            throw ex;
+        }
+
+        // Attempt to deserialize the graph as verification.
+        try {
+            InputStream file = new FileInputStream(treeFileName);
+            InputStream buffer = new BufferedInputStream(file);
+            ObjectInput input = new ObjectInputStream(buffer);
+            try {
+                NumericBinaryTree restored
+                = (NumericBinaryTree) input.readObject();
+                // Use toString for quick check.
+                if (!tree.toString().equals(restored.toString())) {
+                    success = false;
+                }
+                // Use compareTrees predicate for deeper check.
+                if (!NumericBinaryTree.compareTrees(tree, restored)) {
+                    success = false;
+                }
+            } finally {
+                input.close();
+            }
+        } catch (ClassNotFoundException ex) {
+            success = false;
+        } catch (IOException ex) {
+            success = false;
+        }
+        return success;
+    }
+
+    /**
+     * Encodes a tree to a file in compact format
+     * and verifies it by reading it back.
+     * @param tree the tree to save
+     * @param filename the name of the file; if null, uses default file name
+     * @return <code>true</code> if successful save;
+     *         <code>false</code> otherwise
+     * @throws java.io.IOException if unexpected IO error
+     */
+    static boolean saveCompact(final NumericBinaryTree tree,
+                               final String filename) throws IOException {
+        boolean success = true;
+        String treeFileName = fileName(filename);
+        // Encode the tree.
+        OutputStream file = new FileOutputStream(treeFileName);
+        OutputStream buffer = new BufferedOutputStream(file);
+        try {
+            CompactTreeFormat.write(buffer, tree);
+        } finally {
+            buffer.close();
+        }
+
+        // Attempt to decode the tree as verification.
+        try {
+            CompactTreeReader reader = CompactTreeReader.open(treeFileName);
+            try {
+                if (!NumericBinaryTree.compareTrees(tree, reader.readTree())) {
+                    success = false;
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException ex) {
+            success = false;
+        }
+        return success;
+    }
+
+    /**
+     * Reads a tree from a serialized or compact file.
+     * @param filename the name of the file; if null, uses default file name
+     * @return the tree read; null if the file is missing
+     *         or does not hold a NumericBinaryTree
+     * @throws java.io.IOException if unexpected IO error
+     */
+    static NumericBinaryTree read(final String filename) throws IOException {
+        try {
+            InputStream file = new FileInputStream(fileName(filename));
+            InputStream buffer = new BufferedInputStream(file);
+            if (CompactTreeReader.isCompact(buffer)) {
+                CompactTreeReader reader = new CompactTreeReader(buffer);
+                try {
+                    return reader.readTree();
+                } finally {
+                    reader.close();
+                }
+            }
+            ObjectInput input = new ObjectInputStream(buffer);
+            try {
+                return (NumericBinaryTree) input.readObject();
+            } finally {
+                input.close();
+            }
+        } catch (ClassNotFoundException ex) {
+            // ClassNotFoundException is common.
+            return null;
+        } catch (FileNotFoundException ex) {
+            // FileNoteFoundException is common.
+            return null;
+        }
+    }
+
+    /**
+     * Serializes a snapshot and writes it to a file without blocking.
+     * @param snapshot a tree no longer modified by anyone
+     * @param filename the name of the file; if null, uses default file name
+     * @param executor the executor that serializes the snapshot
+     * @return a future completed with <code>true</code> if successful save
+     *         and <code>false</code> if verification failed,
+     *         or completed exceptionally if unexpected IO error
+     */
+    static CompletableFuture<Boolean> saveAsync(
+            final NumericBinaryTree snapshot, final String filename,
+            final Executor executor) {
+        final Path target = Paths.get(fileName(filename));
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                byte[] bytes = toSerialBytes(snapshot);
+                // Deserialize the bytes as verification.
+                if (!NumericBinaryTree.compareTrees(snapshot,
+                                                    fromSerialBytes(bytes))) {
+                    return null;
+                }
+                return bytes;
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            }
+        }, executor).thenCompose(bytes -> {
+            if (bytes == null) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return AsyncFileTransfer.writeAtomically(target, bytes)
+                    .thenApply(done -> true);
+        });
+    }
+
+    /**
+     * Reads a serialized or compact tree from a file without blocking.
+     * @param filename the name of the file; if null, uses default file name
+     * @param executor the executor that decodes the file contents
+     * @return a future completed with the tree read,
+     *         or null if the file is missing
+     *         or does not hold a NumericBinaryTree,
+     *         or completed exceptionally if unexpected IO error
+     */
+    static CompletableFuture<NumericBinaryTree> readAsync(
+            final String filename, final Executor executor) {
+        CompletableFuture<byte[]> contents
+                = AsyncFileTransfer.readFully(Paths.get(fileName(filename)));
+        return contents.thenApplyAsync(bytes -> {
+            if (bytes == null) {
+                // Missing file is common.
+                return null;
+            }
+            try {
+                return fromBytes(bytes);
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            }
+        }, executor);
+    }
+
+    /**
+     * Serializes a tree into memory.
+     * @param nbt the tree to serialize
+     * @return the serialized form of the tree
+     * @throws java.io.IOException if unexpected IO error
+     */
+    private static byte[] toSerialBytes(final NumericBinaryTree nbt)
+        throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectOutput output = new ObjectOutputStream(buffer);
+        try {
+            output.writeObject(nbt);
+        } finally {
+            output.close();
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Reads a tree from the contents of a serialized or compact file.
+     * @param bytes the contents of the file
+     * @return the tree read;
+     *         null if the bytes do not hold a NumericBinaryTree
+     * @throws java.io.IOException if unexpected IO error
+     */
+    private static NumericBinaryTree fromBytes(final byte[] bytes)
+        throws IOException {
+        InputStream buffer = new ByteArrayInputStream(bytes);
+        if (!CompactTreeReader.isCompact(buffer)) {
+            return fromSerialBytes(bytes);
+        }
+        CompactTreeReader reader = new CompactTreeReader(buffer);
+        try {
+            return reader.readTree();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Deserializes a tree from memory.
+     * @param bytes the serialized form of a tree
+     * @return the deserialized tree;
+     *         null if the bytes do not hold a NumericBinaryTree
+     * @throws java.io.IOException if unexpected IO error
+     */
+    private static NumericBinaryTree fromSerialBytes(final byte[] bytes)
+        throws IOException {
+        ObjectInput input
+                = new ObjectInputStream(new ByteArrayInputStream(bytes));
+        try {
+            return (NumericBinaryTree) input.readObject();
+        } catch (ClassNotFoundException ex) {
+            return null;
+        } catch (ClassCastException ex) {
+            return null;
+        } finally {
+            input.close();
+        }
+    }
+}
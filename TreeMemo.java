@@ -0,0 +1,389 @@
+// TreeMemo.java
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+/**
+ * Bounded cache of results derived from trees.
+ * <p>
+ * A result is computed by a query, a function of a tree,
+ * and cached under the identity of the tree and of the query.
+ * Each result is stamped with the version of its tree when computed,
+ * and a result stamped before the tree or any of its descendants
+ * was later modified is computed again rather than returned,
+ * so repeated queries of unchanged trees are answered without
+ * traversing them, whatever other trees have been modified.
+ * A subtree shared with another tree, which validation rules out,
+ * may be changed through that tree without the change being seen.
+ * Queries must be reused rather than recreated for each call,
+ * since a new query object is a different query;
+ * the common queries are provided as constants.
+ * </p>
+ * <p>
+ * When full, the cache evicts either the least recently used result
+ * or the least frequently used result, breaking ties by recency.
+ * Cached results hold their trees in memory until evicted.
+ * All methods are thread-safe; a query runs outside the lock,
+ * so concurrent misses for one result may each compute it.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public final class TreeMemo {
+
+    /** Query listing values in preorder, as an unmodifiable list. */
+    public static final Function<NumericBinaryTree, List<Number>>
+        PREORDER_VALUES
+            = tree -> Collections.unmodifiableList(tree.preorderValues());
+
+    /** Query listing values in inorder, as an unmodifiable list. */
+    public static final Function<NumericBinaryTree, List<Number>>
+        INORDER_VALUES
+            = tree -> Collections.unmodifiableList(tree.inorderValues());
+
+    /** Query counting nodes. */
+    public static final Function<NumericBinaryTree, Integer>
+        NUMBER_OF_NODES = NumericBinaryTree::numberOfNodes;
+
+    /** Query counting leaves. */
+    public static final Function<NumericBinaryTree, Integer>
+        NUMBER_OF_LEAVES = NumericBinaryTree::numberOfLeaves;
+
+    /** Query describing a tree as a string. */
+    public static final Function<NumericBinaryTree, String>
+        TO_STRING = NumericBinaryTree::toString;
+
+    /** Initial capacity of the result map. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Load factor of the result map. */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /** Multiplier combining identity hash codes. */
+    private static final int HASH_MULTIPLIER = 31;
+
+    /**
+     * Order in which results are evicted when the cache is full.
+     */
+    public enum Policy {
+        /** Evict the least recently used result. */
+        LRU,
+        /** Evict the least frequently used result. */
+        LFU
+    }
+
+    /** Greatest number of results held. */
+    private final int capacity;
+
+    /** Eviction policy. */
+    private final Policy policy;
+
+    /** Cached results; in least recent use order for LRU. */
+    private final Map<Key, Entry> entries;
+
+    /** Keys by number of uses, each in least recent use order; LFU only. */
+    private final Map<Long, LinkedHashSet<Key>> byUses;
+
+    /** Least number of uses of any cached result; LFU only. */
+    private long leastUses;
+
+    /** Number of lookups answered from the cache. */
+    private long hits;
+
+    /** Number of lookups that computed their result. */
+    private long misses;
+
+    /** Number of results evicted to make room. */
+    private long evictions;
+
+    /** Number of results discarded because a tree was modified since. */
+    private long invalidations;
+
+    /**
+     * Constructs an empty cache.
+     * @param capacity the greatest number of results held
+     * @param policy the eviction policy
+     * @throws IllegalArgumentException if capacity is not positive
+     *         or policy is null
+     */
+    public TreeMemo(final int capacity, final Policy policy)
+        throws IllegalArgumentException {
+        if (capacity <= 0 || policy == null) {
+            throw new IllegalArgumentException("Invalid memo configuration");
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        if (policy == Policy.LRU) {
+            this.entries = new LinkedHashMap<Key, Entry>(INITIAL_CAPACITY,
+                                                         LOAD_FACTOR, true);
+        } else {
+            this.entries = new HashMap<Key, Entry>();
+        }
+        this.byUses = new HashMap<Long, LinkedHashSet<Key>>();
+    }
+
+    /**
+     * Returns the result of a query of a tree,
+     * computing it only if no valid result is cached.
+     * @param <T> the type of the result
+     * @param tree the tree
+     * @param query the query; must not modify the tree
+     * @return the result of applying query to tree
+     * @throws IllegalArgumentException if tree or query is null
+     */
+    public <T> T get(final NumericBinaryTree tree,
+                     final Function<NumericBinaryTree, T> query)
+        throws IllegalArgumentException {
+        if (tree == null || query == null) {
+            throw new IllegalArgumentException();
+        }
+        Key key = new Key(tree, query);
+        long stamp = tree.version();
+        synchronized (this) {
+            Entry entry = this.entries.get(key);
+            if (entry != null && entry.stamp == stamp) {
+                this.hits++;
+                touch(key, entry);
+                @SuppressWarnings("unchecked")
+                T result = (T) entry.result;
+                return result;
+            }
+            if (entry != null) {
+                this.invalidations++;
+                discard(key, entry);
+            }
+            this.misses++;
+        }
+        T result = query.apply(tree);
+        synchronized (this) {
+            if (!this.entries.containsKey(key)) {
+                if (this.entries.size() == this.capacity) {
+                    evict();
+                }
+                Entry entry = new Entry(result, stamp);
+                this.entries.put(key, entry);
+                if (this.policy == Policy.LFU) {
+                    usesOf(1).add(key);
+                    this.leastUses = 1;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Discards every cached result of a tree.
+     * @param tree the tree
+     */
+    public synchronized void invalidate(final NumericBinaryTree tree) {
+        List<Key> keys = new ArrayList<Key>();
+        for (Key key : this.entries.keySet()) {
+            if (key.tree == tree) {
+                keys.add(key);
+            }
+        }
+        for (Key key : keys) {
+            discard(key, this.entries.get(key));
+        }
+    }
+
+    /**
+     * Discards every cached result and resets the counts.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.byUses.clear();
+        this.hits = 0;
+        this.misses = 0;
+        this.evictions = 0;
+        this.invalidations = 0;
+    }
+
+    /**
+     * Returns the number of results held.
+     * @return the number of results held
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     * @return the number of hits
+     */
+    public synchronized long hitCount() {
+        return this.hits;
+    }
+
+    /**
+     * Returns the number of lookups that computed their result.
+     * @return the number of misses
+     */
+    public synchronized long missCount() {
+        return this.misses;
+    }
+
+    /**
+     * Returns the number of results evicted to make room for others.
+     * @return the number of evictions
+     */
+    public synchronized long evictionCount() {
+        return this.evictions;
+    }
+
+    /**
+     * Returns the number of cached results found to be out of date.
+     * @return the number of invalidations
+     */
+    public synchronized long invalidationCount() {
+        return this.invalidations;
+    }
+
+    /**
+     * Records a use of a cached result.
+     * The access-ordered map already records recency for LRU.
+     * @param key the key of the result
+     * @param entry the result
+     */
+    private void touch(final Key key, final Entry entry) {
+        if (this.policy == Policy.LFU) {
+            LinkedHashSet<Key> keys = this.byUses.get(entry.uses);
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                this.byUses.remove(entry.uses);
+                if (this.leastUses == entry.uses) {
+                    this.leastUses++;
+                }
+            }
+            entry.uses++;
+            usesOf(entry.uses).add(key);
+        }
+    }
+
+    /**
+     * Removes a cached result.
+     * @param key the key of the result
+     * @param entry the result
+     */
+    private void discard(final Key key, final Entry entry) {
+        this.entries.remove(key);
+        if (this.policy == Policy.LFU) {
+            LinkedHashSet<Key> keys = this.byUses.get(entry.uses);
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                this.byUses.remove(entry.uses);
+            }
+        }
+    }
+
+    /**
+     * Removes the result chosen by the eviction policy.
+     */
+    private void evict() {
+        Key victim;
+        if (this.policy == Policy.LRU) {
+            victim = this.entries.keySet().iterator().next();
+        } else {
+            LinkedHashSet<Key> keys = this.byUses.get(this.leastUses);
+            if (keys == null) {
+                // Discards since the last eviction may have emptied it.
+                this.leastUses = Collections.min(this.byUses.keySet());
+                keys = this.byUses.get(this.leastUses);
+            }
+            Iterator<Key> oldest = keys.iterator();
+            victim = oldest.next();
+        }
+        discard(victim, this.entries.get(victim));
+        this.evictions++;
+    }
+
+    /**
+     * Returns the keys with a number of uses, creating the set if needed.
+     * @param uses the number of uses
+     * @return the keys, in least recent use order
+     */
+    private LinkedHashSet<Key> usesOf(final long uses) {
+        LinkedHashSet<Key> keys = this.byUses.get(uses);
+        if (keys == null) {
+            keys = new LinkedHashSet<Key>();
+            this.byUses.put(uses, keys);
+        }
+        return keys;
+    }
+
+    /**
+     * Identity of a tree and a query.
+     */
+    private static final class Key {
+
+        /** The tree. */
+        private final NumericBinaryTree tree;
+
+        /** The query. */
+        private final Object query;
+
+        /**
+         * Constructs a key.
+         * @param tree the tree
+         * @param query the query
+         */
+        Key(final NumericBinaryTree tree, final Object query) {
+            this.tree = tree;
+            this.query = query;
+        }
+
+        /**
+         * Compares the tree and query by identity.
+         * @param obj the other key
+         * @return true if both refer to the same tree and query
+         */
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return this.tree == other.tree && this.query == other.query;
+        }
+
+        /**
+         * Returns a hash code from the identities of the tree and query.
+         * @return the hash code
+         */
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.tree) * HASH_MULTIPLIER
+                + System.identityHashCode(this.query);
+        }
+    }
+
+    /**
+     * A cached result.
+     */
+    private static final class Entry {
+
+        /** The result. */
+        private final Object result;
+
+        /** Version of the tree when the result was computed. */
+        private final long stamp;
+
+        /** Number of times the result has been used. */
+        private long uses = 1;
+
+        /**
+         * Constructs an entry.
+         * @param result the result
+         * @param stamp the version of the tree when computed
+         */
+        Entry(final Object result, final long stamp) {
+            this.result = result;
+            this.stamp = stamp;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+// TreeMemoTest.java
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Tests for TreeMemo.
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public class TreeMemoTest {
+    /** Capacity of testing caches. */
+    private static final int CAPACITY = 2;
+    /** A value added to testing trees. */
+    private static final int ADDED = 3;
+
+    /**
+     * Generates a small testing tree.
+     * @return testing tree
+     */
+    private NumericBinaryTree generateTree() {
+        return new NumericBinaryTree(2, new NumericBinaryTree(1), null);
+    }
+
+    /**
+     * Verifies that unchanged trees are answered from the cache
+     * and modified trees are queried again.
+     */
+    @Test
+    public void hitAndInvalidationTest() {
+        TreeMemo memo = new TreeMemo(CAPACITY, TreeMemo.Policy.LRU);
+        NumericBinaryTree nbt = generateTree();
+        List<Number> first = memo.get(nbt, TreeMemo.PREORDER_VALUES);
+        assertSame(first, memo.get(nbt, TreeMemo.PREORDER_VALUES));
+        assertEquals(1, memo.hitCount());
+        assertEquals(1, memo.missCount());
+        generateTree().setValue(0);
+        assertSame(first, memo.get(nbt, TreeMemo.PREORDER_VALUES));
+        assertEquals(2, memo.hitCount());
+        nbt.insert(ADDED);
+        List<Number> second = memo.get(nbt, TreeMemo.PREORDER_VALUES);
+        assertEquals(nbt.preorderValues(), second);
+        assertEquals(1, memo.invalidationCount());
+        nbt.getLeftChild().setValue(0);
+        assertEquals(nbt.toString(), memo.get(nbt, TreeMemo.TO_STRING));
+        assertEquals(Integer.valueOf(2),
+                     memo.get(nbt, TreeMemo.NUMBER_OF_LEAVES));
+        memo.invalidate(nbt);
+        assertEquals(0, memo.size());
+    }
+
+    /**
+     * Verifies least recently used eviction.
+     */
+    @Test
+    public void lruEvictionTest() {
+        TreeMemo memo = new TreeMemo(CAPACITY, TreeMemo.Policy.LRU);
+        NumericBinaryTree a = generateTree();
+        NumericBinaryTree b = generateTree();
+        NumericBinaryTree c = generateTree();
+        memo.get(a, TreeMemo.NUMBER_OF_NODES);
+        memo.get(b, TreeMemo.NUMBER_OF_NODES);
+        memo.get(a, TreeMemo.NUMBER_OF_NODES);
+        memo.get(c, TreeMemo.NUMBER_OF_NODES);
+        assertEquals(1, memo.evictionCount());
+        memo.get(a, TreeMemo.NUMBER_OF_NODES);
+        assertEquals(2, memo.hitCount());
+        memo.get(b, TreeMemo.NUMBER_OF_NODES);
+        assertEquals(2, memo.hitCount());
+    }
+
+    /**
+     * Verifies least frequently used eviction.
+     */
+    @Test
+    public void lfuEvictionTest() {
+        TreeMemo memo = new TreeMemo(CAPACITY, TreeMemo.Policy.LFU);
+        NumericBinaryTree a = generateTree();
+        NumericBinaryTree b = generateTree();
+        NumericBinaryTree c = generateTree();
+        memo.get(a, TreeMemo.NUMBER_OF_NODES);
+        memo.get(a, TreeMemo.NUMBER_OF_NODES);
+        memo.get(b, TreeMemo.NUMBER_OF_NODES);
+        memo.get(c, TreeMemo.NUMBER_OF_NODES);
+        assertEquals(1, memo.evictionCount());
+        memo.get(a, TreeMemo.NUMBER_OF_NODES);
+        assertEquals(2, memo.hitCount());
+        memo.get(c, TreeMemo.NUMBER_OF_NODES);
+        assertEquals(ADDED, memo.hitCount());
+    }
+
+    /**
+     * Verifies that distinct queries of one tree are cached separately.
+     */
+    @Test
+    public void customQueryTest() {
+        TreeMemo memo = new TreeMemo(CAPACITY, TreeMemo.Policy.LFU);
+        Function<NumericBinaryTree, Integer> height = t -> t.height();
+        NumericBinaryTree nbt = generateTree();
+        assertEquals(Integer.valueOf(1), memo.get(nbt, height));
+        assertEquals(Integer.valueOf(2),
+                     memo.get(nbt, TreeMemo.NUMBER_OF_NODES));
+        assertEquals(Integer.valueOf(1), memo.get(nbt, height));
+        assertEquals(1, memo.hitCount());
+    }
+
+    /**
+     * Verifies exception for a capacity that is not positive.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCapacityException() {
+        new TreeMemo(0, TreeMemo.Policy.LRU);
+    }
+}
@@ -0,0 +1,292 @@
+// TreeTransforms.java
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+/**
+ * Bulk transformations of the values and subtrees of trees.
+ * <p>
+ * Values are replaced in place, or in a copy, by a function of
+ * each value; subtrees are pruned in place, or left out of a copy,
+ * where a predicate rejects the value of their root.
+ * Each operation traverses the tree without recursion, so trees
+ * of any depth are supported. An in-place replacement records a single
+ * change rather than one per node, and a copy is built bottom-up from
+ * the copies of the children, so no change is recorded at all.
+ * The parallel forms replace the values of independent subtrees
+ * on the common fork/join pool, so the function must be safe to call
+ * concurrently.
+ * </p>
+ * <p>
+ * Functions and predicates must not modify the tree.
+ * If one throws an exception, the values already replaced
+ * or subtrees already pruned remain so.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public final class TreeTransforms {
+
+    /** Prevents instantiation of utility class. */
+    private TreeTransforms() {
+    }
+
+    /**
+     * Replaces every value of a tree by a function of it.
+     * @param tree the tree; may be empty
+     * @param function the function of each value;
+     *        must not return null
+     * @throws IllegalArgumentException if an argument is null
+     *         or function returns null
+     */
+    public static void replaceAll(final NumericBinaryTree tree,
+                                  final UnaryOperator<Number> function)
+        throws IllegalArgumentException {
+        checkArguments(tree, function);
+        try {
+            replaceSequentially(tree, function);
+        } finally {
+            tree.changed();
+        }
+    }
+
+    /**
+     * Replaces every value of a tree by a function of it,
+     * replacing the values of independent subtrees in parallel.
+     * @param tree the tree; may be empty
+     * @param function the function of each value;
+     *        must not return null and must be safe to call concurrently
+     * @throws IllegalArgumentException if an argument is null
+     *         or function returns null
+     */
+    public static void parallelReplaceAll(final NumericBinaryTree tree,
+            final UnaryOperator<Number> function)
+        throws IllegalArgumentException {
+        checkArguments(tree, function);
+        if (tree.isEmpty()) {
+            return;
+        }
+        try {
+            ParallelTreeTasks.replaceAll(tree, function);
+        } finally {
+            tree.changed();
+        }
+    }
+
+    /**
+     * Copies a tree, replacing every value by a function of it.
+     * @param tree the tree; may be empty
+     * @param function the function of each value;
+     *        must not return null
+     * @return a tree of the same shape holding the function values
+     * @throws IllegalArgumentException if an argument is null
+     *         or function returns null
+     */
+    public static NumericBinaryTree mapValues(final NumericBinaryTree tree,
+            final UnaryOperator<Number> function)
+        throws IllegalArgumentException {
+        checkArguments(tree, function);
+        return copySequentially(tree, function);
+    }
+
+    /**
+     * Copies a tree, replacing every value by a function of it
+     * and copying independent subtrees in parallel.
+     * @param tree the tree; may be empty
+     * @param function the function of each value;
+     *        must not return null and must be safe to call concurrently
+     * @return a tree of the same shape holding the function values
+     * @throws IllegalArgumentException if an argument is null
+     *         or function returns null
+     */
+    public static NumericBinaryTree parallelMapValues(
+            final NumericBinaryTree tree, final UnaryOperator<Number> function)
+        throws IllegalArgumentException {
+        checkArguments(tree, function);
+        if (tree.isEmpty()) {
+            return new NumericBinaryTree();
+        }
+        return ParallelTreeTasks.mapValues(tree, function);
+    }
+
+    /**
+     * Removes from a tree every subtree whose root value
+     * is rejected by a predicate.
+     * If the value of the root of the tree is rejected,
+     * the tree becomes empty.
+     * @param tree the tree; may be empty
+     * @param keep the predicate accepting values whose subtrees remain
+     * @return the number of nodes removed
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public static int prune(final NumericBinaryTree tree,
+                            final Predicate<Number> keep)
+        throws IllegalArgumentException {
+        checkArguments(tree, keep);
+        if (tree.isEmpty()) {
+            return 0;
+        }
+        if (!keep.test(tree.getValue())) {
+            int removed = tree.numberOfNodes();
+            tree.assign(new NumericBinaryTree());
+            return removed;
+        }
+        int removed = 0;
+        ArrayDeque<NumericBinaryTree> pending
+                = new ArrayDeque<NumericBinaryTree>();
+        pending.push(tree);
+        while (!pending.isEmpty()) {
+            NumericBinaryTree node = pending.pop();
+            NumericBinaryTree left = node.getLeftChild();
+            if (left != null && !keep.test(left.getValue())) {
+                removed += left.numberOfNodes();
+                node.setLeftChild(null);
+            } else if (left != null) {
+                pending.push(left);
+            }
+            NumericBinaryTree right = node.getRightChild();
+            if (right != null && !keep.test(right.getValue())) {
+                removed += right.numberOfNodes();
+                node.setRightChild(null);
+            } else if (right != null) {
+                pending.push(right);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Copies a tree, leaving out every subtree whose root value
+     * is rejected by a predicate.
+     * @param tree the tree; may be empty
+     * @param keep the predicate accepting values whose subtrees remain
+     * @return the copy; empty if the value of the root of tree
+     *         is rejected
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public static NumericBinaryTree filter(final NumericBinaryTree tree,
+                                           final Predicate<Number> keep)
+        throws IllegalArgumentException {
+        checkArguments(tree, keep);
+        if (tree.isEmpty() || !keep.test(tree.getValue())) {
+            return new NumericBinaryTree();
+        }
+        // Kept nodes, each before its kept right and then left subtree:
+        // the reverse of their postorder.
+        List<NumericBinaryTree> kept = new ArrayList<NumericBinaryTree>();
+        ArrayDeque<NumericBinaryTree> pending
+                = new ArrayDeque<NumericBinaryTree>();
+        pending.push(tree);
+        while (!pending.isEmpty()) {
+            NumericBinaryTree node = pending.pop();
+            kept.add(node);
+            NumericBinaryTree left = node.getLeftChild();
+            if (left != null && keep.test(left.getValue())) {
+                pending.push(left);
+            }
+            NumericBinaryTree right = node.getRightChild();
+            if (right != null && keep.test(right.getValue())) {
+                pending.push(right);
+            }
+        }
+        // Copies of completed subtrees, each beneath the node it copies.
+        ArrayDeque<NumericBinaryTree> copies
+                = new ArrayDeque<NumericBinaryTree>();
+        for (int i = kept.size() - 1; i >= 0; i--) {
+            NumericBinaryTree node = kept.get(i);
+            NumericBinaryTree right = null;
+            if (!copies.isEmpty() && copies.peek() == node.getRightChild()) {
+                copies.pop();
+                right = copies.pop();
+            }
+            NumericBinaryTree left = null;
+            if (!copies.isEmpty() && copies.peek() == node.getLeftChild()) {
+                copies.pop();
+                left = copies.pop();
+            }
+            copies.push(new NumericBinaryTree(node.getValue(), left, right));
+            copies.push(node);
+        }
+        copies.pop();
+        return copies.pop();
+    }
+
+    /**
+     * Copies a tree in one postorder pass, replacing every value
+     * by a function of it; each copy is built from the copies
+     * of its children, so the copy records no changes.
+     * @param tree the tree; may be empty
+     * @param function the function of each value
+     * @return the copy; an empty tree if tree is empty
+     * @throws IllegalArgumentException if function returns null
+     */
+    static NumericBinaryTree copySequentially(final NumericBinaryTree tree,
+            final UnaryOperator<Number> function)
+        throws IllegalArgumentException {
+        ArrayDeque<NumericBinaryTree> copies
+                = new ArrayDeque<NumericBinaryTree>();
+        for (NumericBinaryTree node : tree) {
+            NumericBinaryTree right = null;
+            if (node.getRightChild() != null) {
+                right = copies.pop();
+            }
+            NumericBinaryTree left = null;
+            if (node.getLeftChild() != null) {
+                left = copies.pop();
+            }
+            copies.push(new NumericBinaryTree(
+                    mapped(function, node.getValue()), left, right));
+        }
+        if (copies.isEmpty()) {
+            return new NumericBinaryTree();
+        }
+        return copies.pop();
+    }
+
+    /**
+     * Applies a function to a value.
+     * @param function the function
+     * @param value the value
+     * @return the function value
+     * @throws IllegalArgumentException if function returns null
+     */
+    static Number mapped(final UnaryOperator<Number> function,
+                         final Number value)
+        throws IllegalArgumentException {
+        Number result = function.apply(value);
+        if (result == null) {
+            throw new IllegalArgumentException("null value");
+        }
+        return result;
+    }
+
+    /**
+     * Replaces every value of a tree without recording a change
+     * of its ancestors.
+     * @param tree the tree; may be empty
+     * @param function the function of each value
+     * @throws IllegalArgumentException if function returns null
+     */
+    static void replaceSequentially(final NumericBinaryTree tree,
+                                    final UnaryOperator<Number> function)
+        throws IllegalArgumentException {
+        for (NumericBinaryTree node : tree) {
+            node.replaceValue(function);
+        }
+    }
+
+    /**
+     * Checks that a tree and an operation are present.
+     * @param tree the tree
+     * @param operation the function or predicate
+     * @throws IllegalArgumentException if either is null
+     */
+    private static void checkArguments(final NumericBinaryTree tree,
+                                       final Object operation)
+        throws IllegalArgumentException {
+        if (tree == null || operation == null) {
+            throw new IllegalArgumentException("null tree or operation");
+        }
+    }
+}
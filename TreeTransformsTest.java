@@ -0,0 +1,154 @@
+// TreeTransformsTest.java
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Tests for TreeTransforms.
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public class TreeTransformsTest {
+    /** Number of nodes in generated large trees. */
+    private static final int LARGE_SIZE = 100000;
+    /** Scale factor applied by the transforms tested. */
+    private static final int SCALE = 3;
+    /** Number of nodes in the small balanced tree. */
+    private static final int SMALL_SIZE = 8;
+    /** Value of a leaf of the small balanced tree. */
+    private static final int PRUNED = 7;
+    /** Value of the root of the small balanced tree. */
+    private static final int SMALL_ROOT = 4;
+    /** Number of nodes in the degenerate chain. */
+    private static final int CHAIN_SIZE = 200001;
+
+    /** Function tripling a value, as a long. */
+    private static final UnaryOperator<Number> TRIPLE
+            = value -> value.longValue() * SCALE;
+
+    /**
+     * Generates a balanced tree of sequential values.
+     * @param first the first value, placed in inorder
+     * @param count the number of nodes
+     * @return testing tree; null if count is zero
+     */
+    private NumericBinaryTree generateBalancedTree(final long first,
+                                                   final int count) {
+        if (count == 0) {
+            return null;
+        }
+        int leftCount = count / 2;
+        return new NumericBinaryTree(first + leftCount,
+                generateBalancedTree(first, leftCount),
+                generateBalancedTree(first + leftCount + 1,
+                                     count - leftCount - 1));
+    }
+
+    /**
+     * Lists the values of a tree, each tripled.
+     * @param nbt the tree
+     * @return the tripled values, in preorder
+     */
+    private List<Number> tripled(final NumericBinaryTree nbt) {
+        List<Number> values = new ArrayList<Number>();
+        for (Number value : nbt.preorderValues()) {
+            values.add(TRIPLE.apply(value));
+        }
+        return values;
+    }
+
+    /**
+     * Verifies sequential and parallel replacement in place.
+     */
+    @Test
+    public void replaceAllTest() {
+        NumericBinaryTree nbt = generateBalancedTree(0, LARGE_SIZE);
+        List<Number> expected = tripled(nbt);
+        long version = nbt.version();
+        TreeTransforms.replaceAll(nbt, TRIPLE);
+        assertTrue(nbt.version() > version);
+        assertEquals(expected, nbt.preorderValues());
+        expected = tripled(nbt);
+        TreeTransforms.parallelReplaceAll(nbt, TRIPLE);
+        assertEquals(expected, nbt.preorderValues());
+        assertEquals(2, nbt.modificationCount());
+    }
+
+    /**
+     * Verifies that mapping leaves the original tree unchanged.
+     */
+    @Test
+    public void mapValuesTest() {
+        NumericBinaryTree nbt = generateBalancedTree(0, LARGE_SIZE);
+        List<Number> original = nbt.preorderValues();
+        NumericBinaryTree mapped = TreeTransforms.mapValues(nbt, TRIPLE);
+        NumericBinaryTree parallel
+                = TreeTransforms.parallelMapValues(nbt, TRIPLE);
+        assertEquals(original, nbt.preorderValues());
+        assertEquals(tripled(nbt), mapped.preorderValues());
+        assertEquals(mapped, parallel);
+        assertNotSame(nbt.getLeftChild(), mapped.getLeftChild());
+        assertTrue(TreeTransforms.mapValues(new NumericBinaryTree(), TRIPLE)
+                   .isEmpty());
+    }
+
+    /**
+     * Verifies that copies of a degenerate chain need no recursion.
+     */
+    @Test
+    public void deepChainTest() {
+        NumericBinaryTree chain = null;
+        for (int i = CHAIN_SIZE - 1; i >= 0; i--) {
+            chain = new NumericBinaryTree(i, null, chain);
+        }
+        NumericBinaryTree mapped = TreeTransforms.mapValues(chain, TRIPLE);
+        NumericBinaryTree parallel
+                = TreeTransforms.parallelMapValues(chain, TRIPLE);
+        NumericBinaryTree filtered = TreeTransforms.filter(chain,
+                value -> value.intValue() < CHAIN_SIZE - 1);
+        for (int i = 0; i < CHAIN_SIZE - 1; i++) {
+            assertEquals((long) i * SCALE, mapped.getValue());
+            assertEquals((long) i * SCALE, parallel.getValue());
+            assertEquals(i, filtered.getValue());
+            mapped = mapped.getRightChild();
+            parallel = parallel.getRightChild();
+            filtered = filtered.getRightChild();
+        }
+        assertTrue(mapped.isLeaf());
+        assertTrue(parallel.isLeaf());
+        assertNull(filtered);
+    }
+
+    /**
+     * Verifies pruning in place and filtering into a copy.
+     */
+    @Test
+    public void pruneAndFilterTest() {
+        NumericBinaryTree nbt = generateBalancedTree(0, SMALL_SIZE);
+        NumericBinaryTree filtered = TreeTransforms.filter(nbt,
+                value -> value.intValue() != PRUNED);
+        assertEquals(SMALL_SIZE - 1, filtered.numberOfNodes());
+        assertEquals(SMALL_SIZE, nbt.numberOfNodes());
+        assertEquals(1, TreeTransforms.prune(nbt,
+                value -> value.intValue() != PRUNED));
+        assertEquals(filtered, nbt);
+        assertNull(nbt.getRightChild().getRightChild());
+        assertEquals(SMALL_SIZE - 1, TreeTransforms.prune(nbt,
+                value -> value.intValue() < SMALL_ROOT));
+        assertTrue(nbt.isEmpty());
+        assertTrue(TreeTransforms.filter(filtered, value -> false).isEmpty());
+    }
+
+    /**
+     * Verifies exception for a function returning null.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void nullResultException() {
+        TreeTransforms.replaceAll(new NumericBinaryTree(1), value -> null);
+    }
+}
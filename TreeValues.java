@@ -0,0 +1,429 @@
+// TreeValues.java
+import java.nio.DoubleBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+/**
+ * Extraction of tree values into primitive arrays and buffers,
+ * and aggregations over primitive arrays.
+ * <p>
+ * Values are written straight into caller-provided storage
+ * in the requested traversal order, without building a list of
+ * values, so repeated analytics can reuse one array.
+ * The aggregations keep several independent partial results,
+ * letting the processor overlap consecutive additions and comparisons
+ * instead of waiting on a single running result.
+ * Sums may therefore differ from a strictly sequential sum
+ * in the last bits.
+ * </p>
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public final class TreeValues {
+
+    /** Number of independent partial results kept by aggregations. */
+    private static final int LANES = 4;
+
+    /** Index of the third partial result. */
+    private static final int LANE_2 = 2;
+
+    /** Index of the fourth partial result. */
+    private static final int LANE_3 = 3;
+
+    /**
+     * Order in which values are written.
+     */
+    public enum Order {
+        /** Root, then left subtree, then right subtree. */
+        PREORDER,
+        /** Left subtree, then root, then right subtree. */
+        INORDER,
+        /** Left subtree, then right subtree, then root. */
+        POSTORDER
+    }
+
+    /** Prevents instantiation of utility class. */
+    private TreeValues() {
+    }
+
+    /**
+     * Writes the double values of a tree into an array.
+     * @param tree the tree; may be empty
+     * @param order the order in which to write the values
+     * @param dest the array receiving the values
+     * @param offset the index at which to write the first value
+     * @return the number of values written
+     * @throws IllegalArgumentException if an argument is null or
+     *         the values do not fit in dest at offset
+     */
+    public static int extract(final NumericBinaryTree tree,
+                              final Order order,
+                              final double[] dest, final int offset)
+        throws IllegalArgumentException {
+        if (dest == null) {
+            throw new IllegalArgumentException("null destination");
+        }
+        int count = checkRoom(tree, order, offset, dest.length);
+        int index = offset;
+        for (NumericBinaryTree node : new Walk(tree, order)) {
+            dest[index++] = node.getValue().doubleValue();
+        }
+        return count;
+    }
+
+    /**
+     * Writes the long values of a tree into an array.
+     * @param tree the tree; may be empty
+     * @param order the order in which to write the values
+     * @param dest the array receiving the values
+     * @param offset the index at which to write the first value
+     * @return the number of values written
+     * @throws IllegalArgumentException if an argument is null or
+     *         the values do not fit in dest at offset
+     */
+    public static int extract(final NumericBinaryTree tree,
+                              final Order order,
+                              final long[] dest, final int offset)
+        throws IllegalArgumentException {
+        if (dest == null) {
+            throw new IllegalArgumentException("null destination");
+        }
+        int count = checkRoom(tree, order, offset, dest.length);
+        int index = offset;
+        for (NumericBinaryTree node : new Walk(tree, order)) {
+            dest[index++] = node.getValue().longValue();
+        }
+        return count;
+    }
+
+    /**
+     * Writes the double values of a tree into a buffer
+     * at its position, advancing the position past them.
+     * @param tree the tree; may be empty
+     * @param order the order in which to write the values
+     * @param dest the buffer receiving the values
+     * @return the number of values written
+     * @throws IllegalArgumentException if an argument is null or
+     *         the values do not fit in the remaining space of dest
+     */
+    public static int extract(final NumericBinaryTree tree,
+                              final Order order, final DoubleBuffer dest)
+        throws IllegalArgumentException {
+        if (dest == null) {
+            throw new IllegalArgumentException("null destination");
+        }
+        int count = checkRoom(tree, order, 0, dest.remaining());
+        for (NumericBinaryTree node : new Walk(tree, order)) {
+            dest.put(node.getValue().doubleValue());
+        }
+        return count;
+    }
+
+    /**
+     * Returns the double values of a tree in a new array.
+     * @param tree the tree; may be empty
+     * @param order the order of the values
+     * @return the values
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public static double[] toDoubleArray(final NumericBinaryTree tree,
+                                         final Order order)
+        throws IllegalArgumentException {
+        if (tree == null) {
+            throw new IllegalArgumentException("null tree");
+        }
+        double[] values = new double[tree.numberOfNodes()];
+        extract(tree, order, values, 0);
+        return values;
+    }
+
+    /**
+     * Sums a range of an array.
+     * @param values the array
+     * @param from the first index of the range
+     * @param to the index after the range
+     * @return the sum; 0 for an empty range
+     * @throws IllegalArgumentException if values is null
+     *         or the range is not within it
+     */
+    public static double sum(final double[] values, final int from,
+                             final int to) throws IllegalArgumentException {
+        checkRange(values, from, to);
+        double s0 = 0;
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        int i = from;
+        for (; i <= to - LANES; i += LANES) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + LANE_2];
+            s3 += values[i + LANE_3];
+        }
+        for (; i < to; i++) {
+            s0 += values[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Sums a range of an array.
+     * @param values the array
+     * @param from the first index of the range
+     * @param to the index after the range
+     * @return the sum, wrapping on overflow; 0 for an empty range
+     * @throws IllegalArgumentException if values is null
+     *         or the range is not within it
+     */
+    public static long sum(final long[] values, final int from,
+                           final int to) throws IllegalArgumentException {
+        if (values == null) {
+            throw new IllegalArgumentException("null array");
+        }
+        checkRange(values.length, from, to);
+        long s0 = 0;
+        long s1 = 0;
+        long s2 = 0;
+        long s3 = 0;
+        int i = from;
+        for (; i <= to - LANES; i += LANES) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + LANE_2];
+            s3 += values[i + LANE_3];
+        }
+        for (; i < to; i++) {
+            s0 += values[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Finds the least value in a range of an array,
+     * as by {@link Math#min(double, double)}.
+     * @param values the array
+     * @param from the first index of the range
+     * @param to the index after the range
+     * @return the least value; NaN if any value is NaN;
+     *         positive infinity for an empty range
+     * @throws IllegalArgumentException if values is null
+     *         or the range is not within it
+     */
+    public static double min(final double[] values, final int from,
+                             final int to) throws IllegalArgumentException {
+        checkRange(values, from, to);
+        double m0 = Double.POSITIVE_INFINITY;
+        double m1 = m0;
+        double m2 = m0;
+        double m3 = m0;
+        int i = from;
+        for (; i <= to - LANES; i += LANES) {
+            m0 = Math.min(m0, values[i]);
+            m1 = Math.min(m1, values[i + 1]);
+            m2 = Math.min(m2, values[i + LANE_2]);
+            m3 = Math.min(m3, values[i + LANE_3]);
+        }
+        for (; i < to; i++) {
+            m0 = Math.min(m0, values[i]);
+        }
+        return Math.min(Math.min(m0, m1), Math.min(m2, m3));
+    }
+
+    /**
+     * Finds the greatest value in a range of an array,
+     * as by {@link Math#max(double, double)}.
+     * @param values the array
+     * @param from the first index of the range
+     * @param to the index after the range
+     * @return the greatest value; NaN if any value is NaN;
+     *         negative infinity for an empty range
+     * @throws IllegalArgumentException if values is null
+     *         or the range is not within it
+     */
+    public static double max(final double[] values, final int from,
+                             final int to) throws IllegalArgumentException {
+        checkRange(values, from, to);
+        double m0 = Double.NEGATIVE_INFINITY;
+        double m1 = m0;
+        double m2 = m0;
+        double m3 = m0;
+        int i = from;
+        for (; i <= to - LANES; i += LANES) {
+            m0 = Math.max(m0, values[i]);
+            m1 = Math.max(m1, values[i + 1]);
+            m2 = Math.max(m2, values[i + LANE_2]);
+            m3 = Math.max(m3, values[i + LANE_3]);
+        }
+        for (; i < to; i++) {
+            m0 = Math.max(m0, values[i]);
+        }
+        return Math.max(Math.max(m0, m1), Math.max(m2, m3));
+    }
+
+    /**
+     * Computes the dot product of the first elements of two arrays.
+     * @param a the first array
+     * @param b the second array
+     * @param length the number of elements of each array to use
+     * @return the sum of products of respective elements;
+     *         0 if length is 0
+     * @throws IllegalArgumentException if an array is null
+     *         or shorter than length
+     */
+    public static double dot(final double[] a, final double[] b,
+                             final int length)
+        throws IllegalArgumentException {
+        checkRange(a, 0, length);
+        checkRange(b, 0, length);
+        double s0 = 0;
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        int i = 0;
+        for (; i <= length - LANES; i += LANES) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + LANE_2] * b[i + LANE_2];
+            s3 += a[i + LANE_3] * b[i + LANE_3];
+        }
+        for (; i < length; i++) {
+            s0 += a[i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Checks that the values of a tree fit in a destination.
+     * @param tree the tree
+     * @param order the order of the values
+     * @param offset the index of the first value
+     * @param capacity the size of the destination
+     * @return the number of values
+     * @throws IllegalArgumentException if an argument is null or
+     *         the values do not fit
+     */
+    private static int checkRoom(final NumericBinaryTree tree,
+                                 final Order order, final int offset,
+                                 final int capacity)
+        throws IllegalArgumentException {
+        if (tree == null || order == null) {
+            throw new IllegalArgumentException("null tree or order");
+        }
+        int count = tree.numberOfNodes();
+        if (offset < 0 || offset > capacity - count) {
+            throw new IllegalArgumentException("Values do not fit");
+        }
+        return count;
+    }
+
+    /**
+     * Checks that a range lies within a double array.
+     * @param values the array
+     * @param from the first index of the range
+     * @param to the index after the range
+     * @throws IllegalArgumentException if values is null
+     *         or the range is not within it
+     */
+    private static void checkRange(final double[] values, final int from,
+                                   final int to)
+        throws IllegalArgumentException {
+        if (values == null) {
+            throw new IllegalArgumentException("null array");
+        }
+        checkRange(values.length, from, to);
+    }
+
+    /**
+     * Checks that a range lies within an array.
+     * @param length the length of the array
+     * @param from the first index of the range
+     * @param to the index after the range
+     * @throws IllegalArgumentException if the range is not within it
+     */
+    private static void checkRange(final int length, final int from,
+                                   final int to)
+        throws IllegalArgumentException {
+        if (from < 0 || from > to || to > length) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+    }
+
+    /**
+     * Iterative traversal of the nodes of a tree in a given order.
+     */
+    private static final class Walk
+        implements Iterable<NumericBinaryTree>,
+                   Iterator<NumericBinaryTree> {
+
+        /** Order of the traversal. */
+        private final Order order;
+
+        /** Postorder traversal; null for other orders. */
+        private final Iterator<NumericBinaryTree> postorder;
+
+        /** Nodes awaiting the traversal. */
+        private final ArrayDeque<NumericBinaryTree> pending
+                = new ArrayDeque<NumericBinaryTree>();
+
+        /** Next subtree to descend for inorder; null if none. */
+        private NumericBinaryTree next;
+
+        /**
+         * Constructs a traversal.
+         * @param tree the tree; may be empty
+         * @param order the order of the traversal
+         */
+        Walk(final NumericBinaryTree tree, final Order order) {
+            this.order = order;
+            if (order == Order.POSTORDER) {
+                this.postorder = tree.iterator();
+            } else {
+                this.postorder = null;
+                if (!tree.isEmpty()) {
+                    if (order == Order.PREORDER) {
+                        this.pending.push(tree);
+                    } else {
+                        this.next = tree;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Iterator<NumericBinaryTree> iterator() {
+            return this;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.postorder != null) {
+                return this.postorder.hasNext();
+            }
+            return this.next != null || !this.pending.isEmpty();
+        }
+
+        @Override
+        public NumericBinaryTree next() {
+            switch (this.order) {
+                case POSTORDER:
+                    return this.postorder.next();
+                case PREORDER:
+                    NumericBinaryTree node = this.pending.pop();
+                    if (node.getRightChild() != null) {
+                        this.pending.push(node.getRightChild());
+                    }
+                    if (node.getLeftChild() != null) {
+                        this.pending.push(node.getLeftChild());
+                    }
+                    return node;
+                default:
+                    while (this.next != null) {
+                        this.pending.push(this.next);
+                        this.next = this.next.getLeftChild();
+                    }
+                    NumericBinaryTree visited = this.pending.pop();
+                    this.next = visited.getRightChild();
+                    return visited;
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+// TreeValuesTest.java
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import java.math.BigDecimal;
+import java.nio.DoubleBuffer;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for TreeValues.
+ * @author Connor Summeril
+ * @version 1.0
+ */
+public class TreeValuesTest {
+    /** Tolerance for comparing sums. */
+    private static final double DELTA = 1e-9;
+    /** Number of values in random arrays. */
+    private static final int RANDOM_SIZE = 1003;
+    /** Seed for random values. */
+    private static final long SEED = 2016081718L;
+    /** Offset at which values are written. */
+    private static final int OFFSET = 3;
+
+    /**
+     * Generates a small tree of mixed value types for testing.
+     * @return testing tree
+     */
+    private NumericBinaryTree generateTestTree() {
+        return new NumericBinaryTree(2,
+                new NumericBinaryTree(1.5, new NumericBinaryTree(-7L), null),
+                new NumericBinaryTree(new BigDecimal("9.25"), null,
+                                      new NumericBinaryTree((short) 4)));
+    }
+
+    /**
+     * Copies a list of values into a double array.
+     * @param values the values
+     * @return the double values
+     */
+    private double[] doubles(final List<Number> values) {
+        double[] result = new double[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i).doubleValue();
+        }
+        return result;
+    }
+
+    /**
+     * Verifies extraction in each order against the list traversals.
+     */
+    @Test
+    public void extractOrdersTest() {
+        NumericBinaryTree nbt = generateTestTree();
+        assertArrayEquals(doubles(nbt.preorderValues()),
+                TreeValues.toDoubleArray(nbt, TreeValues.Order.PREORDER),
+                0);
+        assertArrayEquals(doubles(nbt.inorderValues()),
+                TreeValues.toDoubleArray(nbt, TreeValues.Order.INORDER),
+                0);
+        assertArrayEquals(doubles(nbt.postorderValues()),
+                TreeValues.toDoubleArray(nbt, TreeValues.Order.POSTORDER),
+                0);
+        assertEquals(0, TreeValues.toDoubleArray(new NumericBinaryTree(),
+                TreeValues.Order.INORDER).length);
+    }
+
+    /**
+     * Verifies extraction into long arrays at an offset and into buffers.
+     */
+    @Test
+    public void extractDestinationsTest() {
+        NumericBinaryTree nbt = generateTestTree();
+        long[] longs = new long[OFFSET + nbt.numberOfNodes()];
+        assertEquals(nbt.numberOfNodes(), TreeValues.extract(nbt,
+                TreeValues.Order.INORDER, longs, OFFSET));
+        assertArrayEquals(new long[] {0, 0, 0, -7, 1, 2, 9, 4}, longs);
+        DoubleBuffer buffer = DoubleBuffer.allocate(longs.length);
+        buffer.put(0.5);
+        TreeValues.extract(nbt, TreeValues.Order.PREORDER, buffer);
+        assertEquals(1 + nbt.numberOfNodes(), buffer.position());
+        assertEquals(-7.0, buffer.get(OFFSET), 0);
+    }
+
+    /**
+     * Verifies exception when the values do not fit.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void extractNoRoomException() {
+        NumericBinaryTree nbt = generateTestTree();
+        TreeValues.extract(nbt, TreeValues.Order.PREORDER,
+                           new double[nbt.numberOfNodes()], 1);
+    }
+
+    /**
+     * Verifies aggregations against sequential loops,
+     * including ranges not a multiple of the unrolling.
+     */
+    @Test
+    public void aggregationsTest() {
+        Random random = new Random(SEED);
+        double[] a = new double[RANDOM_SIZE];
+        double[] b = new double[RANDOM_SIZE];
+        long[] c = new long[RANDOM_SIZE];
+        for (int i = 0; i < RANDOM_SIZE; i++) {
+            a[i] = random.nextGaussian();
+            b[i] = random.nextGaussian();
+            c[i] = random.nextLong();
+        }
+        for (int from = 0; from < OFFSET; from++) {
+            int to = RANDOM_SIZE - from;
+            double sum = 0;
+            long longSum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                sum += a[i];
+                longSum += c[i];
+                min = Math.min(min, a[i]);
+                max = Math.max(max, a[i]);
+            }
+            assertEquals(sum, TreeValues.sum(a, from, to), DELTA);
+            assertEquals(longSum, TreeValues.sum(c, from, to));
+            assertEquals(min, TreeValues.min(a, from, to), 0);
+            assertEquals(max, TreeValues.max(a, from, to), 0);
+            double dot = 0;
+            for (int i = 0; i < to; i++) {
+                dot += a[i] * b[i];
+            }
+            assertEquals(dot, TreeValues.dot(a, b, to), DELTA);
+        }
+        assertEquals(0, TreeValues.sum(a, 1, 1), 0);
+        a[RANDOM_SIZE - 1] = Double.NaN;
+        assertTrue(Double.isNaN(TreeValues.max(a, 0, RANDOM_SIZE)));
+    }
+
+    /**
+     * Verifies exception for a range outside the array.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRangeException() {
+        TreeValues.sum(new double[1], 0, 2);
+    }
+}